@@ -1,13 +1,34 @@
+package com.empresa.integracao.config;
+
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Properties;
 
 /**
  * Classe de configuração centralizada para múltiplos bancos de dados
  * Lê configurações de um arquivo .properties para maior flexibilidade
+ *
+ * Com db.sources=nome1,nome2 cada origem (banco de RH de uma empresa do grupo) tem seu perfil:
+ * source.<nome>.<chave> sobrepõe <chave> para aquela origem (db.url, employee.table, colunas,
+ * tamanho do pool etc.); chaves não sobrepostas valem para todas. A origem vale para a thread
+ * atual (useSource); sem origem definida vale a primeira da lista
  */
 public class DatabaseConfig {
+    /**
+     * Nome da única origem quando db.sources não está configurada
+     */
+    public static final String DEFAULT_SOURCE = "padrao";
+    
     private static final Properties props = new Properties();
+    private static final String[] OVERRIDABLE_PREFIXES = {
+        "db.", "servicenow.", "employee.", "sync.", "deadletter.", "log.", "metrics.", "reconcile.", "source."
+    };
+    private static final ThreadLocal<String> currentSource = new ThreadLocal<>();
+    private static final List<String> sourceNames;
     
     static {
         // Carrega as configurações do arquivo properties
@@ -23,6 +44,133 @@ public class DatabaseConfig {
             System.err.println("Erro ao carregar configurações: " + e.getMessage());
             setDefaultProperties();
         }
+        applySystemPropertyOverrides();
+        sourceNames = parseSourceNames();
+    }
+    
+    private static List<String> parseSourceNames() {
+        List<String> names = new ArrayList<>();
+        for (String name : props.getProperty("db.sources", "").split(",")) {
+            if (!name.trim().isEmpty() && !names.contains(name.trim())) {
+                names.add(name.trim());
+            }
+        }
+        if (names.isEmpty()) {
+            names.add(DEFAULT_SOURCE);
+        }
+        return Collections.unmodifiableList(names);
+    }
+    
+    /**
+     * Origens configuradas em db.sources, na ordem do arquivo ([padrao] se ausente)
+     */
+    public static List<String> getSourceNames() {
+        return sourceNames;
+    }
+    
+    public static boolean isMultiSource() {
+        return sourceNames.size() > 1;
+    }
+    
+    /**
+     * Origem da thread atual, ou a primeira configurada
+     */
+    public static String getCurrentSource() {
+        String source = currentSource.get();
+        return source != null ? source : sourceNames.get(0);
+    }
+    
+    /**
+     * Define a origem da thread atual até o fechamento do escopo, que restaura a anterior
+     * Conexões, estrutura da tabela, consultas e colunas passam a ser as dessa origem
+     */
+    public static SourceScope useSource(String source) {
+        if (!sourceNames.contains(source)) {
+            throw new IllegalArgumentException("Origem não configurada em db.sources: " + source);
+        }
+        String previous = currentSource.get();
+        currentSource.set(source);
+        return () -> {
+            if (previous == null) {
+                currentSource.remove();
+            } else {
+                currentSource.set(previous);
+            }
+        };
+    }
+    
+    /**
+     * Escopo de uma origem (try-with-resources)
+     */
+    public interface SourceScope extends AutoCloseable {
+        @Override
+        void close();
+    }
+    
+    /**
+     * Executa a ação com a origem definida na thread atual e restaura a anterior ao final
+     */
+    public static void withSource(String source, Runnable action) {
+        SourceScope scope = useSource(source);
+        try {
+            action.run();
+        } finally {
+            scope.close();
+        }
+    }
+    
+    /**
+     * Executa a chamada com a origem definida na thread atual e restaura a anterior ao final;
+     * exceções verificadas da chamada são propagadas
+     */
+    public static <T, E extends Exception> T withSource(String source, SourceCall<T, E> call) throws E {
+        SourceScope scope = useSource(source);
+        try {
+            return call.call();
+        } finally {
+            scope.close();
+        }
+    }
+    
+    /**
+     * Chamada executada no escopo de uma origem (withSource)
+     */
+    public interface SourceCall<T, E extends Exception> {
+        T call() throws E;
+    }
+    
+    /**
+     * Valor da chave para a origem atual: source.<origem>.<chave>, se definida, ou a chave geral
+     */
+    private static String property(String key) {
+        String source = getCurrentSource();
+        if (!DEFAULT_SOURCE.equals(source)) {
+            String value = props.getProperty("source." + source + "." + key);
+            if (value != null) {
+                return value;
+            }
+        }
+        return props.getProperty(key);
+    }
+    
+    private static String property(String key, String defaultValue) {
+        String value = property(key);
+        return value != null ? value : defaultValue;
+    }
+    
+    /**
+     * Propriedades de sistema (-Dchave=valor) com os prefixos da aplicação sobrepõem o arquivo,
+     * o que permite variar a configuração em testes de carga sem editar application.properties
+     */
+    private static void applySystemPropertyOverrides() {
+        for (String key : System.getProperties().stringPropertyNames()) {
+            for (String prefix : OVERRIDABLE_PREFIXES) {
+                if (key.startsWith(prefix)) {
+                    props.setProperty(key, System.getProperty(key));
+                    break;
+                }
+            }
+        }
     }
     
     private static void setDefaultProperties() {
@@ -45,87 +193,621 @@ public class DatabaseConfig {
         props.setProperty("employee.sync.column", "sincronizado_servicenow");
         props.setProperty("employee.syncdate.column", "data_sincronizacao");
         props.setProperty("employee.sysid.column", "servicenow_sys_id");
+        props.setProperty("employee.hash.column", "servicenow_hash");
+        props.setProperty("db.pool.min.size", "2");
+        props.setProperty("db.pool.max.size", "10");
     }
     
     // Métodos de acesso para configurações do banco de dados
     public static String getDatabaseDriver() {
-        return props.getProperty("db.driver");
+        return property("db.driver");
     }
     
     public static String getDatabaseUrl() {
-        return props.getProperty("db.url");
+        return property("db.url");
     }
     
     public static String getDatabaseUsername() {
-        return props.getProperty("db.username");
+        return property("db.username");
     }
     
     public static String getDatabasePassword() {
-        return props.getProperty("db.password");
+        return property("db.password");
+    }
+    
+    // Métodos de acesso para configurações do pool de conexões
+    public static int getPoolMinSize() {
+        return getIntProperty("db.pool.min.size", 2);
+    }
+    
+    public static int getPoolMaxSize() {
+        return getIntProperty("db.pool.max.size", 10);
+    }
+    
+    public static long getPoolBorrowTimeoutMillis() {
+        return getLongProperty("db.pool.borrow.timeout.ms", 30000L);
+    }
+    
+    public static int getPoolValidationTimeoutSeconds() {
+        return getIntProperty("db.pool.validation.timeout.s", 2);
+    }
+    
+    public static long getPoolIdleTimeoutMillis() {
+        return getLongProperty("db.pool.idle.timeout.ms", 600000L);
+    }
+    
+    public static long getPoolLeakThresholdMillis() {
+        return getLongProperty("db.pool.leak.threshold.ms", 60000L);
+    }
+    
+    public static int getPoolStatementCacheSize() {
+        return getIntProperty("db.pool.statement.cache.size", 32);
+    }
+    
+    // Métodos de acesso para gravação em lote do status de sincronização
+    public static int getBatchSize() {
+        return Math.max(1, getIntProperty("db.batch.size", 200));
+    }
+    
+    public static long getBatchFlushIntervalMillis() {
+        return getLongProperty("db.batch.flush.interval.ms", 1000L);
+    }
+    
+    // Métodos de acesso para leitura paginada dos funcionários
+    public static int getPageSize() {
+        return getIntProperty("db.page.size", 1000);
+    }
+    
+    /**
+     * Tamanho do fetch JDBC. No MySQL só tem efeito com useCursorFetch=true na URL
+     */
+    public static int getFetchSize() {
+        return getIntProperty("db.fetch.size", 500);
+    }
+    
+    /**
+     * Modo do filtro de pendentes: "legacy" (= 0 OR IS NULL) ou "indexed" (= 0),
+     * que permite uso de índice após normalizar os nulos para 0
+     */
+    public static String getPendingPredicateMode() {
+        return property("db.pending.predicate.mode", "legacy").trim().toLowerCase();
+    }
+    
+    public static boolean isPendingIndexCreationEnabled() {
+        return Boolean.parseBoolean(property("db.pending.index.create", "false").trim());
+    }
+    
+    public static boolean isQueryPlanCheckEnabled() {
+        return Boolean.parseBoolean(property("db.query.plan.check", "true").trim());
     }
     
     // Métodos de acesso para configurações do ServiceNow
     public static String getServiceNowUrl() {
-        return props.getProperty("servicenow.url");
+        return property("servicenow.url");
     }
     
     public static String getServiceNowUsername() {
-        return props.getProperty("servicenow.username");
+        return property("servicenow.username");
     }
     
     public static String getServiceNowPassword() {
-        return props.getProperty("servicenow.password");
+        return property("servicenow.password");
+    }
+    
+    public static double getServiceNowRateLimit() {
+        return getDoubleProperty("servicenow.rate.limit.rps", 10.0);
+    }
+    
+    public static int getServiceNowRateLimitBurst() {
+        return getIntProperty("servicenow.rate.limit.burst", 20);
+    }
+    
+    public static double getServiceNowRateLimitMin() {
+        return getDoubleProperty("servicenow.rate.limit.min.rps", 1.0);
+    }
+    
+    /**
+     * Máximo de emails por consulta em lote (emailIN) e tamanho máximo da URL gerada
+     */
+    public static int getServiceNowLookupChunkSize() {
+        return Math.max(1, getIntProperty("servicenow.lookup.chunk.size", 100));
+    }
+    
+    public static int getServiceNowLookupMaxUrlLength() {
+        return getIntProperty("servicenow.lookup.max.url.length", 4000);
+    }
+    
+    // Cache local de email para sys_id
+    public static int getServiceNowCacheMaxEntries() {
+        return getIntProperty("servicenow.cache.max.entries", 100000);
+    }
+    
+    public static long getServiceNowCacheTtlMillis() {
+        return getLongProperty("servicenow.cache.ttl.s", 3600L) * 1000L;
+    }
+    
+    public static long getServiceNowCacheNegativeTtlMillis() {
+        return getLongProperty("servicenow.cache.negative.ttl.s", 300L) * 1000L;
+    }
+    
+    public static boolean isServiceNowCacheWarmupEnabled() {
+        return Boolean.parseBoolean(property("servicenow.cache.warmup", "true").trim());
+    }
+    
+    public static long getServiceNowConnectTimeoutMillis() {
+        return getLongProperty("servicenow.http.connect.timeout.ms", 10000L);
+    }
+    
+    public static long getServiceNowRequestTimeoutMillis() {
+        return getLongProperty("servicenow.http.request.timeout.ms", 60000L);
+    }
+    
+    public static int getServiceNowKeepAliveSeconds() {
+        return getIntProperty("servicenow.http.keepalive.s", 300);
+    }
+    
+    /**
+     * Threads do executor do HttpClient (processamento das respostas)
+     */
+    public static int getServiceNowHttpThreads() {
+        return Math.max(1, getIntProperty("servicenow.http.threads", 4));
+    }
+    
+    /**
+     * Tentativas por requisição quando o ServiceNow responde 429 (ou 503 com Retry-After)
+     */
+    public static int getServiceNowThrottleMaxAttempts() {
+        return Math.max(1, getIntProperty("servicenow.throttle.max.attempts", 5));
+    }
+    
+    /**
+     * Novas tentativas para falhas transitórias: total de tentativas e backoff exponencial
+     */
+    public static int getServiceNowRetryMaxAttempts() {
+        return Math.max(1, getIntProperty("servicenow.retry.max.attempts", 3));
+    }
+    
+    public static long getServiceNowRetryBaseDelayMillis() {
+        return getLongProperty("servicenow.retry.base.ms", 200L);
+    }
+    
+    public static long getServiceNowRetryMaxDelayMillis() {
+        return getLongProperty("servicenow.retry.max.ms", 5000L);
+    }
+    
+    /**
+     * Disjuntor: falhas consecutivas para abrir e tempo aberto antes da chamada de teste
+     */
+    public static int getServiceNowCircuitFailureThreshold() {
+        return Math.max(1, getIntProperty("servicenow.circuit.failure.threshold", 5));
+    }
+    
+    public static long getServiceNowCircuitOpenMillis() {
+        return getLongProperty("servicenow.circuit.open.ms", 30000L);
+    }
+    
+    /**
+     * Criação de usuários: "single" (um POST por usuário na Table API) ou "batch"
+     * (vários usuários por requisição em /api/now/v1/batch)
+     */
+    public static String getServiceNowCreateMode() {
+        return property("servicenow.create.mode", "single").trim().toLowerCase();
+    }
+    
+    public static boolean isServiceNowBatchCreateEnabled() {
+        return "batch".equals(getServiceNowCreateMode());
+    }
+    
+    /**
+     * Máximo de usuários por requisição na API de lote
+     */
+    public static int getServiceNowBatchSize() {
+        return Math.max(1, getIntProperty("servicenow.batch.size", 200));
     }
     
     // Métodos de acesso para mapeamento de colunas
     public static String getEmployeeTable() {
-        return props.getProperty("employee.table");
+        return property("employee.table");
     }
     
     public static String getEmployeeIdColumn() {
-        return props.getProperty("employee.id.column");
+        return property("employee.id.column");
     }
     
     public static String getEmployeeFirstNameColumn() {
-        return props.getProperty("employee.firstname.column");
+        return property("employee.firstname.column");
     }
     
     public static String getEmployeeLastNameColumn() {
-        return props.getProperty("employee.lastname.column");
+        return property("employee.lastname.column");
     }
     
     public static String getEmployeeEmailColumn() {
-        return props.getProperty("employee.email.column");
+        return property("employee.email.column");
     }
     
     public static String getEmployeeDepartmentColumn() {
-        return props.getProperty("employee.department.column");
+        return property("employee.department.column");
     }
     
     public static String getEmployeePositionColumn() {
-        return props.getProperty("employee.position.column");
+        return property("employee.position.column");
     }
     
     public static String getEmployeeHireDateColumn() {
-        return props.getProperty("employee.hiredate.column");
+        return property("employee.hiredate.column");
     }
     
     public static String getEmployeeSyncColumn() {
-        return props.getProperty("employee.sync.column");
+        return property("employee.sync.column");
     }
     
     public static String getEmployeeSyncDateColumn() {
-        return props.getProperty("employee.syncdate.column");
+        return property("employee.syncdate.column");
     }
     
     public static String getEmployeeSysIdColumn() {
-        return props.getProperty("employee.sysid.column");
+        return property("employee.sysid.column");
+    }
+    
+    // Métodos de acesso para o processamento paralelo da sincronização
+    public static int getSyncParallelism() {
+        return Math.max(1, getIntProperty("sync.parallelism", 8));
+    }
+    
+    /**
+     * Quantos funcionários têm a existência no ServiceNow resolvida por consulta em lote
+     */
+    public static int getSyncLookupPageSize() {
+        return Math.max(1, getIntProperty("sync.lookup.page.size", 100));
+    }
+    
+    /**
+     * Tabela de falhas (dead letter): funcionários cuja sincronização falhou, com o erro e
+     * o número de tentativas. Vazia desativa o registro
+     * Com várias origens e sem valor próprio da origem, recebe o sufixo da origem
+     * (servicenow_sync_falhas_<origem>): origens no mesmo banco não misturam seus ids
+     */
+    public static String getDeadLetterTable() {
+        String table = property("deadletter.table", "servicenow_sync_falhas").trim();
+        if (table.isEmpty()) {
+            return null;
+        }
+        String source = getCurrentSource();
+        if (!isMultiSource() || props.getProperty("source." + source + ".deadletter.table") != null) {
+            return table;
+        }
+        return table + "_" + source.replaceAll("[^A-Za-z0-9_]", "_");
+    }
+    
+    /**
+     * Capacidade de cada fila entre os estágios do pipeline de sincronização
+     */
+    public static int getSyncPipelineQueueCapacity() {
+        return Math.max(1, getIntProperty("sync.pipeline.queue.capacity", 1000));
+    }
+    
+    /**
+     * Intervalo entre os relatórios de métricas do pipeline (0 desativa)
+     */
+    public static long getSyncPipelineReportIntervalSeconds() {
+        return getLongProperty("sync.pipeline.report.s", 10L);
+    }
+    
+    /**
+     * Executor da sincronização: "virtual" (threads virtuais, Java 21+) ou "fixed"
+     */
+    public static String getSyncExecutorType() {
+        return property("sync.executor", "virtual").trim().toLowerCase();
+    }
+    
+    /**
+     * Intervalo entre o fim de uma sincronização e o início da próxima no modo daemon
+     */
+    public static long getSyncDaemonIntervalSeconds() {
+        return Math.max(1L, getLongProperty("sync.daemon.interval.s", 300L));
+    }
+    
+    /**
+     * Agenda cron do modo daemon (minuto hora dia mês dia-da-semana); quando definida,
+     * substitui sync.daemon.interval.s
+     */
+    public static String getSyncDaemonCron() {
+        String cron = property("sync.daemon.cron");
+        return cron == null || cron.trim().isEmpty() ? null : cron.trim();
+    }
+    
+    /**
+     * Tempo máximo de espera pelos funcionários em andamento ao encerrar o daemon
+     */
+    public static long getSyncDaemonShutdownTimeoutSeconds() {
+        return Math.max(1L, getLongProperty("sync.daemon.shutdown.timeout.s", 60L));
+    }
+    
+    /**
+     * Porta do endpoint HTTP local de disparo da sincronização no modo daemon (0 desativa)
+     */
+    public static int getSyncTriggerPort() {
+        return Math.max(0, getIntProperty("sync.trigger.port", 0));
+    }
+    
+    /**
+     * Endereço do endpoint de disparo; por padrão aceita apenas conexões locais
+     */
+    public static String getSyncTriggerHost() {
+        return property("sync.trigger.host", "127.0.0.1").trim();
+    }
+    
+    /**
+     * Token exigido no cabeçalho X-Sync-Token dos disparos (vazio não exige)
+     */
+    public static String getSyncTriggerToken() {
+        String token = property("sync.trigger.token");
+        return token == null || token.trim().isEmpty() ? null : token.trim();
+    }
+    
+    /**
+     * Nível do log da sincronização: DEBUG (uma linha por funcionário), INFO, WARN ou ERROR
+     */
+    public static String getLogLevel() {
+        return property("log.level", "INFO");
+    }
+    
+    /**
+     * Máximo de avisos/erros repetitivos por minuto para cada tipo de mensagem (0 não limita)
+     */
+    public static int getLogRateLimit() {
+        return Math.max(0, getIntProperty("log.rate.limit", 20));
+    }
+    
+    /**
+     * Porta do endpoint /metrics no formato Prometheus (0 desativa)
+     */
+    public static int getMetricsHttpPort() {
+        return Math.max(0, getIntProperty("metrics.http.port", 0));
+    }
+    
+    public static String getMetricsHttpHost() {
+        return property("metrics.http.host", "127.0.0.1").trim();
+    }
+    
+    public static boolean isMetricsJmxEnabled() {
+        return Boolean.parseBoolean(property("metrics.jmx.enabled", "true").trim());
+    }
+    
+    /**
+     * Registros de sys_user por página na reconciliação (sysparm_limit)
+     */
+    public static int getReconcilePageSize() {
+        return Math.max(1, getIntProperty("reconcile.page.size", 1000));
+    }
+    
+    /**
+     * Filtro adicional (encoded query) dos usuários do ServiceNow comparados na reconciliação,
+     * por exemplo "active=true^source=rh"; vazio compara todos os usuários com email
+     */
+    public static String getReconcileServiceNowQuery() {
+        String query = property("reconcile.servicenow.query");
+        return query == null || query.trim().isEmpty() ? null : query.trim();
+    }
+    
+    /**
+     * Expressão de ordenação da extração local; deve produzir a mesma ordem que o ServiceNow
+     * usa para o email (em PostgreSQL, por exemplo, LOWER(email) COLLATE "C")
+     */
+    public static String getReconcileOrderExpression() {
+        String expression = property("reconcile.db.order");
+        return expression == null || expression.trim().isEmpty()
+            ? "LOWER(" + getEmployeeEmailColumn() + ")"
+            : expression.trim();
+    }
+    
+    /**
+     * Arquivo do relatório da reconciliação; vazio gera reconciliacao-AAAAMMDD-HHMMSS.csv
+     */
+    public static String getReconcileReportFile() {
+        String file = property("reconcile.report.file");
+        return file == null || file.trim().isEmpty() ? null : file.trim();
+    }
+    
+    /**
+     * Lê uma propriedade inteira, usando o valor padrão se ausente ou inválida
+     */
+    private static int getIntProperty(String key, int defaultValue) {
+        return (int) getLongProperty(key, defaultValue);
+    }
+    
+    private static double getDoubleProperty(String key, double defaultValue) {
+        String value = property(key);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Valor inválido para " + key + ": " + value + ". Usando " + defaultValue);
+            return defaultValue;
+        }
+    }
+    
+    private static long getLongProperty(String key, long defaultValue) {
+        String value = property(key);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Valor inválido para " + key + ": " + value + ". Usando " + defaultValue);
+            return defaultValue;
+        }
+    }
+    
+    /**
+     * Coluna usada na sincronização incremental: data de atualização ou versão da linha
+     * Retorna null se não configurada (modo incremental indisponível)
+     */
+    public static String getChangeTrackingColumn() {
+        String column = property("employee.changetracking.column");
+        return column == null || column.trim().isEmpty() ? null : column.trim();
+    }
+    
+    /**
+     * Tipo do marcador de alteração: "timestamp" (padrão) ou "rowversion" (numérico crescente)
+     */
+    public static boolean isChangeTrackingByRowVersion() {
+        return "rowversion".equalsIgnoreCase(property("employee.changetracking.type", "timestamp").trim());
+    }
+    
+    /**
+     * Arquivo onde a marca d'água da sincronização incremental é persistida
+     * Com várias origens, o nome recebe o sufixo da origem atual
+     */
+    public static String getSyncWatermarkFile() {
+        return perSourceFile("sync.watermark.file", "sync-watermark.properties");
+    }
+    
+    /**
+     * Arquivo da chave na origem atual; com várias origens e sem valor próprio da origem,
+     * recebe o nome da origem antes da extensão (arquivo-<origem>.ext)
+     */
+    private static String perSourceFile(String key, String defaultFile) {
+        String file = property(key, defaultFile);
+        String source = getCurrentSource();
+        if (!isMultiSource() || props.getProperty("source." + source + "." + key) != null) {
+            return file;
+        }
+        int dot = file.lastIndexOf('.');
+        return dot > file.lastIndexOf('/') && dot > 0
+            ? file.substring(0, dot) + "-" + source + file.substring(dot)
+            : file + "-" + source;
+    }
+    
+    /**
+     * Onde fica o estado de sincronização (sincronizado, data, sys_id e hash):
+     * "database" (padrão) nas colunas da tabela de funcionários, ou "local" no arquivo
+     * sync.state.file (SyncStateStore), sem nenhuma escrita no banco de origem
+     */
+    public static boolean isLocalSyncState() {
+        return "local".equalsIgnoreCase(property("sync.state.backend", "database").trim());
+    }
+    
+    /**
+     * Arquivo mapeado em memória do estado de sincronização local; com várias origens,
+     * um arquivo por origem (sync-state-<origem>.dat)
+     */
+    public static String getSyncStateFile() {
+        return perSourceFile("sync.state.file", "sync-state.dat");
+    }
+    
+    /**
+     * Capacidade inicial do arquivo de estado local, em funcionários; o arquivo dobra ao encher
+     */
+    public static int getSyncStateInitialCapacity() {
+        return Math.max(16, getIntProperty("sync.state.initial.capacity", 65536));
+    }
+    
+    /**
+     * Diretório do diário de sincronização (intenção e resultado por funcionário, usado para
+     * concluir as gravações pendentes após uma queda). Vazio desativa o diário
+     */
+    public static String getSyncJournalDir() {
+        String dir = property("sync.journal.dir", "sync-journal").trim();
+        return dir.isEmpty() ? null : dir;
+    }
+    
+    /**
+     * Intervalo máximo entre dois fsync do diário; registros acumulados nesse intervalo
+     * são gravados em disco juntos
+     */
+    public static long getSyncJournalFsyncIntervalMillis() {
+        return Math.max(1, getLongProperty("sync.journal.fsync.interval.ms", 50));
+    }
+    
+    /**
+     * Registros acumulados que antecipam o fsync do diário, sem esperar o intervalo
+     */
+    public static int getSyncJournalFsyncRecords() {
+        return Math.max(1, getIntProperty("sync.journal.fsync.records", 512));
+    }
+    
+    /**
+     * Tamanho a partir do qual o segmento ativo do diário é fechado e um novo é aberto
+     */
+    public static long getSyncJournalSegmentBytes() {
+        return Math.max(4096, getLongProperty("sync.journal.segment.bytes", 8L * 1024 * 1024));
+    }
+    
+    /**
+     * Coluna com o hash do último conteúdo enviado ao ServiceNow
+     * Vazia desativa a comparação (todos os funcionários são reenviados)
+     */
+    public static String getEmployeeHashColumn() {
+        String column = property("employee.hash.column", "servicenow_hash");
+        return column.trim().isEmpty() ? null : column.trim();
+    }
+    
+    /**
+     * Reserva de linhas para execução em vários nós: "none" (padrão) ou "lease"
+     * No modo "lease" cada nó marca as linhas que vai processar com seu id e um prazo, em
+     * todas as leituras: pendentes, alterações, tabela de falhas e funcionário por id
+     */
+    public static boolean isSyncClaimEnabled() {
+        return "lease".equalsIgnoreCase(property("sync.claim.mode", "none").trim());
+    }
+    
+    /**
+     * Identificador deste nó nas reservas; padrão "host-pid"
+     */
+    public static String getSyncNodeId() {
+        String nodeId = property("sync.node.id");
+        if (nodeId != null && !nodeId.trim().isEmpty()) {
+            return nodeId.trim();
+        }
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            host = "localhost";
+        }
+        return host + "-" + ProcessHandle.current().pid();
+    }
+    
+    /**
+     * Prazo da reserva; após esse tempo sem renovação a linha volta a ficar livre
+     */
+    public static long getSyncClaimLeaseMillis() {
+        return Math.max(1L, getLongProperty("sync.claim.lease.s", 300L)) * 1000L;
+    }
+    
+    public static int getSyncClaimBatchSize() {
+        return Math.max(1, getIntProperty("sync.claim.batch.size", 200));
+    }
+    
+    public static String getEmployeeLeaseOwnerColumn() {
+        return property("employee.leaseowner.column", "servicenow_reserva_no").trim();
+    }
+    
+    public static String getEmployeeLeaseUntilColumn() {
+        return property("employee.leaseuntil.column", "servicenow_reserva_ate").trim();
+    }
+    
+    /**
+     * Fatia (shard) de ids deste nó: só processa ids com id MOD count = index
+     * Com count = 1 (padrão) não há divisão
+     */
+    public static int getSyncShardCount() {
+        return Math.max(1, getIntProperty("sync.shard.count", 1));
+    }
+    
+    public static int getSyncShardIndex() {
+        return Math.floorMod(getIntProperty("sync.shard.index", 0), getSyncShardCount());
     }
     
     /**
-     * Verifica se a tabela de funcionários possui coluna de sincronização
+     * Verifica se a tabela de funcionários da origem atual possui coluna de sincronização
      */
     public static boolean hasSyncColumn() {
-        return props.containsKey("employee.sync.column");
+        return property("employee.sync.column") != null;
     }
 }
\ No newline at end of file
@@ -0,0 +1,473 @@
+package com.empresa.integracao.database;
+
+import com.empresa.integracao.metrics.Metrics;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool de conexões JDBC limitado, sem dependências externas
+ * Valida conexões no empréstimo, remove conexões ociosas e detecta vazamentos.
+ * Mantém um cache de PreparedStatement por conexão física
+ */
+public class ConnectionPool {
+    private static final long HOUSEKEEPING_INTERVAL_MS = 30000L;
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final int validationTimeoutSeconds;
+    private final long idleTimeoutMillis;
+    private final long leakThresholdMillis;
+    private final int statementCacheSize;
+
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> active = ConcurrentHashMap.newKeySet();
+    private final Semaphore permits;
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    // Métricas acumuladas
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+    private final AtomicLong statementCacheHits = new AtomicLong();
+    private final AtomicLong statementCacheMisses = new AtomicLong();
+
+    public ConnectionPool(String url, String username, String password,
+                          int minSize, int maxSize, long borrowTimeoutMillis,
+                          int validationTimeoutSeconds, long idleTimeoutMillis,
+                          long leakThresholdMillis, int statementCacheSize) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.maxSize = Math.max(1, maxSize);
+        this.minSize = Math.max(0, Math.min(minSize, this.maxSize));
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.statementCacheSize = Math.max(0, statementCacheSize);
+        this.permits = new Semaphore(this.maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "connection-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        this.housekeeper.scheduleWithFixedDelay(this::housekeep,
+                HOUSEKEEPING_INTERVAL_MS, HOUSEKEEPING_INTERVAL_MS, TimeUnit.MILLISECONDS);
+
+        fillToMinimum();
+    }
+
+    /**
+     * Empresta uma conexão do pool. O close() da conexão retornada a devolve ao pool
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Pool de conexões encerrado");
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeoutCount.incrementAndGet();
+                throw new SQLException("Timeout aguardando conexão do pool após " + borrowTimeoutMillis + " ms " + getMetrics());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrompido aguardando conexão do pool", e);
+        }
+        recordWait(System.nanoTime() - start);
+
+        try {
+            PooledConnection pooled = takeValidConnection();
+            pooled.borrowedAt = System.currentTimeMillis();
+            pooled.borrowTrace = new Throwable("Conexão emprestada aqui");
+            pooled.leakReported = false;
+            active.add(pooled);
+            borrowCount.incrementAndGet();
+            return pooled.newHandle();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Retira uma conexão ociosa válida ou abre uma nova
+     */
+    private PooledConnection takeValidConnection() throws SQLException {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (isValid(pooled)) {
+                return pooled;
+            }
+            destroy(pooled);
+        }
+        return openConnection();
+    }
+
+    private boolean isValid(PooledConnection pooled) {
+        try {
+            return !pooled.physical.isClosed() && pooled.physical.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledConnection openConnection() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, username, password);
+        totalConnections.incrementAndGet();
+        return new PooledConnection(physical);
+    }
+
+    /**
+     * Devolve a conexão ao pool, restaurando o estado padrão
+     */
+    private void release(PooledConnection pooled) {
+        active.remove(pooled);
+        try {
+            if (closed || pooled.physical.isClosed()) {
+                destroy(pooled);
+                return;
+            }
+            if (!pooled.physical.getAutoCommit()) {
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+            pooled.lastUsedAt = System.currentTimeMillis();
+            pooled.borrowTrace = null;
+            idle.offerFirst(pooled);
+        } catch (SQLException e) {
+            destroy(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void destroy(PooledConnection pooled) {
+        totalConnections.decrementAndGet();
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            // Conexão já inutilizável, ignora
+        }
+    }
+
+    private void fillToMinimum() {
+        while (!closed && totalConnections.get() < minSize) {
+            try {
+                PooledConnection pooled = openConnection();
+                pooled.lastUsedAt = System.currentTimeMillis();
+                idle.offerLast(pooled);
+            } catch (SQLException e) {
+                System.err.println("Erro ao pré-abrir conexões do pool: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Remove conexões ociosas expiradas e reporta conexões emprestadas há tempo demais
+     */
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+
+        Iterator<PooledConnection> it = idle.descendingIterator();
+        while (it.hasNext() && totalConnections.get() > minSize) {
+            PooledConnection pooled = it.next();
+            if (now - pooled.lastUsedAt > idleTimeoutMillis && idle.remove(pooled)) {
+                destroy(pooled);
+                evictedCount.incrementAndGet();
+            }
+        }
+
+        if (leakThresholdMillis > 0) {
+            for (PooledConnection pooled : active) {
+                Throwable trace = pooled.borrowTrace;
+                if (!pooled.leakReported && trace != null && now - pooled.borrowedAt > leakThresholdMillis) {
+                    pooled.leakReported = true;
+                    leakCount.incrementAndGet();
+                    System.err.println("Possível vazamento de conexão: emprestada há " +
+                            (now - pooled.borrowedAt) + " ms");
+                    trace.printStackTrace();
+                }
+            }
+        }
+
+        fillToMinimum();
+    }
+
+    private void recordWait(long nanos) {
+        totalWaitNanos.addAndGet(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Encerra o pool, fechando as conexões ociosas
+     * Conexões emprestadas são fechadas quando devolvidas
+     */
+    public void shutdown() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            destroy(pooled);
+        }
+    }
+
+    public Metrics getMetrics() {
+        long borrows = borrowCount.get();
+        return new Metrics(active.size(), idle.size(), totalConnections.get(), maxSize,
+                permits.getQueueLength(), borrows,
+                borrows == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalWaitNanos.get() / borrows),
+                TimeUnit.NANOSECONDS.toMicros(maxWaitNanos.get()),
+                timeoutCount.get(), evictedCount.get(), leakCount.get(),
+                statementCacheHits.get(), statementCacheMisses.get());
+    }
+
+    /**
+     * Fotografia das métricas do pool, para dimensionamento sob carga
+     */
+    public static class Metrics {
+        public final int active;
+        public final int idle;
+        public final int total;
+        public final int maxSize;
+        public final int waiting;
+        public final long borrowCount;
+        public final long avgWaitMicros;
+        public final long maxWaitMicros;
+        public final long timeouts;
+        public final long evicted;
+        public final long leaks;
+        public final long statementCacheHits;
+        public final long statementCacheMisses;
+
+        Metrics(int active, int idle, int total, int maxSize, int waiting, long borrowCount,
+                long avgWaitMicros, long maxWaitMicros, long timeouts, long evicted, long leaks,
+                long statementCacheHits, long statementCacheMisses) {
+            this.active = active;
+            this.idle = idle;
+            this.total = total;
+            this.maxSize = maxSize;
+            this.waiting = waiting;
+            this.borrowCount = borrowCount;
+            this.avgWaitMicros = avgWaitMicros;
+            this.maxWaitMicros = maxWaitMicros;
+            this.timeouts = timeouts;
+            this.evicted = evicted;
+            this.leaks = leaks;
+            this.statementCacheHits = statementCacheHits;
+            this.statementCacheMisses = statementCacheMisses;
+        }
+
+        @Override
+        public String toString() {
+            return "[ativas=" + active + ", ociosas=" + idle + ", total=" + total + "/" + maxSize +
+                   ", aguardando=" + waiting + ", empréstimos=" + borrowCount +
+                   ", espera média=" + avgWaitMicros + "µs, espera máx=" + maxWaitMicros + "µs" +
+                   ", timeouts=" + timeouts + ", removidas=" + evicted + ", vazamentos=" + leaks +
+                   ", statements em cache=" + statementCacheHits + "/" + (statementCacheHits + statementCacheMisses) + "]";
+        }
+    }
+
+    /**
+     * Conexão física gerenciada pelo pool
+     */
+    private final class PooledConnection {
+        final Connection physical;
+        volatile long borrowedAt;
+        volatile long lastUsedAt;
+        volatile Throwable borrowTrace;
+        volatile boolean leakReported;
+
+        // Acessado apenas pela thread que tomou a conexão emprestada
+        private final Map<String, CachedStatement> statementCache = new LinkedHashMap<String, CachedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() <= statementCacheSize) {
+                    return false;
+                }
+                eldest.getValue().evict();
+                return true;
+            }
+        };
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        /**
+         * Cria um proxy de uso único: close() devolve ao pool em vez de fechar
+         */
+        Connection newHandle() {
+            InvocationHandler handler = new InvocationHandler() {
+                private boolean handleClosed;
+
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    String name = method.getName();
+                    if ("close".equals(name) && method.getParameterCount() == 0) {
+                        if (!handleClosed) {
+                            handleClosed = true;
+                            release(PooledConnection.this);
+                        }
+                        return null;
+                    }
+                    if ("isClosed".equals(name) && method.getParameterCount() == 0) {
+                        return handleClosed || physical.isClosed();
+                    }
+                    if (handleClosed) {
+                        throw new SQLException("Conexão já devolvida ao pool");
+                    }
+                    if ("prepareStatement".equals(name) && method.getParameterCount() == 1 && statementCacheSize > 0) {
+                        return prepareCached((String) args[0], (Connection) proxy);
+                    }
+                    try {
+                        return method.invoke(physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }
+            };
+            return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                    new Class<?>[] { Connection.class }, handler);
+        }
+
+        /**
+         * Reutiliza o PreparedStatement já compilado para o mesmo SQL nesta conexão
+         * Se o statement em cache estiver em uso (consultas aninhadas), prepara um avulso
+         */
+        private PreparedStatement prepareCached(String sql, Connection handle) throws SQLException {
+            CachedStatement cached = statementCache.get(sql);
+            if (cached != null && cached.inUse) {
+                statementCacheMisses.incrementAndGet();
+                return physical.prepareStatement(sql);
+            }
+            if (cached == null) {
+                statementCacheMisses.incrementAndGet();
+                cached = new CachedStatement(sql, physical.prepareStatement(sql), statementCache);
+                statementCache.put(sql, cached);
+            } else {
+                statementCacheHits.incrementAndGet();
+            }
+            cached.inUse = true;
+            return cached.newHandle(handle);
+        }
+    }
+
+    /**
+     * PreparedStatement mantido aberto entre empréstimos da mesma conexão
+     */
+    private static final class CachedStatement {
+        final String sql;
+        final PreparedStatement statement;
+        // Cache da conexão dona, para sair dele quando o statement ficar inutilizável
+        final Map<String, CachedStatement> cache;
+        boolean inUse;
+        boolean evicted;
+
+        CachedStatement(String sql, PreparedStatement statement, Map<String, CachedStatement> cache) {
+            this.sql = sql;
+            this.statement = statement;
+            this.cache = cache;
+        }
+
+        void evict() {
+            evicted = true;
+            if (!inUse) {
+                closeQuietly();
+            }
+        }
+
+        /**
+         * Proxy cujo close() limpa parâmetros e devolve o statement ao cache
+         */
+        PreparedStatement newHandle(Connection connectionHandle) {
+            InvocationHandler handler = new InvocationHandler() {
+                private boolean handleClosed;
+
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    String name = method.getName();
+                    if ("close".equals(name) && method.getParameterCount() == 0) {
+                        if (!handleClosed) {
+                            handleClosed = true;
+                            returnToCache();
+                        }
+                        return null;
+                    }
+                    if ("isClosed".equals(name) && method.getParameterCount() == 0) {
+                        return handleClosed || statement.isClosed();
+                    }
+                    if ("getConnection".equals(name) && method.getParameterCount() == 0) {
+                        return connectionHandle;
+                    }
+                    if (handleClosed) {
+                        throw new SQLException("Statement já fechado");
+                    }
+                    try {
+                        return method.invoke(statement, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }
+            };
+            return (PreparedStatement) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class }, handler);
+        }
+
+        private void returnToCache() {
+            inUse = false;
+            if (evicted) {
+                closeQuietly();
+                return;
+            }
+            try {
+                statement.clearParameters();
+                statement.clearBatch();
+                statement.setMaxRows(0);
+            } catch (SQLException e) {
+                // Sai do cache: o próximo prepareStatement deste SQL prepara um novo
+                evicted = true;
+                cache.remove(sql, this);
+                closeQuietly();
+            }
+        }
+
+        private void closeQuietly() {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                // Statement já inutilizável, ignora
+            }
+        }
+    }
+}
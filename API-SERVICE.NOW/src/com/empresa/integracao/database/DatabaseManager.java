@@ -1,7 +1,20 @@
+package com.empresa.integracao.database;
+
+import com.empresa.integracao.config.DatabaseConfig;
+import com.empresa.integracao.metrics.Metrics;
+import com.empresa.integracao.metrics.SyncLog;
+import com.empresa.integracao.model.Employee;
+import java.io.UncheckedIOException;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
 
 /**
  * Classe genérica para gerenciar conexões com qualquer banco de dados JDBC
@@ -10,96 +23,417 @@ import java.util.List;
 public class DatabaseManager {
     
     /**
-     * Carrega o driver JDBC baseado na configuração
+     * Estado de cada origem (db.sources): pool de conexões, estrutura da tabela e produto,
+     * criados no primeiro uso da origem. Uma origem lenta ou fora do ar só ocupa o próprio pool
+     */
+    private static final Map<String, SourceState> sources = new ConcurrentHashMap<>();
+    
+    private static final class SourceState {
+        final ConnectionPool pool;
+        volatile EmployeeTableSchema schema;
+        volatile String databaseProduct;
+        
+        SourceState(ConnectionPool pool) {
+            this.pool = pool;
+        }
+    }
+    
+    /**
+     * Estado da origem atual (DatabaseConfig.useSource)
      */
-    static {
+    private static SourceState source() {
+        return sources.computeIfAbsent(DatabaseConfig.getCurrentSource(), DatabaseManager::openSource);
+    }
+    
+    /**
+     * Carrega o driver JDBC e cria o pool da origem, dimensionado pelo seu perfil no DatabaseConfig
+     */
+    private static SourceState openSource(String name) {
         try {
             Class.forName(DatabaseConfig.getDatabaseDriver());
             System.out.println("Driver JDBC carregado: " + DatabaseConfig.getDatabaseDriver());
         } catch (ClassNotFoundException e) {
             System.err.println("Erro ao carregar driver JDBC: " + e.getMessage());
         }
+        
+        ConnectionPool pool = new ConnectionPool(
+            DatabaseConfig.getDatabaseUrl(),
+            DatabaseConfig.getDatabaseUsername(),
+            DatabaseConfig.getDatabasePassword(),
+            DatabaseConfig.getPoolMinSize(),
+            DatabaseConfig.getPoolMaxSize(),
+            DatabaseConfig.getPoolBorrowTimeoutMillis(),
+            DatabaseConfig.getPoolValidationTimeoutSeconds(),
+            DatabaseConfig.getPoolIdleTimeoutMillis(),
+            DatabaseConfig.getPoolLeakThresholdMillis(),
+            DatabaseConfig.getPoolStatementCacheSize()
+        );
+        Metrics.gauge("db_pool_connections", "source", name, "state", "active", () -> pool.getMetrics().active);
+        Metrics.gauge("db_pool_connections", "source", name, "state", "idle", () -> pool.getMetrics().idle);
+        Metrics.gauge("db_pool_waiting_threads", "source", name, () -> pool.getMetrics().waiting);
+        Metrics.gauge("db_pool_timeouts", "source", name, () -> pool.getMetrics().timeouts);
+        return new SourceState(pool);
     }
     
     /**
-     * Estabelece conexão com o banco de dados configurado
+     * Obtém uma conexão do pool da origem atual. Fechar a conexão a devolve ao pool
      */
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(
-            DatabaseConfig.getDatabaseUrl(),
-            DatabaseConfig.getDatabaseUsername(),
-            DatabaseConfig.getDatabasePassword()
-        );
+        return source().pool.getConnection();
+    }
+    
+    /**
+     * Métricas do pool da origem atual (ativas, ociosas, tempo de espera)
+     */
+    public static ConnectionPool.Metrics getPoolMetrics() {
+        return source().pool.getMetrics();
+    }
+    
+    /**
+     * Grava o diário de sincronização e fecha as conexões do pool ao encerrar a aplicação
+     */
+    public static void shutdown() {
+        SyncJournal.close();
+        SyncStateStore.closeAll();
+        for (SourceState state : sources.values()) {
+            state.pool.shutdown();
+        }
     }
     
     /**
      * Recupera funcionários não sincronizados do banco existente
-     * Adapta-se à estrutura de colunas configurada
+     * Adapta-se à estrutura de colunas configurada.
+     * Carrega todas as linhas em memória; para tabelas grandes use streamEmployeesToSync()
+     *
+     * @throws IllegalStateException se a leitura de uma página falhar
      */
     public static List<Employee> getEmployeesToSync() {
+        normalizeNullSyncFlags();
         List<Employee> employees = new ArrayList<>();
-        
-        // Constrói query dinamicamente baseado nas configurações
-        String sql;
-        if (DatabaseConfig.hasSyncColumn()) {
-            sql = "SELECT * FROM " + DatabaseConfig.getEmployeeTable() + 
-                  " WHERE " + DatabaseConfig.getEmployeeSyncColumn() + " = 0 OR " + 
-                  DatabaseConfig.getEmployeeSyncColumn() + " IS NULL";
-        } else {
-            sql = "SELECT * FROM " + DatabaseConfig.getEmployeeTable() + 
-                  " WHERE " + DatabaseConfig.getEmployeeSysIdColumn() + " IS NULL";
+        try (EmployeeCursor cursor = openPendingEmployeesCursor()) {
+            cursor.forEachRemaining(employee -> {
+                if (isPending(employee)) {
+                    employees.add(employee);
+                }
+            });
         }
+        return employees;
+    }
+    
+    /**
+     * Percorre os funcionários não sincronizados em páginas ordenadas por id
+     * As linhas chegam ao consumidor enquanto as próximas páginas ainda serão lidas,
+     * com memória limitada a db.page.size linhas. O Stream deve ser fechado após o uso
+     * Com sync.claim.mode=lease as linhas são reservadas para este nó antes de serem entregues
+     * Com o estado local (sync.state.backend=local) a tabela é percorrida inteira e os
+     * pendentes são filtrados pelo SyncStateStore
+     */
+    public static Stream<Employee> streamEmployeesToSync() {
+        if (SyncStateStore.isEnabled()) {
+            return openPendingEmployeesCursor().stream().filter(DatabaseManager::isPending);
+        }
+        normalizeNullSyncFlags();
+        if (DatabaseConfig.isSyncClaimEnabled()) {
+            return new WorkClaimer().stream();
+        }
+        return openPendingEmployeesCursor().stream();
+    }
+    
+    /**
+     * No modo "indexed" a consulta de pendentes só reconhece sincronizado = 0: as linhas
+     * inseridas com NULL desde a última leitura são normalizadas antes de cada execução
+     * (também no modo daemon, em que a inicialização acontece uma única vez)
+     */
+    private static void normalizeNullSyncFlags() {
+        if (!EmployeeQueries.isIndexedPredicateMode()) {
+            return;
+        }
+        try (Connection conn = getConnection();
+             Statement stmt = conn.createStatement()) {
+            int normalized = stmt.executeUpdate(EmployeeQueries.normalizeNullSyncFlags());
+            if (normalized > 0) {
+                System.out.println("Coluna " + DatabaseConfig.getEmployeeSyncColumn() +
+                                   " normalizada de NULL para 0 em " + normalized + " linhas.");
+            }
+        } catch (SQLException e) {
+            Metrics.counter("db_errors_total", "query", "normalize_sync_flags").increment();
+            System.err.println("Erro ao normalizar " + DatabaseConfig.getEmployeeSyncColumn() +
+                               "; linhas com NULL ficam para a próxima execução: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Com o estado no banco a consulta já traz só os pendentes; com o estado local,
+     * pendente é quem não está marcado como sincronizado no SyncStateStore
+     */
+    private static boolean isPending(Employee employee) {
+        return !SyncStateStore.isEnabled() || !employee.isSyncedToServiceNow();
+    }
+    
+    private static EmployeeCursor openPendingEmployeesCursor() {
+        // Consulta projetada e compilada a partir do mapeamento de colunas
+        String sql = EmployeeQueries.pendingPage();
         
         System.out.println("Executando query: " + sql);
+        return new EmployeeCursor(sql, DatabaseConfig.getPageSize(), DatabaseConfig.getFetchSize());
+    }
+    
+    /**
+     * Percorre os funcionários alterados após a marca d'água informada,
+     * em páginas ordenadas por (marcador de alteração, id)
+     */
+    public static Stream<Employee> streamEmployeesChangedSince(SyncWatermark watermark) {
+        String sql = EmployeeQueries.changedSincePage();
         
+        System.out.println("Executando query: " + sql);
+        return new EmployeeCursor(sql, DatabaseConfig.getPageSize(), DatabaseConfig.getFetchSize(),
+                                  watermark.keyset()).stream();
+    }
+    
+    /**
+     * Extração de todos os funcionários com email, ordenada por email (reconcile.db.order)
+     * Usada pela reconciliação com o ServiceNow; o Stream deve ser fechado após o uso
+     */
+    public static Stream<Employee> streamEmployeesByEmail() throws SQLException {
+        String sql = EmployeeQueries.allByEmail();
+        
+        System.out.println("Executando query: " + sql);
+        return new EmployeeExtract(sql, DatabaseConfig.getFetchSize()).stream();
+    }
+    
+    /**
+     * Prepara a consulta de pendentes na inicialização: cria o índice de pendentes se
+     * configurado e verifica o plano de execução com EXPLAIN (a normalização de nulos do
+     * modo "indexed" acontece a cada leitura de pendentes)
+     */
+    public static void preparePendingQuery() {
+        if (SyncStateStore.isEnabled()) {
+            // Sem colunas de sincronização não há filtro, índice nem plano de pendentes a preparar
+            return;
+        }
         try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+             Statement stmt = conn.createStatement()) {
             
-            while (rs.next()) {
-                Employee emp = mapResultSetToEmployee(rs);
-                employees.add(emp);
+            String product = conn.getMetaData().getDatabaseProductName();
+            
+            if (DatabaseConfig.isPendingIndexCreationEnabled() && DatabaseConfig.hasSyncColumn()
+                    && !getSchema().isIndexed(DatabaseConfig.getEmployeeSyncColumn())
+                    && !hasIndexNamed(EmployeeQueries.pendingIndexName())) {
+                String ddl = EmployeeQueries.createPendingIndex(product);
+                stmt.executeUpdate(ddl);
+                System.out.println("Índice de pendentes criado: " + ddl);
             }
+            
+            if (DatabaseConfig.isQueryPlanCheckEnabled()) {
+                checkPendingQueryPlan(stmt, product);
+            }
+            
         } catch (SQLException e) {
-            System.err.println("Erro ao recuperar funcionários: " + e.getMessage());
+            System.err.println("Erro ao preparar a consulta de pendentes: " + e.getMessage());
+        }
+    }
+    
+    private static boolean hasIndexNamed(String indexName) throws SQLException {
+        for (EmployeeTableSchema.IndexInfo index : getSchema().getIndexes()) {
+            if (index.name.equalsIgnoreCase(indexName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Exibe o plano da consulta de pendentes e alerta em caso de varredura completa
+     */
+    private static void checkPendingQueryPlan(Statement stmt, String product) throws SQLException {
+        String explain = EmployeeQueries.explainPendingPage(product);
+        if (explain == null) {
+            System.out.println("Verificação de plano não suportada para " + product);
+            return;
+        }
+        
+        StringBuilder plan = new StringBuilder();
+        boolean fullScan = false;
+        try (ResultSet rs = stmt.executeQuery(explain)) {
+            ResultSetMetaData metaData = rs.getMetaData();
+            while (rs.next()) {
+                for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                    String value = rs.getString(i);
+                    if (value == null) {
+                        continue;
+                    }
+                    plan.append(metaData.getColumnLabel(i)).append('=').append(value).append(' ');
+                    // MySQL: type=ALL; PostgreSQL: Seq Scan; H2: tableScan
+                    if (("type".equalsIgnoreCase(metaData.getColumnLabel(i)) && "ALL".equals(value))
+                            || value.contains("Seq Scan") || value.contains("tableScan")) {
+                        fullScan = true;
+                    }
+                }
+                plan.append('\n');
+            }
         }
         
+        System.out.println("Plano da consulta de pendentes:\n" + plan.toString().trim());
+        if (fullScan) {
+            System.err.println("AVISO: a consulta de pendentes faz varredura completa da tabela. " +
+                               "Considere db.pending.predicate.mode=indexed e db.pending.index.create=true");
+        }
+    }
+    
+    /**
+     * Carrega os funcionários com os ids informados, em blocos de até db.page.size ids
+     * Ids que não existem mais na tabela são ignorados; um erro de leitura é propagado,
+     * para que o chamador não confunda uma lista parcial com ids removidos
+     */
+    public static List<Employee> getEmployeesByIds(List<Integer> ids) throws SQLException {
+        List<Employee> employees = new ArrayList<>(ids.size());
+        int chunkSize = Math.min(1000, DatabaseConfig.getPageSize());
+        long startNanos = System.nanoTime();
+        
+        try (Connection conn = getConnection()) {
+            for (int start = 0; start < ids.size(); start += chunkSize) {
+                List<Integer> chunk = ids.subList(start, Math.min(ids.size(), start + chunkSize));
+                try (PreparedStatement pstmt = conn.prepareStatement(EmployeeQueries.employeesByIds(chunk.size()))) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        pstmt.setInt(i + 1, chunk.get(i));
+                    }
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        EmployeeTableSchema.ColumnIndexes columns = EmployeeTableSchema.ColumnIndexes.resolve(rs.getMetaData());
+                        while (rs.next()) {
+                            employees.add(mapResultSetToEmployee(rs, columns));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            Metrics.counter("db_errors_total", "query", "employees_by_ids").increment();
+            throw e;
+        }
+        Metrics.timer("db_query_seconds", "query", "employees_by_ids").recordSince(startNanos);
         return employees;
     }
     
     /**
-     * Mapeia um ResultSet para objeto Employee baseado na configuração
+     * Busca um funcionário pela chave primária; null se não existir
+     * O statement é reaproveitado pelo cache de PreparedStatement do pool
+     */
+    public static Employee getEmployeeById(int employeeId) throws SQLException {
+        long start = System.nanoTime();
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(EmployeeQueries.employeeById())) {
+            pstmt.setInt(1, employeeId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                Employee employee = rs.next()
+                    ? mapResultSetToEmployee(rs, EmployeeTableSchema.ColumnIndexes.resolve(rs.getMetaData()))
+                    : null;
+                Metrics.timer("db_query_seconds", "query", "employee_by_id").recordSince(start);
+                return employee;
+            }
+        }
+    }
+    
+    /**
+     * Percorre os pares email/sys_id já gravados na tabela, até o limite informado
+     * Usado para aquecer o cache de usuários do ServiceNow na inicialização
+     * Com o estado local os sys_ids vêm do SyncStateStore, casados com os emails da tabela
+     */
+    public static int forEachKnownSysId(BiConsumer<String, String> consumer, int limit) {
+        if (SyncStateStore.isEnabled()) {
+            return forEachLocalSysId(consumer, limit);
+        }
+        String sql = "SELECT " + DatabaseConfig.getEmployeeEmailColumn() + ", " + DatabaseConfig.getEmployeeSysIdColumn() +
+                     " FROM " + DatabaseConfig.getEmployeeTable() +
+                     " WHERE " + DatabaseConfig.getEmployeeSysIdColumn() + " IS NOT NULL";
+        int count = 0;
+        
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setFetchSize(DatabaseConfig.getFetchSize());
+            pstmt.setMaxRows(limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    consumer.accept(rs.getString(1), rs.getString(2));
+                    count++;
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Erro ao ler sys_ids conhecidos: " + e.getMessage());
+        }
+        return count;
+    }
+    
+    private static int forEachLocalSysId(BiConsumer<String, String> consumer, int limit) {
+        String sql = "SELECT " + DatabaseConfig.getEmployeeIdColumn() + ", " + DatabaseConfig.getEmployeeEmailColumn() +
+                     " FROM " + DatabaseConfig.getEmployeeTable();
+        SyncStateStore store = SyncStateStore.current();
+        int count = 0;
+        
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setFetchSize(DatabaseConfig.getFetchSize());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (count < limit && rs.next()) {
+                    String sysId = store.getSysId(rs.getInt(1));
+                    if (sysId != null) {
+                        consumer.accept(rs.getString(2), sysId);
+                        count++;
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("Erro ao ler sys_ids conhecidos: " + e.getMessage());
+        }
+        return count;
+    }
+    
+    /**
+     * Mapeia um ResultSet para objeto Employee usando as posições já resolvidas
      */
-    private static Employee mapResultSetToEmployee(ResultSet rs) throws SQLException {
+    static Employee mapResultSetToEmployee(ResultSet rs, EmployeeTableSchema.ColumnIndexes columns) throws SQLException {
         Employee emp = new Employee();
         
         // Mapeia colunas configuradas para propriedades do Employee
-        emp.setId(rs.getInt(DatabaseConfig.getEmployeeIdColumn()));
-        emp.setFirstName(rs.getString(DatabaseConfig.getEmployeeFirstNameColumn()));
-        emp.setLastName(rs.getString(DatabaseConfig.getEmployeeLastNameColumn()));
-        emp.setEmail(rs.getString(DatabaseConfig.getEmployeeEmailColumn()));
-        emp.setDepartment(rs.getString(DatabaseConfig.getEmployeeDepartmentColumn()));
-        emp.setPosition(rs.getString(DatabaseConfig.getEmployeePositionColumn()));
+        emp.setSource(DatabaseConfig.getCurrentSource());
+        emp.setId(rs.getInt(columns.id));
+        emp.setFirstName(rs.getString(columns.firstName));
+        emp.setLastName(rs.getString(columns.lastName));
+        emp.setEmail(rs.getString(columns.email));
+        emp.setDepartment(columns.department > 0 ? rs.getString(columns.department) : null);
+        emp.setPosition(columns.position > 0 ? rs.getString(columns.position) : null);
         
         // Data de admissão (pode ser null)
-        Timestamp hireDate = rs.getTimestamp(DatabaseConfig.getEmployeeHireDateColumn());
-        if (hireDate != null && !rs.wasNull()) {
-            emp.setHireDate(hireDate.toLocalDateTime());
+        if (columns.hireDate > 0) {
+            Timestamp hireDate = rs.getTimestamp(columns.hireDate);
+            if (hireDate != null) {
+                emp.setHireDate(hireDate.toLocalDateTime());
+            }
         }
         
         // Campos de sincronização (podem não existir)
-        try {
-            boolean synced = rs.getBoolean(DatabaseConfig.getEmployeeSyncColumn());
-            emp.setSyncedToServiceNow(synced);
-        } catch (SQLException e) {
-            // Coluna não existe, ignora
+        if (columns.sync > 0) {
+            emp.setSyncedToServiceNow(rs.getBoolean(columns.sync));
         }
         
-        try {
-            String sysId = rs.getString(DatabaseConfig.getEmployeeSysIdColumn());
-            emp.setServiceNowSysId(sysId);
-        } catch (SQLException e) {
-            // Coluna não existe, ignora
+        if (columns.sysId > 0) {
+            emp.setServiceNowSysId(rs.getString(columns.sysId));
+        }
+        
+        if (columns.hash > 0) {
+            emp.setLastPushedHash(rs.getString(columns.hash));
+        }
+        
+        // Estado local: as colunas acima não são lidas, o estado vem do SyncStateStore
+        if (SyncStateStore.isEnabled()) {
+            SyncStateStore.current().apply(emp);
+        }
+        
+        // Marcador de alteração (data de atualização ou versão da linha), se configurado
+        if (columns.changeVersion > 0) {
+            emp.setChangeVersion(DatabaseConfig.isChangeTrackingByRowVersion()
+                ? (Object) rs.getLong(columns.changeVersion)
+                : rs.getTimestamp(columns.changeVersion));
         }
         
         return emp;
@@ -110,60 +444,338 @@ public class DatabaseManager {
      * Cria colunas de sincronização se não existirem
      */
     public static void updateEmployeeSyncStatus(Employee employee) {
-        // Primeiro verifica se as colunas de sincronização existem
-        if (!checkSyncColumnsExist()) {
-            // Se não existem, cria as colunas necessárias
-            addSyncColumnsToTable();
+        if (SyncStateStore.isEnabled()) {
+            BatchResult result = recordLocalSyncStatus(Collections.singletonList(employee));
+            for (String error : result.failures.values()) {
+                SyncLog.error("status.erro", "Erro ao atualizar status de sincronização: " + error);
+            }
+            return;
         }
         
-        // Atualiza os dados de sincronização
-        String sql = "UPDATE " + DatabaseConfig.getEmployeeTable() + " SET " +
-                    DatabaseConfig.getEmployeeSyncColumn() + " = ?, " +
-                    DatabaseConfig.getEmployeeSyncDateColumn() + " = ?, " +
-                    DatabaseConfig.getEmployeeSysIdColumn() + " = ? " +
-                    "WHERE " + DatabaseConfig.getEmployeeIdColumn() + " = ?";
+        try {
+            // Garante (uma única vez) que as colunas de sincronização existem
+            getSchema();
+        } catch (SQLException e) {
+            System.err.println("Erro ao verificar colunas: " + e.getMessage());
+        }
         
+        long start = System.nanoTime();
         try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+             PreparedStatement pstmt = conn.prepareStatement(EmployeeQueries.syncStatusUpdate())) {
             
-            pstmt.setBoolean(1, true);
-            pstmt.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
-            pstmt.setString(3, employee.getServiceNowSysId());
-            pstmt.setInt(4, employee.getId());
+            bindSyncStatus(pstmt, employee, Timestamp.valueOf(LocalDateTime.now()));
             
             int rowsAffected = pstmt.executeUpdate();
-            System.out.println("Funcionário " + employee.getId() + " atualizado. Linhas afetadas: " + rowsAffected);
+            Metrics.timer("db_query_seconds", "query", "sync_status_update").recordSince(start);
+            if (SyncLog.isDebugEnabled()) {
+                SyncLog.debug("Funcionário " + employee.getId() + " atualizado. Linhas afetadas: " + rowsAffected);
+            }
+            if (rowsAffected > 0) {
+                SyncJournal.committed(employee.getId());
+            }
             
         } catch (SQLException e) {
-            System.err.println("Erro ao atualizar status de sincronização: " + e.getMessage());
+            Metrics.counter("db_errors_total", "query", "sync_status_update").increment();
+            SyncLog.error("status.erro", "Erro ao atualizar status de sincronização: " + e.getMessage());
         }
     }
     
     /**
-     * Verifica se as colunas de sincronização existem na tabela
+     * Atualiza o status de sincronização de vários funcionários em lote
+     * Reutiliza um único PreparedStatement e confirma cada lote em uma transação.
+     * Se um lote falhar, suas linhas são regravadas individualmente para que
+     * uma linha inválida não desfaça as demais
      */
-    private static boolean checkSyncColumnsExist() {
-        String tableName = DatabaseConfig.getEmployeeTable();
+    public static BatchResult updateEmployeeSyncStatusBatch(List<Employee> employees) {
+        if (SyncStateStore.isEnabled()) {
+            return recordLocalSyncStatus(employees);
+        }
+        BatchResult result = new BatchResult();
+        if (employees.isEmpty()) {
+            return result;
+        }
         
-        try (Connection conn = getConnection()) {
-            DatabaseMetaData metaData = conn.getMetaData();
+        try {
+            getSchema();
+        } catch (SQLException e) {
+            System.err.println("Erro ao verificar colunas: " + e.getMessage());
+        }
+        
+        int batchSize = DatabaseConfig.getBatchSize();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int processed = 0;
+        long startNanos = System.nanoTime();
+        
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(EmployeeQueries.syncStatusUpdate())) {
+            
+            conn.setAutoCommit(false);
+            
+            for (int start = 0; start < employees.size(); start += batchSize) {
+                List<Employee> chunk = employees.subList(start, Math.min(start + batchSize, employees.size()));
+                flushSyncStatusChunk(conn, pstmt, chunk, now, result);
+                processed += chunk.size();
+            }
             
-            // Verifica coluna de sincronização
-            ResultSet rs = metaData.getColumns(null, null, tableName, DatabaseConfig.getEmployeeSyncColumn());
-            boolean syncColumnExists = rs.next();
+        } catch (SQLException e) {
+            Metrics.counter("db_errors_total", "query", "sync_status_batch").increment();
+            System.err.println("Erro na gravação em lote do status de sincronização: " + e.getMessage());
+            for (Employee employee : employees.subList(processed, employees.size())) {
+                result.addFailure(employee.getId(), e.getMessage());
+            }
+        }
+        
+        Metrics.timer("db_query_seconds", "query", "sync_status_batch").recordSince(startNanos);
+        
+        // Gravações confirmadas não precisam mais ser concluídas a partir do diário
+        List<Integer> committedIds = new ArrayList<>(employees.size());
+        for (Employee employee : employees) {
+            if (!result.failures.containsKey(employee.getId())) {
+                committedIds.add(employee.getId());
+            }
+        }
+        SyncJournal.committed(committedIds);
+        return result;
+    }
+    
+    /**
+     * Grava o status no SyncStateStore (sync.state.backend=local), sem acessar o banco
+     * As páginas alteradas vão para o disco antes de o diário considerar as linhas confirmadas
+     */
+    private static BatchResult recordLocalSyncStatus(List<Employee> employees) {
+        BatchResult result = new BatchResult();
+        if (employees.isEmpty()) {
+            return result;
+        }
+        long startNanos = System.nanoTime();
+        long now = System.currentTimeMillis();
+        SyncStateStore store = SyncStateStore.current();
+        List<Integer> committedIds = new ArrayList<>(employees.size());
+        
+        for (Employee employee : employees) {
+            try {
+                store.put(employee.getId(), true, now, employee.getServiceNowSysId(), employee.getLastPushedHash());
+                committedIds.add(employee.getId());
+                result.successCount++;
+            } catch (RuntimeException e) {
+                result.addFailure(employee.getId(), e.getMessage());
+            }
+        }
+        store.force();
+        
+        Metrics.timer("db_query_seconds", "query", "sync_state_local").recordSince(startNanos);
+        SyncJournal.committed(committedIds);
+        return result;
+    }
+    
+    /**
+     * Executa e confirma um lote; em caso de falha, isola as linhas com erro
+     */
+    private static void flushSyncStatusChunk(Connection conn, PreparedStatement pstmt, List<Employee> chunk,
+                                             Timestamp now, BatchResult result) throws SQLException {
+        try {
+            for (Employee employee : chunk) {
+                bindSyncStatus(pstmt, employee, now);
+                pstmt.addBatch();
+            }
+            int[] counts = pstmt.executeBatch();
+            conn.commit();
+            
+            for (int i = 0; i < chunk.size(); i++) {
+                if (i < counts.length && counts[i] == 0) {
+                    result.addFailure(chunk.get(i).getId(), "Nenhuma linha afetada");
+                } else {
+                    result.successCount++;
+                }
+            }
+        } catch (BatchUpdateException e) {
+            conn.rollback();
+            pstmt.clearBatch();
+            
+            // Regrava linha a linha para identificar as falhas sem perder as demais
+            for (Employee employee : chunk) {
+                try {
+                    bindSyncStatus(pstmt, employee, now);
+                    int rowsAffected = pstmt.executeUpdate();
+                    conn.commit();
+                    if (rowsAffected == 0) {
+                        result.addFailure(employee.getId(), "Nenhuma linha afetada");
+                    } else {
+                        result.successCount++;
+                    }
+                } catch (SQLException rowError) {
+                    conn.rollback();
+                    result.addFailure(employee.getId(), rowError.getMessage());
+                }
+            }
+        }
+    }
+    
+    /**
+     * Grava apenas o sys_id dos funcionários informados (id para sys_id), em lotes de
+     * db.batch.size confirmados um a um
+     *
+     * @return quantidade de linhas atualizadas
+     */
+    public static int updateEmployeeSysIds(Map<Integer, String> sysIdsById) {
+        if (sysIdsById.isEmpty()) {
+            return 0;
+        }
+        if (SyncStateStore.isEnabled()) {
+            SyncStateStore store = SyncStateStore.current();
+            int updated = 0;
+            for (Map.Entry<Integer, String> entry : sysIdsById.entrySet()) {
+                try {
+                    store.putSysId(entry.getKey(), entry.getValue());
+                    updated++;
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Erro ao corrigir o sys_id do funcionário " + entry.getKey() + ": " + e.getMessage());
+                }
+            }
+            store.force();
+            return updated;
+        }
+        int batchSize = DatabaseConfig.getBatchSize();
+        int updated = 0;
+        int pending = 0;
+        long startNanos = System.nanoTime();
+        
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(EmployeeQueries.sysIdUpdate())) {
             
-            // Verifica coluna de data de sincronização
-            rs = metaData.getColumns(null, null, tableName, DatabaseConfig.getEmployeeSyncDateColumn());
-            boolean syncDateColumnExists = rs.next();
+            conn.setAutoCommit(false);
+            for (Map.Entry<Integer, String> entry : sysIdsById.entrySet()) {
+                pstmt.setString(1, entry.getValue());
+                pstmt.setInt(2, entry.getKey());
+                pstmt.addBatch();
+                if (++pending == batchSize) {
+                    updated += sumUpdateCounts(pstmt.executeBatch());
+                    conn.commit();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                updated += sumUpdateCounts(pstmt.executeBatch());
+                conn.commit();
+            }
             
-            // Verifica coluna de sys_id
-            rs = metaData.getColumns(null, null, tableName, DatabaseConfig.getEmployeeSysIdColumn());
-            boolean sysIdColumnExists = rs.next();
+        } catch (SQLException e) {
+            Metrics.counter("db_errors_total", "query", "sys_id_update").increment();
+            System.err.println("Erro ao corrigir sys_ids: " + e.getMessage());
+        }
+        
+        Metrics.timer("db_query_seconds", "query", "sys_id_update").recordSince(startNanos);
+        return updated;
+    }
+    
+    private static int sumUpdateCounts(int[] counts) {
+        int total = 0;
+        for (int count : counts) {
+            // SUCCESS_NO_INFO (-2): o driver não informa a contagem, mas a linha foi gravada
+            total += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(0, count);
+        }
+        return total;
+    }
+    
+    private static void bindSyncStatus(PreparedStatement pstmt, Employee employee, Timestamp syncDate) throws SQLException {
+        int index = 1;
+        pstmt.setBoolean(index++, true);
+        pstmt.setTimestamp(index++, syncDate);
+        pstmt.setString(index++, employee.getServiceNowSysId());
+        if (EmployeeQueries.isHashColumnAvailable()) {
+            // Grava o hash do último conteúdo de fato enviado (criação ou PATCH), para pular
+            // reenvios sem alteração; linhas apenas vinculadas a um usuário existente mantêm o anterior
+            pstmt.setString(index++, employee.getLastPushedHash());
+        }
+        pstmt.setInt(index, employee.getId());
+    }
+    
+    /**
+     * Resultado de uma gravação em lote, com as falhas por funcionário
+     */
+    public static class BatchResult {
+        public int successCount;
+        public final Map<Integer, String> failures = new LinkedHashMap<>();
+        
+        void addFailure(int employeeId, String error) {
+            failures.put(employeeId, error);
+        }
+        
+        public int getFailureCount() {
+            return failures.size();
+        }
+    }
+    
+    /**
+     * Nome do banco (DatabaseMetaData.getDatabaseProductName), lido uma única vez
+     */
+    public static String getDatabaseProduct() throws SQLException {
+        SourceState state = source();
+        String current = state.databaseProduct;
+        if (current == null) {
+            try (Connection conn = getConnection()) {
+                current = conn.getMetaData().getDatabaseProductName();
+            }
+            state.databaseProduct = current;
+        }
+        return current;
+    }
+    
+    /**
+     * Retorna o descritor da tabela de funcionários, introspectado uma única vez
+     * Na primeira chamada cria as colunas de sincronização ausentes, exceto com o estado local
+     */
+    public static EmployeeTableSchema getSchema() throws SQLException {
+        SourceState state = source();
+        EmployeeTableSchema current = state.schema;
+        if (current != null) {
+            return current;
+        }
+        
+        synchronized (state) {
+            if (state.schema == null) {
+                try (Connection conn = getConnection()) {
+                    EmployeeTableSchema loaded = EmployeeTableSchema.load(conn, DatabaseConfig.getEmployeeTable());
+                    // Com o estado local a tabela não é alterada (a origem pode ser somente leitura)
+                    if (!loaded.hasSyncColumns() && !SyncStateStore.isEnabled()) {
+                        addSyncColumnsToTable(conn, loaded);
+                        loaded = EmployeeTableSchema.load(conn, DatabaseConfig.getEmployeeTable());
+                    }
+                    state.schema = loaded;
+                }
+            }
+            return state.schema;
+        }
+    }
+    
+    /**
+     * Introspecta a tabela na inicialização e exibe um resumo do descritor
+     */
+    public static boolean initializeSchema() {
+        try {
+            EmployeeTableSchema loaded = getSchema();
+            System.out.println("Tabela " + loaded.getTableName() + ": " + loaded.getColumns().size() +
+                               " colunas, índices " + loaded.getIndexes());
             
-            return syncColumnExists && syncDateColumnExists && sysIdColumnExists;
+            if (SyncStateStore.isEnabled()) {
+                SyncStateStore.current();
+                if (DatabaseConfig.isSyncClaimEnabled()) {
+                    System.err.println("AVISO: sync.claim.mode=lease ignorado com sync.state.backend=local (a reserva grava na tabela)");
+                }
+                if (DatabaseConfig.getDeadLetterTable() != null) {
+                    System.err.println("AVISO: deadletter.table ignorada com sync.state.backend=local (o registro grava no banco); " +
+                                       "as falhas continuam pendentes no estado local");
+                }
+            }
             
+            // Cria a tabela de falhas (dead letter) se configurada e não existir
+            DeadLetterStore.initialize();
+            return true;
         } catch (SQLException e) {
-            System.err.println("Erro ao verificar colunas: " + e.getMessage());
+            System.err.println("Erro ao ler a estrutura da tabela de funcionários: " + e.getMessage());
+            return false;
+        } catch (UncheckedIOException e) {
+            System.err.println(e.getMessage());
             return false;
         }
     }
@@ -171,14 +783,13 @@ public class DatabaseManager {
     /**
      * Adiciona colunas de sincronização à tabela existente
      */
-    private static void addSyncColumnsToTable() {
-        String tableName = DatabaseConfig.getEmployeeTable();
+    private static void addSyncColumnsToTable(Connection conn, EmployeeTableSchema current) {
+        String tableName = current.getTableName();
         
-        try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement()) {
+        try (Statement stmt = conn.createStatement()) {
             
             // Adiciona coluna de sincronização se não existir
-            if (!checkColumnExists(tableName, DatabaseConfig.getEmployeeSyncColumn())) {
+            if (!current.hasColumn(DatabaseConfig.getEmployeeSyncColumn())) {
                 String sql = "ALTER TABLE " + tableName + " ADD " + 
                            DatabaseConfig.getEmployeeSyncColumn() + " BOOLEAN DEFAULT 0";
                 stmt.executeUpdate(sql);
@@ -186,7 +797,7 @@ public class DatabaseManager {
             }
             
             // Adiciona coluna de data de sincronização se não existir
-            if (!checkColumnExists(tableName, DatabaseConfig.getEmployeeSyncDateColumn())) {
+            if (!current.hasColumn(DatabaseConfig.getEmployeeSyncDateColumn())) {
                 String sql = "ALTER TABLE " + tableName + " ADD " + 
                            DatabaseConfig.getEmployeeSyncDateColumn() + " TIMESTAMP NULL";
                 stmt.executeUpdate(sql);
@@ -194,31 +805,40 @@ public class DatabaseManager {
             }
             
             // Adiciona coluna de sys_id se não existir
-            if (!checkColumnExists(tableName, DatabaseConfig.getEmployeeSysIdColumn())) {
+            if (!current.hasColumn(DatabaseConfig.getEmployeeSysIdColumn())) {
                 String sql = "ALTER TABLE " + tableName + " ADD " + 
                            DatabaseConfig.getEmployeeSysIdColumn() + " VARCHAR(100) NULL";
                 stmt.executeUpdate(sql);
                 System.out.println("Coluna " + DatabaseConfig.getEmployeeSysIdColumn() + " adicionada.");
             }
             
+            // Adiciona coluna de hash do conteúdo enviado se configurada e não existir
+            String hashColumn = DatabaseConfig.getEmployeeHashColumn();
+            if (hashColumn != null && !current.hasColumn(hashColumn)) {
+                String sql = "ALTER TABLE " + tableName + " ADD " + hashColumn + " VARCHAR(16) NULL";
+                stmt.executeUpdate(sql);
+                System.out.println("Coluna " + hashColumn + " adicionada.");
+            }
+            
+            // Colunas de reserva (nó e prazo) para execução em vários nós
+            if (DatabaseConfig.isSyncClaimEnabled()) {
+                if (!current.hasColumn(DatabaseConfig.getEmployeeLeaseOwnerColumn())) {
+                    stmt.executeUpdate("ALTER TABLE " + tableName + " ADD " +
+                                       DatabaseConfig.getEmployeeLeaseOwnerColumn() + " VARCHAR(100) NULL");
+                    System.out.println("Coluna " + DatabaseConfig.getEmployeeLeaseOwnerColumn() + " adicionada.");
+                }
+                if (!current.hasColumn(DatabaseConfig.getEmployeeLeaseUntilColumn())) {
+                    stmt.executeUpdate("ALTER TABLE " + tableName + " ADD " +
+                                       DatabaseConfig.getEmployeeLeaseUntilColumn() + " TIMESTAMP NULL");
+                    System.out.println("Coluna " + DatabaseConfig.getEmployeeLeaseUntilColumn() + " adicionada.");
+                }
+            }
+            
         } catch (SQLException e) {
             System.err.println("Erro ao adicionar colunas: " + e.getMessage());
         }
     }
     
-    /**
-     * Verifica se uma coluna específica existe na tabela
-     */
-    private static boolean checkColumnExists(String tableName, String columnName) {
-        try (Connection conn = getConnection()) {
-            DatabaseMetaData metaData = conn.getMetaData();
-            ResultSet rs = metaData.getColumns(null, null, tableName, columnName);
-            return rs.next();
-        } catch (SQLException e) {
-            return false;
-        }
-    }
-    
     /**
      * Método para testar a conexão com o banco de dados
      */
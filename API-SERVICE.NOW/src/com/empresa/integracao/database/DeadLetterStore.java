@@ -0,0 +1,216 @@
+package com.empresa.integracao.database;
+
+import com.empresa.integracao.config.DatabaseConfig;
+import com.empresa.integracao.metrics.Metrics;
+import com.empresa.integracao.metrics.SyncLog;
+import com.empresa.integracao.model.Employee;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tabela de falhas da sincronização (dead letter), configurada em deadletter.table
+ * Registra os funcionários cuja sincronização falhou, com o último erro e o número de
+ * tentativas, para reprocessamento dirigido apenas desses ids
+ * Desativada com o estado local (sync.state.backend=local), que não escreve no banco de
+ * origem: as falhas continuam pendentes no SyncStateStore e são reenviadas na próxima execução
+ */
+public class DeadLetterStore {
+    private static final String ID_COLUMN = "id_funcionario";
+    private static final String ERROR_COLUMN = "erro";
+    private static final String ATTEMPTS_COLUMN = "tentativas";
+    private static final String LAST_ATTEMPT_COLUMN = "ultima_tentativa";
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    /**
+     * Ids presentes na tabela, por origem (cada origem tem a sua tabela de falhas); a remoção
+     * após sucesso só acessa o banco para esses ids
+     */
+    private static final Map<String, Set<Integer>> knownIdsBySource = new ConcurrentHashMap<>();
+    private static final Set<String> initializedSources = ConcurrentHashMap.newKeySet();
+
+    private DeadLetterStore() {}
+
+    public static boolean isEnabled() {
+        return DatabaseConfig.getDeadLetterTable() != null && !SyncStateStore.isEnabled();
+    }
+
+    /**
+     * Cria a tabela se não existir e carrega os ids já registrados
+     */
+    public static synchronized void initialize() {
+        if (!isEnabled() || initializedSources.contains(DatabaseConfig.getCurrentSource())) {
+            return;
+        }
+        Set<Integer> knownIds = knownIds();
+        try (Connection conn = DatabaseManager.getConnection()) {
+            createTableIfMissing(conn);
+            knownIds.clear();
+            knownIds.addAll(loadIds(conn));
+            initializedSources.add(DatabaseConfig.getCurrentSource());
+            if (!knownIds.isEmpty()) {
+                System.out.println("Tabela de falhas " + DatabaseConfig.getDeadLetterTable() + ": " +
+                                   knownIds.size() + " funcionários aguardando reprocessamento.");
+            }
+        } catch (SQLException e) {
+            System.err.println("Erro ao preparar a tabela de falhas " + DatabaseConfig.getDeadLetterTable() + ": " + e.getMessage());
+        }
+    }
+
+    private static void createTableIfMissing(Connection conn) throws SQLException {
+        String table = DatabaseConfig.getDeadLetterTable();
+        DatabaseMetaData metaData = conn.getMetaData();
+        for (String candidate : new String[] {
+                table, table.toUpperCase(Locale.ROOT), table.toLowerCase(Locale.ROOT) }) {
+            try (ResultSet rs = metaData.getTables(null, null, candidate, null)) {
+                if (rs.next()) {
+                    return;
+                }
+            }
+        }
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("CREATE TABLE " + table + " (" +
+                               ID_COLUMN + " INT NOT NULL PRIMARY KEY, " +
+                               ERROR_COLUMN + " VARCHAR(" + MAX_ERROR_LENGTH + ") NULL, " +
+                               ATTEMPTS_COLUMN + " INT NOT NULL, " +
+                               LAST_ATTEMPT_COLUMN + " TIMESTAMP NULL)");
+            System.out.println("Tabela " + table + " criada.");
+        }
+    }
+
+    /**
+     * Registra (ou atualiza) a falha do funcionário, incrementando as tentativas
+     */
+    public static void record(Employee employee, String error) {
+        if (!isEnabled()) {
+            return;
+        }
+        initialize();
+
+        String table = DatabaseConfig.getDeadLetterTable();
+        String message = error == null ? "erro desconhecido" : error;
+        if (message.length() > MAX_ERROR_LENGTH) {
+            message = message.substring(0, MAX_ERROR_LENGTH);
+        }
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+
+        try (Connection conn = DatabaseManager.getConnection()) {
+            int updated;
+            try (PreparedStatement update = conn.prepareStatement(
+                    "UPDATE " + table + " SET " + ERROR_COLUMN + " = ?, " +
+                    ATTEMPTS_COLUMN + " = " + ATTEMPTS_COLUMN + " + 1, " + LAST_ATTEMPT_COLUMN + " = ? " +
+                    "WHERE " + ID_COLUMN + " = ?")) {
+                update.setString(1, message);
+                update.setTimestamp(2, now);
+                update.setInt(3, employee.getId());
+                updated = update.executeUpdate();
+            }
+
+            if (updated == 0) {
+                try (PreparedStatement insert = conn.prepareStatement(
+                        "INSERT INTO " + table + " (" + ID_COLUMN + ", " + ERROR_COLUMN + ", " +
+                        ATTEMPTS_COLUMN + ", " + LAST_ATTEMPT_COLUMN + ") VALUES (?, ?, 1, ?)")) {
+                    insert.setInt(1, employee.getId());
+                    insert.setString(2, message);
+                    insert.setTimestamp(3, now);
+                    insert.executeUpdate();
+                }
+            }
+            knownIds().add(employee.getId());
+        } catch (SQLException e) {
+            SyncLog.error("falhas.erro", "Erro ao registrar falha do funcionário " + employee.getId() + ": " + e.getMessage());
+        }
+    }
+
+    public static void record(Employee employee, Exception error) {
+        record(employee, error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName());
+    }
+
+    /**
+     * Remove o funcionário da tabela após uma sincronização bem-sucedida
+     */
+    public static void resolve(int employeeId) {
+        if (!isEnabled() || !knownIds().remove(employeeId)) {
+            return;
+        }
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement delete = conn.prepareStatement(
+                 "DELETE FROM " + DatabaseConfig.getDeadLetterTable() + " WHERE " + ID_COLUMN + " = ?")) {
+            delete.setInt(1, employeeId);
+            delete.executeUpdate();
+        } catch (SQLException e) {
+            knownIds().add(employeeId);
+            SyncLog.error("falhas.erro", "Erro ao remover funcionário " + employeeId + " da tabela de falhas: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Indica se o funcionário está registrado na tabela de falhas da origem (e será
+     * reprocessado por --replay)
+     */
+    public static boolean isRecorded(String source, int employeeId) {
+        Set<Integer> ids = knownIdsBySource.get(source);
+        return ids != null && ids.contains(employeeId);
+    }
+
+    /**
+     * Ids registrados, em ordem
+     */
+    public static List<Integer> loadIds() {
+        if (!isEnabled()) {
+            return new ArrayList<>();
+        }
+        initialize();
+        try (Connection conn = DatabaseManager.getConnection()) {
+            return loadIds(conn);
+        } catch (SQLException e) {
+            System.err.println("Erro ao ler a tabela de falhas: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    private static List<Integer> loadIds(Connection conn) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT " + ID_COLUMN + " FROM " + DatabaseConfig.getDeadLetterTable() + " ORDER BY " + ID_COLUMN);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Ids conhecidos da origem atual
+     */
+    private static Set<Integer> knownIds() {
+        return knownIdsBySource.computeIfAbsent(DatabaseConfig.getCurrentSource(), k -> ConcurrentHashMap.newKeySet());
+    }
+
+    static {
+        Metrics.gauge("sync_dead_letters", DeadLetterStore::size);
+    }
+
+    /**
+     * Funcionários registrados em todas as origens
+     */
+    public static int size() {
+        int size = 0;
+        for (Set<Integer> ids : knownIdsBySource.values()) {
+            size += ids.size();
+        }
+        return size;
+    }
+}
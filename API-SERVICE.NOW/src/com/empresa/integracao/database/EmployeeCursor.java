@@ -0,0 +1,150 @@
+package com.empresa.integracao.database;
+
+import com.empresa.integracao.metrics.Metrics;
+import com.empresa.integracao.model.Employee;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Cursor de funcionários com paginação por chave (keyset), por padrão em id_funcionario
+ * Cada página é uma consulta "WHERE id > último ORDER BY id" limitada a pageSize linhas,
+ * lida com setFetchSize e com a conexão devolvida ao pool antes de processar as linhas.
+ * O consumo de memória fica limitado a uma página, independente do tamanho da tabela
+ * Um erro na leitura de uma página encerra o cursor com IllegalStateException, para que a
+ * execução seja contada como falha em vez de terminar como se não houvesse mais linhas
+ */
+public class EmployeeCursor implements Iterator<Employee>, AutoCloseable {
+    private final String sql;
+    private final int pageSize;
+    private final int fetchSize;
+    private final ArrayDeque<Employee> page = new ArrayDeque<>();
+    private final Keyset keyset;
+    private boolean exhausted;
+    private long rowsRead;
+
+    /**
+     * @param sql consulta com um único parâmetro (o último id lido), ordenada pelo id
+     */
+    public EmployeeCursor(String sql, int pageSize, int fetchSize) {
+        this(sql, pageSize, fetchSize, new IdKeyset());
+    }
+
+    /**
+     * @param keyset posição da página: define os parâmetros da consulta e avança a cada linha
+     */
+    public EmployeeCursor(String sql, int pageSize, int fetchSize, Keyset keyset) {
+        this.sql = sql;
+        this.pageSize = Math.max(1, pageSize);
+        this.fetchSize = Math.max(1, fetchSize);
+        this.keyset = keyset;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (page.isEmpty() && !exhausted) {
+            fetchNextPage();
+        }
+        return !page.isEmpty();
+    }
+
+    @Override
+    public Employee next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.poll();
+    }
+
+    private void fetchNextPage() {
+        long start = System.nanoTime();
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setFetchSize(fetchSize);
+            pstmt.setMaxRows(pageSize);
+            keyset.bind(pstmt);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                EmployeeTableSchema.ColumnIndexes columns = EmployeeTableSchema.ColumnIndexes.resolve(rs.getMetaData());
+                while (rs.next()) {
+                    Employee employee = DatabaseManager.mapResultSetToEmployee(rs, columns);
+                    keyset.advance(employee);
+                    page.add(employee);
+                }
+            }
+        } catch (SQLException e) {
+            Metrics.counter("db_errors_total", "query", "employee_page").increment();
+            // Interrompe o cursor; as linhas restantes ficam para a próxima execução
+            exhausted = true;
+            throw new IllegalStateException("Erro ao ler página de funcionários após " + keyset + ": " + e.getMessage(), e);
+        }
+
+        Metrics.timer("db_query_seconds", "query", "employee_page").recordSince(start);
+        Metrics.counter("db_rows_read_total").add(page.size());
+        rowsRead += page.size();
+        if (page.size() < pageSize) {
+            exhausted = true;
+        }
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    /**
+     * Expõe o cursor como Stream sequencial; fechar o Stream fecha o cursor
+     */
+    public Stream<Employee> stream() {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+            .onClose(this::close);
+    }
+
+    /**
+     * Posição de paginação por chave
+     */
+    public interface Keyset {
+        /** Define os parâmetros da consulta a partir da última linha lida */
+        void bind(PreparedStatement pstmt) throws SQLException;
+
+        /** Avança a posição para a linha recém-lida */
+        void advance(Employee employee);
+    }
+
+    /**
+     * Paginação pelo id: um único parâmetro "id > ?"
+     */
+    private static class IdKeyset implements Keyset {
+        private int lastId = Integer.MIN_VALUE;
+
+        @Override
+        public void bind(PreparedStatement pstmt) throws SQLException {
+            pstmt.setInt(1, lastId);
+        }
+
+        @Override
+        public void advance(Employee employee) {
+            lastId = employee.getId();
+        }
+
+        @Override
+        public String toString() {
+            return "id " + lastId;
+        }
+    }
+
+    @Override
+    public void close() {
+        exhausted = true;
+        page.clear();
+    }
+}
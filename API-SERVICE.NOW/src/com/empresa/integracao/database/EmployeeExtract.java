@@ -0,0 +1,110 @@
+package com.empresa.integracao.database;
+
+import com.empresa.integracao.metrics.Metrics;
+import com.empresa.integracao.model.Employee;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Extração ordenada da tabela inteira em uma única consulta, lida aos poucos com
+ * setFetchSize: o banco ordena uma vez e as linhas chegam conforme são consumidas.
+ * Diferente do EmployeeCursor, não pagina por chave, pois a ordenação por expressão
+ * (LOWER(email)) não usa índice e seria refeita a cada página. A conexão fica emprestada
+ * até close(), em uma transação somente leitura (o PostgreSQL só usa cursor no servidor
+ * fora do autocommit; no MySQL use useCursorFetch=true na URL)
+ */
+public class EmployeeExtract implements Iterator<Employee>, AutoCloseable {
+    private final Connection conn;
+    private final PreparedStatement pstmt;
+    private final ResultSet rs;
+    private final EmployeeTableSchema.ColumnIndexes columns;
+    private Employee next;
+    private boolean done;
+    private long rowsRead;
+
+    public EmployeeExtract(String sql, int fetchSize) throws SQLException {
+        Connection opened = DatabaseManager.getConnection();
+        try {
+            opened.setAutoCommit(false);
+            opened.setReadOnly(true);
+            pstmt = opened.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            pstmt.setFetchSize(Math.max(1, fetchSize));
+            rs = pstmt.executeQuery();
+            columns = EmployeeTableSchema.ColumnIndexes.resolve(rs.getMetaData());
+        } catch (SQLException e) {
+            opened.close();
+            throw e;
+        }
+        conn = opened;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !done) {
+            try {
+                if (rs.next()) {
+                    next = DatabaseManager.mapResultSetToEmployee(rs, columns);
+                    rowsRead++;
+                } else {
+                    done = true;
+                }
+            } catch (SQLException e) {
+                Metrics.counter("db_errors_total", "query", "employee_extract").increment();
+                // Uma extração incompleta invalidaria a comparação; interrompe quem consome
+                throw new IllegalStateException("Erro na extração de funcionários após " + rowsRead +
+                                                " linhas: " + e.getMessage(), e);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public Employee next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Employee current = next;
+        next = null;
+        return current;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    /**
+     * Expõe a extração como Stream sequencial; fechar o Stream devolve a conexão
+     */
+    public Stream<Employee> stream() {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+            .onClose(this::close);
+    }
+
+    @Override
+    public void close() {
+        done = true;
+        next = null;
+        try {
+            rs.close();
+            pstmt.close();
+            conn.setReadOnly(false);
+        } catch (SQLException e) {
+            System.err.println("Erro ao encerrar a extração de funcionários: " + e.getMessage());
+        } finally {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                System.err.println("Erro ao devolver a conexão da extração: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,371 @@
+package com.empresa.integracao.database;
+
+import com.empresa.integracao.config.DatabaseConfig;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Monta as consultas SQL da tabela de funcionários a partir do mapeamento do DatabaseConfig
+ * Seleciona apenas as colunas mapeadas (em vez de SELECT *) e guarda o texto compilado,
+ * que é reaproveitado pelo cache de PreparedStatement do pool. As consultas são as da origem
+ * atual (DatabaseConfig.useSource)
+ */
+public class EmployeeQueries {
+    /**
+     * Textos compilados por origem (cada origem tem sua tabela e seu mapeamento de colunas)
+     */
+    private static final Map<String, String> compiled = new ConcurrentHashMap<>();
+
+    private EmployeeQueries() {}
+
+    /**
+     * Lista de colunas mapeadas que existem na tabela, na ordem do mapeamento
+     */
+    public static String projection() {
+        String current = compiled.get(key("projection"));
+        if (current == null) {
+            current = String.join(", ", projectedColumns());
+            compiled.put(key("projection"), current);
+        }
+        return current;
+    }
+
+    private static String key(String query) {
+        return DatabaseConfig.getCurrentSource() + "/" + query;
+    }
+
+    static List<String> projectedColumns() {
+        EmployeeTableSchema schema = null;
+        try {
+            schema = DatabaseManager.getSchema();
+        } catch (SQLException e) {
+            System.err.println("Estrutura da tabela indisponível, usando o mapeamento configurado: " + e.getMessage());
+        }
+
+        List<String> columns = new ArrayList<>();
+        // Colunas obrigatórias
+        columns.add(DatabaseConfig.getEmployeeIdColumn());
+        columns.add(DatabaseConfig.getEmployeeFirstNameColumn());
+        columns.add(DatabaseConfig.getEmployeeLastNameColumn());
+        columns.add(DatabaseConfig.getEmployeeEmailColumn());
+
+        // Colunas opcionais, incluídas somente se existirem; com o estado local (SyncStateStore)
+        // as colunas de sincronização não são lidas
+        boolean localState = SyncStateStore.isEnabled();
+        for (String optional : new String[] {
+                DatabaseConfig.getEmployeeDepartmentColumn(),
+                DatabaseConfig.getEmployeePositionColumn(),
+                DatabaseConfig.getEmployeeHireDateColumn(),
+                localState ? null : DatabaseConfig.getEmployeeSyncColumn(),
+                localState ? null : DatabaseConfig.getEmployeeSysIdColumn(),
+                localState ? null : DatabaseConfig.getEmployeeHashColumn(),
+                DatabaseConfig.getChangeTrackingColumn() }) {
+            if (optional != null && (schema == null || schema.hasColumn(optional)) && !columns.contains(optional)) {
+                columns.add(optional);
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * Condição que identifica funcionários pendentes de sincronização
+     * No modo "indexed" usa apenas igualdade, o que permite busca por índice
+     * Com o estado local não há condição no banco: os pendentes são filtrados pelo SyncStateStore
+     */
+    public static String pendingPredicate() {
+        if (SyncStateStore.isEnabled()) {
+            return "1 = 1";
+        }
+        if (!DatabaseConfig.hasSyncColumn()) {
+            return DatabaseConfig.getEmployeeSysIdColumn() + " IS NULL";
+        }
+        String syncColumn = DatabaseConfig.getEmployeeSyncColumn();
+        if (isIndexedPredicateMode()) {
+            return syncColumn + " = 0";
+        }
+        return syncColumn + " = 0 OR " + syncColumn + " IS NULL";
+    }
+
+    public static boolean isIndexedPredicateMode() {
+        return DatabaseConfig.hasSyncColumn() && !SyncStateStore.isEnabled() && "indexed".equals(DatabaseConfig.getPendingPredicateMode());
+    }
+
+    /**
+     * Página de pendentes por chave: um parâmetro (último id lido), ordenada por id
+     */
+    public static String pendingPage() {
+        String current = compiled.get(key("pendingPage"));
+        if (current == null) {
+            String idColumn = DatabaseConfig.getEmployeeIdColumn();
+            current = "SELECT " + projection() + " FROM " + DatabaseConfig.getEmployeeTable() +
+                      " WHERE (" + pendingPredicate() + ")" + shardPredicate() + " AND " + idColumn + " > ?" +
+                      " ORDER BY " + idColumn;
+            compiled.put(key("pendingPage"), current);
+        }
+        return current;
+    }
+
+    /**
+     * Filtro da fatia deste nó (" AND id MOD count = index"), ou vazio sem divisão
+     */
+    public static String shardPredicate() {
+        int count = DatabaseConfig.getSyncShardCount();
+        if (count <= 1) {
+            return "";
+        }
+        String idColumn = DatabaseConfig.getEmployeeIdColumn();
+        String product = "";
+        try {
+            product = DatabaseManager.getDatabaseProduct().toLowerCase();
+        } catch (SQLException e) {
+            System.err.println("Banco não identificado, usando MOD(): " + e.getMessage());
+        }
+        String modulo = product.contains("microsoft")
+            ? idColumn + " % " + count
+            : "MOD(" + idColumn + ", " + count + ")";
+        return " AND " + modulo + " = " + DatabaseConfig.getSyncShardIndex();
+    }
+
+    /**
+     * Candidatos à reserva: pendentes sem reserva ou com reserva vencida pelo relógio do banco,
+     * ordenados por id. Com skipLocked, limita a "limit" linhas e bloqueia apenas as que não
+     * estão bloqueadas por outro nó (FOR UPDATE SKIP LOCKED)
+     */
+    public static String claimCandidates(String databaseProduct, boolean skipLocked, int limit) {
+        String idColumn = DatabaseConfig.getEmployeeIdColumn();
+        String untilColumn = DatabaseConfig.getEmployeeLeaseUntilColumn();
+        String sql = "SELECT " + projection() + " FROM " + DatabaseConfig.getEmployeeTable() +
+                     " WHERE (" + pendingPredicate() + ")" + shardPredicate() +
+                     " AND (" + untilColumn + " IS NULL OR " + untilColumn + " < " + databaseNow(databaseProduct) + ")" +
+                     " ORDER BY " + idColumn;
+        return skipLocked ? sql + " LIMIT " + limit + " FOR UPDATE SKIP LOCKED" : sql;
+    }
+
+    /**
+     * Reserva de uma linha (parâmetros: nó, prazo em segundos, id); com "conditional" só
+     * aplica se a reserva atual estiver vencida pelo relógio do banco
+     */
+    public static String claimLease(String databaseProduct, boolean conditional) {
+        String untilColumn = DatabaseConfig.getEmployeeLeaseUntilColumn();
+        String sql = "UPDATE " + DatabaseConfig.getEmployeeTable() + " SET " +
+                     DatabaseConfig.getEmployeeLeaseOwnerColumn() + " = ?, " +
+                     untilColumn + " = " + databaseNowPlusSeconds(databaseProduct) +
+                     " WHERE " + DatabaseConfig.getEmployeeIdColumn() + " = ?";
+        return conditional
+            ? sql + " AND (" + untilColumn + " IS NULL OR " + untilColumn + " < " + databaseNow(databaseProduct) + ")"
+            : sql;
+    }
+
+    /**
+     * Renova o prazo das reservas pendentes do nó (parâmetros: prazo em segundos, nó)
+     */
+    public static String renewLeases(String databaseProduct) {
+        return "UPDATE " + DatabaseConfig.getEmployeeTable() + " SET " +
+               DatabaseConfig.getEmployeeLeaseUntilColumn() + " = " + databaseNowPlusSeconds(databaseProduct) +
+               " WHERE " + DatabaseConfig.getEmployeeLeaseOwnerColumn() + " = ? AND (" + pendingPredicate() + ")";
+    }
+
+    /**
+     * Instante atual no relógio do banco, em UTC onde o banco permite, para que todos os nós
+     * comparem os prazos das reservas com o mesmo relógio (a coluna é TIMESTAMP sem fuso)
+     */
+    static String databaseNow(String databaseProduct) {
+        String product = databaseProduct == null ? "" : databaseProduct.toLowerCase();
+        if (product.contains("postgres")) {
+            return "(CURRENT_TIMESTAMP AT TIME ZONE 'UTC')";
+        }
+        if (product.contains("mysql") || product.contains("mariadb")) {
+            return "UTC_TIMESTAMP()";
+        }
+        if (product.contains("microsoft")) {
+            return "SYSUTCDATETIME()";
+        }
+        if (product.contains("oracle")) {
+            return "SYS_EXTRACT_UTC(SYSTIMESTAMP)";
+        }
+        if (product.contains("h2")) {
+            return "LOCALTIMESTAMP";
+        }
+        return "CURRENT_TIMESTAMP";
+    }
+
+    /**
+     * Instante atual do banco mais um parâmetro em segundos (prazo da reserva)
+     */
+    static String databaseNowPlusSeconds(String databaseProduct) {
+        String product = databaseProduct == null ? "" : databaseProduct.toLowerCase();
+        String now = databaseNow(databaseProduct);
+        if (product.contains("postgres")) {
+            return now + " + CAST(? AS INTEGER) * INTERVAL '1 second'";
+        }
+        if (product.contains("mysql") || product.contains("mariadb")) {
+            return "TIMESTAMPADD(SECOND, ?, " + now + ")";
+        }
+        if (product.contains("microsoft") || product.contains("h2")) {
+            return "DATEADD(SECOND, ?, " + now + ")";
+        }
+        if (product.contains("oracle")) {
+            return now + " + NUMTODSINTERVAL(?, 'SECOND')";
+        }
+        return "{fn TIMESTAMPADD(SQL_TSI_SECOND, ?, " + now + ")}";
+    }
+
+    /**
+     * Libera as reservas pendentes do nó (parâmetro: nó)
+     */
+    public static String releaseLeases() {
+        return "UPDATE " + DatabaseConfig.getEmployeeTable() + " SET " +
+               DatabaseConfig.getEmployeeLeaseOwnerColumn() + " = NULL, " +
+               DatabaseConfig.getEmployeeLeaseUntilColumn() + " = NULL" +
+               " WHERE " + DatabaseConfig.getEmployeeLeaseOwnerColumn() + " = ? AND (" + pendingPredicate() + ")";
+    }
+
+    /**
+     * Libera a reserva de uma linha, se ainda for do nó (parâmetros: id, nó)
+     */
+    public static String releaseLease() {
+        return "UPDATE " + DatabaseConfig.getEmployeeTable() + " SET " +
+               DatabaseConfig.getEmployeeLeaseOwnerColumn() + " = NULL, " +
+               DatabaseConfig.getEmployeeLeaseUntilColumn() + " = NULL" +
+               " WHERE " + DatabaseConfig.getEmployeeIdColumn() + " = ? AND " +
+               DatabaseConfig.getEmployeeLeaseOwnerColumn() + " = ?";
+    }
+
+    /**
+     * Página de alterados por chave composta (marcador, id): três parâmetros
+     * (marcador, marcador, id) da última linha lida, ordenada por marcador e id
+     */
+    public static String changedSincePage() {
+        String current = compiled.get(key("changedSincePage"));
+        if (current == null) {
+            String idColumn = DatabaseConfig.getEmployeeIdColumn();
+            String changeColumn = DatabaseConfig.getChangeTrackingColumn();
+            current = "SELECT " + projection() + " FROM " + DatabaseConfig.getEmployeeTable() +
+                      " WHERE " + changeColumn + " > ? OR (" + changeColumn + " = ? AND " + idColumn + " > ?)" +
+                      " ORDER BY " + changeColumn + ", " + idColumn;
+            compiled.put(key("changedSincePage"), current);
+        }
+        return current;
+    }
+
+    /**
+     * Busca de um funcionário pela chave primária
+     */
+    public static String employeeById() {
+        String current = compiled.get(key("employeeById"));
+        if (current == null) {
+            current = "SELECT " + projection() + " FROM " + DatabaseConfig.getEmployeeTable() +
+                      " WHERE " + DatabaseConfig.getEmployeeIdColumn() + " = ?";
+            compiled.put(key("employeeById"), current);
+        }
+        return current;
+    }
+
+    /**
+     * Extração completa ordenada por email (reconcile.db.order) e id, sem parâmetros
+     * Linhas sem email ficam de fora: não há como casá-las com o ServiceNow
+     */
+    public static String allByEmail() {
+        String emailColumn = DatabaseConfig.getEmployeeEmailColumn();
+        return "SELECT " + projection() + " FROM " + DatabaseConfig.getEmployeeTable() +
+               " WHERE " + emailColumn + " IS NOT NULL" +
+               " ORDER BY " + DatabaseConfig.getReconcileOrderExpression() + ", " + DatabaseConfig.getEmployeeIdColumn();
+    }
+
+    /**
+     * Busca de vários funcionários por id ("id IN (?, ?, ...)" com count parâmetros)
+     */
+    public static String employeesByIds(int count) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(projection())
+            .append(" FROM ").append(DatabaseConfig.getEmployeeTable())
+            .append(" WHERE ").append(DatabaseConfig.getEmployeeIdColumn()).append(" IN (");
+        for (int i = 0; i < count; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        return sql.append(") ORDER BY ").append(DatabaseConfig.getEmployeeIdColumn()).toString();
+    }
+
+    /**
+     * Atualização do status de sincronização (sincronizado, data, sys_id e, se disponível,
+     * hash do conteúdo enviado) por id. O id é sempre o último parâmetro
+     */
+    public static String syncStatusUpdate() {
+        return "UPDATE " + DatabaseConfig.getEmployeeTable() + " SET " +
+               DatabaseConfig.getEmployeeSyncColumn() + " = ?, " +
+               DatabaseConfig.getEmployeeSyncDateColumn() + " = ?, " +
+               DatabaseConfig.getEmployeeSysIdColumn() + " = ?" +
+               (isHashColumnAvailable() ? ", " + DatabaseConfig.getEmployeeHashColumn() + " = ?" : "") +
+               " WHERE " + DatabaseConfig.getEmployeeIdColumn() + " = ?";
+    }
+
+    /**
+     * Correção apenas do sys_id (sys_id, id)
+     */
+    public static String sysIdUpdate() {
+        return "UPDATE " + DatabaseConfig.getEmployeeTable() + " SET " +
+               DatabaseConfig.getEmployeeSysIdColumn() + " = ?" +
+               " WHERE " + DatabaseConfig.getEmployeeIdColumn() + " = ?";
+    }
+
+    /**
+     * Verifica se a coluna de hash está configurada e existe na tabela
+     */
+    public static boolean isHashColumnAvailable() {
+        String hashColumn = DatabaseConfig.getEmployeeHashColumn();
+        if (hashColumn == null) {
+            return false;
+        }
+        try {
+            return DatabaseManager.getSchema().hasColumn(hashColumn);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Normaliza sincronizado NULL para 0, pré-requisito do modo "indexed"
+     */
+    public static String normalizeNullSyncFlags() {
+        String syncColumn = DatabaseConfig.getEmployeeSyncColumn();
+        return "UPDATE " + DatabaseConfig.getEmployeeTable() + " SET " + syncColumn + " = 0" +
+               " WHERE " + syncColumn + " IS NULL";
+    }
+
+    /**
+     * DDL do índice de pendentes para o banco informado
+     * PostgreSQL e SQL Server recebem um índice parcial (filtrado) só com os pendentes;
+     * os demais recebem um índice composto (sincronizado, id), que cobre filtro e ordenação
+     */
+    public static String createPendingIndex(String databaseProduct) {
+        String table = DatabaseConfig.getEmployeeTable();
+        String idColumn = DatabaseConfig.getEmployeeIdColumn();
+        String syncColumn = DatabaseConfig.getEmployeeSyncColumn();
+        String indexName = pendingIndexName();
+        String product = databaseProduct == null ? "" : databaseProduct.toLowerCase();
+
+        if (product.contains("postgres") || product.contains("microsoft")) {
+            return "CREATE INDEX " + indexName + " ON " + table + " (" + idColumn + ")" +
+                   " WHERE " + syncColumn + " = 0";
+        }
+        return "CREATE INDEX " + indexName + " ON " + table + " (" + syncColumn + ", " + idColumn + ")";
+    }
+
+    public static String pendingIndexName() {
+        return "idx_" + DatabaseConfig.getEmployeeTable() + "_pendentes";
+    }
+
+    /**
+     * Comando EXPLAIN para a página de pendentes, ou null se o banco não suportar
+     */
+    public static String explainPendingPage(String databaseProduct) {
+        String product = databaseProduct == null ? "" : databaseProduct.toLowerCase();
+        if (product.contains("mysql") || product.contains("mariadb")
+                || product.contains("postgres") || product.contains("h2")) {
+            return "EXPLAIN " + pendingPage().replace("?", "0");
+        }
+        return null;
+    }
+}
@@ -0,0 +1,227 @@
+package com.empresa.integracao.database;
+
+import com.empresa.integracao.config.DatabaseConfig;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Descritor da tabela de funcionários, obtido uma única vez via DatabaseMetaData
+ * Mantém em cache as colunas, tipos e índices para evitar consultas de metadados por linha
+ */
+public class EmployeeTableSchema {
+    private final String tableName;
+    private final Map<String, ColumnInfo> columns;
+    private final List<IndexInfo> indexes;
+
+    private EmployeeTableSchema(String tableName, Map<String, ColumnInfo> columns, List<IndexInfo> indexes) {
+        this.tableName = tableName;
+        this.columns = Collections.unmodifiableMap(columns);
+        this.indexes = Collections.unmodifiableList(indexes);
+    }
+
+    /**
+     * Lê colunas e índices da tabela em uma única conexão
+     * Tenta o nome configurado e, se não encontrar, as variantes maiúscula e minúscula
+     * (Oracle e PostgreSQL armazenam nomes não citados em caixas diferentes)
+     */
+    public static EmployeeTableSchema load(Connection conn, String configuredTable) throws SQLException {
+        DatabaseMetaData metaData = conn.getMetaData();
+
+        for (String candidate : new String[] {
+                configuredTable,
+                configuredTable.toUpperCase(Locale.ROOT),
+                configuredTable.toLowerCase(Locale.ROOT) }) {
+
+            Map<String, ColumnInfo> columns = new LinkedHashMap<>();
+            try (ResultSet rs = metaData.getColumns(null, null, candidate, null)) {
+                while (rs.next()) {
+                    ColumnInfo column = new ColumnInfo(
+                        rs.getString("COLUMN_NAME"),
+                        rs.getInt("DATA_TYPE"),
+                        rs.getString("TYPE_NAME"),
+                        rs.getInt("COLUMN_SIZE"),
+                        rs.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls,
+                        rs.getInt("ORDINAL_POSITION"));
+                    columns.put(normalize(column.name), column);
+                }
+            }
+
+            if (!columns.isEmpty()) {
+                return new EmployeeTableSchema(candidate, columns, loadIndexes(metaData, candidate));
+            }
+        }
+
+        throw new SQLException("Tabela " + configuredTable + " não encontrada nos metadados do banco");
+    }
+
+    private static List<IndexInfo> loadIndexes(DatabaseMetaData metaData, String table) {
+        Map<String, IndexInfo> indexes = new LinkedHashMap<>();
+        try (ResultSet rs = metaData.getIndexInfo(null, null, table, false, true)) {
+            while (rs.next()) {
+                String indexName = rs.getString("INDEX_NAME");
+                String columnName = rs.getString("COLUMN_NAME");
+                if (indexName == null || columnName == null) {
+                    continue; // Estatísticas da tabela, não um índice
+                }
+                IndexInfo index = indexes.computeIfAbsent(indexName,
+                        name -> new IndexInfo(name, !getBoolean(rs, "NON_UNIQUE")));
+                index.columns.add(columnName);
+            }
+        } catch (SQLException e) {
+            // Alguns drivers não expõem índices; o descritor segue sem eles
+            System.err.println("Não foi possível ler os índices de " + table + ": " + e.getMessage());
+        }
+        return new ArrayList<>(indexes.values());
+    }
+
+    private static boolean getBoolean(ResultSet rs, String column) {
+        try {
+            return rs.getBoolean(column);
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+    static String normalize(String columnName) {
+        return columnName == null ? null : columnName.toUpperCase(Locale.ROOT);
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public boolean hasColumn(String columnName) {
+        return columnName != null && columns.containsKey(normalize(columnName));
+    }
+
+    public ColumnInfo getColumn(String columnName) {
+        return columnName == null ? null : columns.get(normalize(columnName));
+    }
+
+    public Map<String, ColumnInfo> getColumns() {
+        return columns;
+    }
+
+    public List<IndexInfo> getIndexes() {
+        return indexes;
+    }
+
+    /**
+     * Verifica se a coluna é a primeira de algum índice (utilizável em filtros)
+     */
+    public boolean isIndexed(String columnName) {
+        for (IndexInfo index : indexes) {
+            if (!index.columns.isEmpty() && normalize(index.columns.get(0)).equals(normalize(columnName))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Verifica se as colunas de sincronização configuradas existem
+     */
+    public boolean hasSyncColumns() {
+        return hasColumn(DatabaseConfig.getEmployeeSyncColumn())
+            && hasColumn(DatabaseConfig.getEmployeeSyncDateColumn())
+            && hasColumn(DatabaseConfig.getEmployeeSysIdColumn())
+            && (DatabaseConfig.getEmployeeHashColumn() == null || hasColumn(DatabaseConfig.getEmployeeHashColumn()))
+            && (!DatabaseConfig.isSyncClaimEnabled() || (hasColumn(DatabaseConfig.getEmployeeLeaseOwnerColumn())
+                                                         && hasColumn(DatabaseConfig.getEmployeeLeaseUntilColumn())));
+    }
+
+    /**
+     * Metadados de uma coluna
+     */
+    public static class ColumnInfo {
+        public final String name;
+        public final int sqlType;
+        public final String typeName;
+        public final int size;
+        public final boolean nullable;
+        public final int ordinalPosition;
+
+        ColumnInfo(String name, int sqlType, String typeName, int size, boolean nullable, int ordinalPosition) {
+            this.name = name;
+            this.sqlType = sqlType;
+            this.typeName = typeName;
+            this.size = size;
+            this.nullable = nullable;
+            this.ordinalPosition = ordinalPosition;
+        }
+    }
+
+    /**
+     * Metadados de um índice
+     */
+    public static class IndexInfo {
+        public final String name;
+        public final boolean unique;
+        public final List<String> columns = new ArrayList<>();
+
+        IndexInfo(String name, boolean unique) {
+            this.name = name;
+            this.unique = unique;
+        }
+
+        @Override
+        public String toString() {
+            return name + (unique ? " (único) " : " ") + columns;
+        }
+    }
+
+    /**
+     * Posições das colunas mapeadas em um ResultSet, resolvidas uma vez por consulta
+     * Permite ler cada linha por índice em vez de procurar a coluna pelo nome
+     * Colunas ausentes ficam com posição 0
+     */
+    public static class ColumnIndexes {
+        public final int id;
+        public final int firstName;
+        public final int lastName;
+        public final int email;
+        public final int department;
+        public final int position;
+        public final int hireDate;
+        public final int sync;
+        public final int sysId;
+        public final int changeVersion;
+        public final int hash;
+
+        private ColumnIndexes(Map<String, Integer> positions) {
+            this.id = position(positions, DatabaseConfig.getEmployeeIdColumn());
+            this.firstName = position(positions, DatabaseConfig.getEmployeeFirstNameColumn());
+            this.lastName = position(positions, DatabaseConfig.getEmployeeLastNameColumn());
+            this.email = position(positions, DatabaseConfig.getEmployeeEmailColumn());
+            this.department = position(positions, DatabaseConfig.getEmployeeDepartmentColumn());
+            this.position = position(positions, DatabaseConfig.getEmployeePositionColumn());
+            this.hireDate = position(positions, DatabaseConfig.getEmployeeHireDateColumn());
+            this.sync = position(positions, DatabaseConfig.getEmployeeSyncColumn());
+            this.sysId = position(positions, DatabaseConfig.getEmployeeSysIdColumn());
+            this.changeVersion = position(positions, DatabaseConfig.getChangeTrackingColumn());
+            this.hash = position(positions, DatabaseConfig.getEmployeeHashColumn());
+        }
+
+        public static ColumnIndexes resolve(ResultSetMetaData metaData) throws SQLException {
+            Map<String, Integer> positions = new LinkedHashMap<>();
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                positions.putIfAbsent(normalize(metaData.getColumnLabel(i)), i);
+            }
+            return new ColumnIndexes(positions);
+        }
+
+        private static int position(Map<String, Integer> positions, String columnName) {
+            Integer index = columnName == null ? null : positions.get(normalize(columnName));
+            return index == null ? 0 : index;
+        }
+    }
+}
@@ -0,0 +1,533 @@
+package com.empresa.integracao.database;
+
+import com.empresa.integracao.config.DatabaseConfig;
+import com.empresa.integracao.metrics.Metrics;
+import com.empresa.integracao.metrics.SyncLog;
+import com.empresa.integracao.model.Employee;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Diário local da sincronização (sync.journal.dir), somente de acréscimo
+ * Registra, por funcionário (origem e id), a intenção de criar o usuário (I), o resultado obtido do
+ * ServiceNow com o sys_id e o hash do conteúdo enviado (R), a gravação do status confirmada
+ * no banco (C) e a tentativa abandonada após falha (A). Os registros são acumulados em memória
+ * e gravados com um único fsync a cada sync.journal.fsync.interval.ms ou
+ * sync.journal.fsync.records registros (fsync em grupo)
+ *
+ * Se o processo cair entre a resposta do ServiceNow e a gravação do status, recover() conclui
+ * essas gravações a partir do diário, sem chamar o ServiceNow; a execução seguinte encontra
+ * pendentes apenas as linhas que de fato não foram enviadas. Um registro perdido por ainda não
+ * estar em disco só faz a linha voltar a ser verificada no ServiceNow, como sem o diário
+ *
+ * O diário é dividido em segmentos de até sync.journal.segment.bytes; os segmentos mais
+ * antigos são apagados assim que todas as suas linhas estão confirmadas no banco (compactação)
+ */
+public class SyncJournal {
+    private static final String SEGMENT_PREFIX = "segmento-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String INTENT = "I";
+    private static final String RESULT = "R";
+    private static final String COMMITTED = "C";
+    private static final String ABANDONED = "A";
+
+    /**
+     * Ordem de aquisição: ioLock e depois a classe. Os acréscimos só usam a classe, de modo que
+     * o fsync (fora do lock da classe) não bloqueia as threads de processamento
+     */
+    private static final Object ioLock = new Object();
+
+    /** Segmento de cada funcionário (origem e id) com registro ainda não confirmado no banco */
+    private static final Map<String, Long> openSegmentByKey = new HashMap<>();
+    /** Funcionários não confirmados por segmento (inclui segmentos já zerados ainda não apagados) */
+    private static final TreeMap<Long, Integer> outstandingBySegment = new TreeMap<>();
+
+    private static ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    private static int bufferedRecords;
+    private static boolean flushScheduled;
+    private static FileChannel channel;
+    private static Path directory;
+    private static long activeSegment;
+    private static long activeSegmentBytes;
+    private static ScheduledExecutorService flusher;
+    private static boolean recovered;
+
+    private SyncJournal() {}
+
+    public static boolean isEnabled() {
+        return DatabaseConfig.getSyncJournalDir() != null;
+    }
+
+    /**
+     * Conclui as gravações pendentes do diário deixado pela execução anterior e abre um novo
+     * segmento. Executado uma única vez por processo, antes da primeira sincronização
+     * Funcionários cujo conteúdo mudou desde o envio recebem apenas o sys_id e continuam pendentes
+     */
+    public static void recover() {
+        if (!isEnabled()) {
+            return;
+        }
+        synchronized (ioLock) {
+            synchronized (SyncJournal.class) {
+                if (recovered) {
+                    return;
+                }
+                recovered = true;
+                try {
+                    directory = Paths.get(DatabaseConfig.getSyncJournalDir());
+                    Files.createDirectories(directory);
+                    TreeMap<Long, Path> segments = listSegments();
+                    Map<String, String[]> pending = readPendingResults(segments.values());
+
+                    activeSegment = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+                    openActiveSegment();
+                    if (!pending.isEmpty()) {
+                        writeBack(pending);
+                    }
+                    flushToDisk();
+                    for (Path segment : segments.values()) {
+                        Files.deleteIfExists(segment);
+                    }
+                    startFlusher();
+                } catch (IOException e) {
+                    // Sem diário a sincronização segue como antes: pendentes são verificados no ServiceNow
+                    System.err.println("Diário de sincronização desativado nesta execução: " + e.getMessage());
+                    closeChannel();
+                    channel = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Registra a intenção de criar o usuário, antes da chamada ao ServiceNow
+     */
+    public static synchronized void intent(Employee employee) {
+        if (channel == null) {
+            return;
+        }
+        String source = sourceOf(employee);
+        append(INTENT, source, String.valueOf(employee.getId()), employee.getEmail());
+        track(key(source, employee.getId()));
+    }
+
+    /**
+     * Registra o resultado obtido do ServiceNow (sys_id e hash do conteúdo enviado, vazio se
+     * nada foi enviado), antes de enfileirar a gravação do status
+     */
+    public static synchronized void result(Employee employee) {
+        if (channel == null) {
+            return;
+        }
+        String source = sourceOf(employee);
+        append(RESULT, source, String.valueOf(employee.getId()), employee.getEmail(),
+               employee.getServiceNowSysId(), employee.getLastPushedHash());
+        track(key(source, employee.getId()));
+    }
+
+    /**
+     * Encerra a intenção de um funcionário cujo processamento falhou; como a criação é sempre
+     * precedida da consulta por email, a próxima tentativa encontra o usuário se ele foi criado
+     */
+    public static synchronized void abandoned(Employee employee) {
+        String source = sourceOf(employee);
+        if (channel != null && openSegmentByKey.containsKey(key(source, employee.getId()))) {
+            append(ABANDONED, source, String.valueOf(employee.getId()));
+            untrack(key(source, employee.getId()));
+        }
+    }
+
+    /**
+     * Marca como confirmadas no banco as gravações de status dos funcionários da origem atual
+     * Chamado após o commit; só grava registro para quem tem intenção ou resultado em aberto
+     */
+    public static synchronized void committed(Collection<Integer> employeeIds) {
+        if (channel == null) {
+            return;
+        }
+        String source = DatabaseConfig.getCurrentSource();
+        for (Integer id : employeeIds) {
+            if (openSegmentByKey.containsKey(key(source, id))) {
+                append(COMMITTED, source, String.valueOf(id));
+                untrack(key(source, id));
+            }
+        }
+    }
+
+    public static void committed(int employeeId) {
+        committed(Collections.singletonList(employeeId));
+    }
+
+    /**
+     * Grava em disco o que estiver acumulado, fecha o segmento ativo se ele tiver registros e
+     * apaga os segmentos já confirmados. Chamado ao final de cada execução
+     */
+    public static void checkpoint() {
+        synchronized (ioLock) {
+            try {
+                synchronized (SyncJournal.class) {
+                    flushToDisk();
+                    if (channel != null && activeSegmentBytes > 0) {
+                        rollSegment();
+                    }
+                    compact();
+                }
+            } catch (IOException e) {
+                System.err.println("Erro ao gravar o diário de sincronização: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Grava o restante, compacta e fecha o diário (encerramento da aplicação)
+     */
+    public static void close() {
+        checkpoint();
+        synchronized (ioLock) {
+            synchronized (SyncJournal.class) {
+                if (flusher != null) {
+                    flusher.shutdownNow();
+                    flusher = null;
+                }
+                closeChannel();
+                channel = null;
+            }
+        }
+    }
+
+    /**
+     * Funcionários com intenção ou resultado ainda não confirmado no banco
+     */
+    public static synchronized int getOutstandingCount() {
+        return openSegmentByKey.size();
+    }
+
+    // ---------------------------------------------------------------------------------------
+    // Recuperação
+
+    private static TreeMap<Long, Path> listSegments() throws IOException {
+        TreeMap<Long, Path> segments = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    segments.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                                                               name.length() - SEGMENT_SUFFIX.length())), file);
+                } catch (NumberFormatException e) {
+                    System.err.println("Arquivo ignorado no diário de sincronização: " + file);
+                }
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Lê os segmentos em ordem e retorna os resultados sem confirmação, por origem e id
+     * Uma linha sem a quebra final foi interrompida no meio da gravação e é descartada
+     */
+    private static Map<String, String[]> readPendingResults(Collection<Path> segments) throws IOException {
+        Map<String, String[]> pending = new LinkedHashMap<>();
+        Map<String, String> intents = new LinkedHashMap<>();
+        int discarded = 0;
+
+        for (Path segment : segments) {
+            String[] lines = new String(Files.readAllBytes(segment), StandardCharsets.UTF_8).split("\n", -1);
+            discarded += lines[lines.length - 1].isEmpty() ? 0 : 1;
+            for (int i = 0; i < lines.length - 1; i++) {
+                String[] fields = lines[i].split("\t", -1);
+                if (fields.length < 3) {
+                    discarded++;
+                    continue;
+                }
+                String key = fields[1] + "\t" + fields[2];
+                switch (fields[0]) {
+                    case INTENT:
+                        pending.remove(key);
+                        intents.put(key, fields.length > 3 ? fields[3] : "");
+                        break;
+                    case RESULT:
+                        if (fields.length == 6 && !fields[4].isEmpty()) {
+                            intents.remove(key);
+                            pending.put(key, fields);
+                        } else {
+                            discarded++;
+                        }
+                        break;
+                    case COMMITTED:
+                    case ABANDONED:
+                        pending.remove(key);
+                        intents.remove(key);
+                        break;
+                    default:
+                        discarded++;
+                }
+            }
+        }
+
+        if (discarded > 0) {
+            SyncLog.warn("Diário de sincronização: " + discarded + " registros incompletos descartados.");
+        }
+        if (!intents.isEmpty()) {
+            // Criação sem resposta registrada: a linha continua pendente e será consultada por
+            // email antes de nova criação
+            Metrics.counter("sync_journal_recovered_total", "result", "sem_resposta").add(intents.size());
+            System.out.println("Diário de sincronização: " + intents.size() +
+                               " criações sem resposta registrada; serão verificadas no ServiceNow.");
+            if (SyncLog.isDebugEnabled()) {
+                for (String email : intents.values()) {
+                    SyncLog.debug("Criação sem resposta registrada: " + email);
+                }
+            }
+        }
+        return pending;
+    }
+
+    /**
+     * Grava no banco de cada origem os resultados sem confirmação. Os que não puderem ser
+     * gravados agora são copiados para o novo segmento e continuam em aberto
+     */
+    private static void writeBack(Map<String, String[]> pending) {
+        System.out.println("Diário de sincronização: concluindo " + pending.size() + " gravações pendentes da execução anterior.");
+
+        Map<String, Map<Integer, String[]>> bySource = new LinkedHashMap<>();
+        for (String[] fields : pending.values()) {
+            try {
+                bySource.computeIfAbsent(fields[1], k -> new LinkedHashMap<>()).put(Integer.parseInt(fields[2]), fields);
+            } catch (NumberFormatException e) {
+                SyncLog.warn("Diário de sincronização: id inválido descartado: " + fields[2]);
+            }
+        }
+        for (Map.Entry<String, Map<Integer, String[]>> source : bySource.entrySet()) {
+            if (!DatabaseConfig.getSourceNames().contains(source.getKey())) {
+                System.err.println("Diário de sincronização: origem " + source.getKey() + " não está mais em db.sources; " +
+                                   source.getValue().size() + " gravações descartadas.");
+                continue;
+            }
+            DatabaseConfig.withSource(source.getKey(), () -> writeBack(source.getKey(), source.getValue()));
+        }
+    }
+
+    /**
+     * Conclui as gravações de uma origem; exige o escopo da origem
+     */
+    private static void writeBack(String source, Map<Integer, String[]> pending) {
+        List<Employee> synced = new ArrayList<>();
+        Map<Integer, String> sysIdsOnly = new LinkedHashMap<>();
+        Map<Integer, String[]> carried = new LinkedHashMap<>();
+        int dropped = 0;
+
+        for (Map.Entry<Integer, String[]> entry : pending.entrySet()) {
+            String[] fields = entry.getValue();
+            Employee employee;
+            try {
+                employee = DatabaseManager.getEmployeeById(entry.getKey());
+            } catch (SQLException e) {
+                carried.put(entry.getKey(), fields);
+                continue;
+            }
+            if (employee == null) {
+                dropped++;
+            } else if (fields[5].equals(employee.fingerprint())) {
+                employee.setServiceNowSysId(fields[4]);
+                employee.setLastPushedHash(fields[5]);
+                employee.setSyncedToServiceNow(true);
+                synced.add(employee);
+            } else {
+                // Alterado depois do envio: grava o sys_id e deixa a linha pendente para o PATCH
+                sysIdsOnly.put(entry.getKey(), fields[4]);
+            }
+        }
+
+        DatabaseManager.BatchResult result = DatabaseManager.updateEmployeeSyncStatusBatch(synced);
+        for (Integer id : result.failures.keySet()) {
+            carried.put(id, pending.get(id));
+        }
+        if (DatabaseManager.updateEmployeeSysIds(sysIdsOnly) < sysIdsOnly.size()) {
+            for (Integer id : sysIdsOnly.keySet()) {
+                carried.put(id, pending.get(id));
+            }
+        }
+
+        for (Map.Entry<Integer, String[]> entry : carried.entrySet()) {
+            String[] fields = entry.getValue();
+            append(RESULT, fields[1], fields[2], fields[3], fields[4], fields[5]);
+            track(key(source, entry.getKey()));
+        }
+
+        Metrics.counter("sync_journal_recovered_total", "result", "gravado").add(result.successCount);
+        Metrics.counter("sync_journal_recovered_total", "result", "somente_sys_id").add(sysIdsOnly.size());
+        Metrics.counter("sync_journal_recovered_total", "result", "adiado").add(carried.size());
+        System.out.println("Diário de sincronização" + (DatabaseConfig.isMultiSource() ? " [" + source + "]" : "") + ": " +
+                           result.successCount + " marcados como sincronizados, " +
+                           sysIdsOnly.size() + " com sys_id gravado (alterados após o envio), " +
+                           dropped + " não existem mais, " + carried.size() + " adiados.");
+    }
+
+    // ---------------------------------------------------------------------------------------
+    // Gravação
+
+    private static void append(String type, String... fields) {
+        StringBuilder line = new StringBuilder(type);
+        for (String field : fields) {
+            line.append('\t');
+            if (field != null) {
+                for (int i = 0; i < field.length(); i++) {
+                    char c = field.charAt(i);
+                    line.append(c == '\t' || c == '\n' || c == '\r' ? ' ' : c);
+                }
+            }
+        }
+        byte[] bytes = line.append('\n').toString().getBytes(StandardCharsets.UTF_8);
+        buffer.write(bytes, 0, bytes.length);
+        activeSegmentBytes += bytes.length;
+        Metrics.counter("sync_journal_records_total", "type", type).increment();
+
+        boolean roll = activeSegmentBytes >= DatabaseConfig.getSyncJournalSegmentBytes();
+        if ((++bufferedRecords >= DatabaseConfig.getSyncJournalFsyncRecords() || roll)
+                && !flushScheduled && flusher != null) {
+            flushScheduled = true;
+            flusher.execute(roll ? SyncJournal::checkpoint : SyncJournal::flushQuietly);
+        }
+    }
+
+    private static String key(String source, int employeeId) {
+        return source + "\t" + employeeId;
+    }
+
+    private static String sourceOf(Employee employee) {
+        return employee.getSource() != null ? employee.getSource() : DatabaseConfig.getCurrentSource();
+    }
+
+    private static void track(String key) {
+        Long previous = openSegmentByKey.put(key, activeSegment);
+        if (previous != null) {
+            outstandingBySegment.merge(previous, -1, Integer::sum);
+        }
+        outstandingBySegment.merge(activeSegment, 1, Integer::sum);
+    }
+
+    private static void untrack(String key) {
+        Long segment = openSegmentByKey.remove(key);
+        if (segment != null) {
+            outstandingBySegment.merge(segment, -1, Integer::sum);
+        }
+    }
+
+    /**
+     * Grava o buffer no segmento ativo e força a gravação em disco (fsync em grupo)
+     * Exige ioLock; o lock da classe é mantido só durante a troca do buffer
+     */
+    private static void flushToDisk() throws IOException {
+        byte[] data;
+        FileChannel target;
+        int records;
+        synchronized (SyncJournal.class) {
+            flushScheduled = false;
+            if (channel == null || bufferedRecords == 0) {
+                return;
+            }
+            data = buffer.toByteArray();
+            records = bufferedRecords;
+            buffer = new ByteArrayOutputStream(Math.max(256, data.length));
+            bufferedRecords = 0;
+            target = channel;
+        }
+        long start = System.nanoTime();
+        ByteBuffer bytes = ByteBuffer.wrap(data);
+        while (bytes.hasRemaining()) {
+            target.write(bytes);
+        }
+        target.force(false);
+        Metrics.timer("sync_journal_fsync_seconds").recordSince(start);
+        Metrics.counter("sync_journal_fsync_records_total").add(records);
+    }
+
+    private static void flushQuietly() {
+        synchronized (ioLock) {
+            try {
+                flushToDisk();
+            } catch (IOException e) {
+                System.err.println("Erro ao gravar o diário de sincronização: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Fecha o segmento ativo e abre o próximo; exige ioLock, o lock da classe e o buffer já gravado
+     */
+    private static void rollSegment() throws IOException {
+        closeChannel();
+        activeSegment++;
+        openActiveSegment();
+    }
+
+    private static void openActiveSegment() throws IOException {
+        channel = FileChannel.open(segmentPath(activeSegment),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        activeSegmentBytes = 0;
+        outstandingBySegment.putIfAbsent(activeSegment, 0);
+    }
+
+    /**
+     * Apaga, do mais antigo para o mais novo, os segmentos fechados sem pendências
+     * Um segmento só é apagado depois dos anteriores: a confirmação (C) de um funcionário pode
+     * estar em um segmento posterior ao do seu resultado
+     */
+    private static void compact() throws IOException {
+        while (!outstandingBySegment.isEmpty()) {
+            Map.Entry<Long, Integer> oldest = outstandingBySegment.firstEntry();
+            if (oldest.getKey() == activeSegment || oldest.getValue() > 0) {
+                return;
+            }
+            Files.deleteIfExists(segmentPath(oldest.getKey()));
+            outstandingBySegment.remove(oldest.getKey());
+            Metrics.counter("sync_journal_segments_compacted_total").increment();
+        }
+    }
+
+    private static Path segmentPath(long segment) {
+        return directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    private static void startFlusher() {
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "sync-journal");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = DatabaseConfig.getSyncJournalFsyncIntervalMillis();
+        flusher.scheduleWithFixedDelay(SyncJournal::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        Metrics.gauge("sync_journal_outstanding", SyncJournal::getOutstandingCount);
+    }
+
+    private static void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Erro ao fechar o segmento do diário: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,371 @@
+package com.empresa.integracao.database;
+
+import com.empresa.integracao.config.DatabaseConfig;
+import com.empresa.integracao.metrics.Metrics;
+import com.empresa.integracao.model.Employee;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Estado de sincronização local (sync.state.backend=local), para origens somente leitura ou
+ * em que a gravação do status pesa no banco: sincronizado, data, sys_id e hash do último envio
+ * de cada funcionário ficam em um arquivo mapeado em memória (sync.state.file), um por origem,
+ * em vez das colunas da tabela
+ *
+ * O arquivo tem um cabeçalho de 64 bytes (assinatura, versão, tamanho do registro e quantidade
+ * de registros) seguido de registros de 64 bytes na ordem de inclusão:
+ *   0 id (int), 4 flags, 5 tamanho do sys_id, 6 tamanho do hash, 8 data da sincronização
+ *   (epoch ms, long), 16 sys_id (32 bytes ASCII), 48 hash (16 bytes ASCII)
+ * O índice id -> registro é uma tabela de endereçamento aberto em int[], reconstruída ao abrir
+ * o arquivo; a consulta do status não aloca objetos nem acessa o disco
+ *
+ * Um registro novo é escrito antes de a quantidade no cabeçalho ser incrementada, de modo que
+ * uma queda no meio da escrita não deixa registro parcial visível. force() leva as páginas ao
+ * disco ao final de cada lote gravado, antes de o diário (SyncJournal) considerar as linhas
+ * confirmadas; uma sobrescrita interrompida é refeita pelo diário na recuperação
+ */
+public final class SyncStateStore implements AutoCloseable {
+    private static final int MAGIC = 0x53594e43;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_SIZE = 64;
+    private static final int COUNT_OFFSET = 12;
+
+    private static final int FLAGS = 4;
+    private static final int SYS_ID_LENGTH = 5;
+    private static final int HASH_LENGTH = 6;
+    private static final int SYNC_DATE = 8;
+    private static final int SYS_ID = 16;
+    private static final int HASH = 48;
+    private static final int MAX_SYS_ID = 32;
+    private static final int MAX_HASH = 16;
+    private static final byte SYNCED = 1;
+
+    /** Limite de um MappedByteBuffer (2 GB): cerca de 33 milhões de funcionários por arquivo */
+    private static final long MAX_RECORDS = (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE;
+
+    /** Estado aberto de cada origem (db.sources), no primeiro uso */
+    private static final Map<String, SyncStateStore> stores = new ConcurrentHashMap<>();
+
+    private final Path path;
+    private final FileChannel channel;
+    private final LongAdder writes;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int count;
+    private boolean dirty;
+
+    /** Índice: id em keys[i] e número do registro + 1 em records[i] (0 = posição vazia) */
+    private int[] keys;
+    private int[] records;
+    private int mask;
+
+    public static boolean isEnabled() {
+        return DatabaseConfig.isLocalSyncState();
+    }
+
+    /**
+     * Estado da origem atual (DatabaseConfig.useSource), aberto no primeiro uso
+     *
+     * @throws UncheckedIOException se o arquivo não puder ser aberto ou for inválido
+     */
+    public static SyncStateStore current() {
+        return stores.computeIfAbsent(DatabaseConfig.getCurrentSource(), SyncStateStore::open);
+    }
+
+    private static SyncStateStore open(String source) {
+        Path path = Paths.get(DatabaseConfig.getSyncStateFile());
+        try {
+            SyncStateStore store = new SyncStateStore(path, DatabaseConfig.getSyncStateInitialCapacity(),
+                    Metrics.counter("sync_state_writes_total", "source", source));
+            Metrics.gauge("sync_state_records", "source", source, store::size);
+            System.out.println("Estado de sincronização local: " + store.size() + " funcionários em " + path);
+            return store;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao abrir o estado de sincronização " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Leva ao disco e fecha os arquivos de todas as origens
+     */
+    public static void closeAll() {
+        for (SyncStateStore store : stores.values()) {
+            store.close();
+        }
+        stores.clear();
+    }
+
+    private SyncStateStore(Path path, int initialCapacity, LongAdder writes) throws IOException {
+        this.path = path;
+        this.writes = writes;
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        long size = channel.size();
+        if (size == 0) {
+            map(initialCapacity);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, RECORD_SIZE);
+            buffer.putInt(COUNT_OFFSET, 0);
+            buffer.force();
+        } else {
+            if (size < HEADER_SIZE) {
+                channel.close();
+                throw new IOException("arquivo truncado (" + size + " bytes)");
+            }
+            map((int) Math.min(MAX_RECORDS, (size - HEADER_SIZE) / RECORD_SIZE));
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != RECORD_SIZE) {
+                channel.close();
+                throw new IOException("assinatura ou versão desconhecida");
+            }
+            count = buffer.getInt(COUNT_OFFSET);
+            if (count < 0 || count > capacity) {
+                channel.close();
+                throw new IOException("quantidade de registros inválida: " + count);
+            }
+        }
+        rebuildIndex();
+    }
+
+    /**
+     * Mapeia o cabeçalho e a quantidade de registros informada, estendendo o arquivo se preciso
+     */
+    private void map(int recordCapacity) throws IOException {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) recordCapacity * RECORD_SIZE);
+        capacity = recordCapacity;
+    }
+
+    /**
+     * Verifica se o funcionário está marcado como sincronizado
+     */
+    public synchronized boolean isSynced(int id) {
+        int record = find(id);
+        return record >= 0 && (buffer.get(offset(record) + FLAGS) & SYNCED) != 0;
+    }
+
+    /**
+     * sys_id gravado para o funcionário, ou null
+     */
+    public synchronized String getSysId(int id) {
+        int record = find(id);
+        return record < 0 ? null : readAscii(offset(record), SYS_ID, SYS_ID_LENGTH);
+    }
+
+    /**
+     * Copia para o funcionário lido do banco o estado gravado: sincronizado, sys_id e hash
+     * Funcionários sem registro ficam pendentes
+     */
+    public synchronized void apply(Employee employee) {
+        int record = find(employee.getId());
+        if (record < 0) {
+            employee.setSyncedToServiceNow(false);
+            return;
+        }
+        int base = offset(record);
+        employee.setSyncedToServiceNow((buffer.get(base + FLAGS) & SYNCED) != 0);
+        employee.setServiceNowSysId(readAscii(base, SYS_ID, SYS_ID_LENGTH));
+        employee.setLastPushedHash(readAscii(base, HASH, HASH_LENGTH));
+    }
+
+    /**
+     * Grava o estado do funcionário, incluindo o registro ou sobrescrevendo o existente
+     *
+     * @throws IllegalArgumentException se o sys_id ou o hash não couberem no registro
+     */
+    public synchronized void put(int id, boolean synced, long syncDateMillis, String sysId, String hash) {
+        byte[] sysIdBytes = ascii(sysId, MAX_SYS_ID, "sys_id");
+        byte[] hashBytes = ascii(hash, MAX_HASH, "hash");
+
+        int record = find(id);
+        boolean added = record < 0;
+        if (added) {
+            if (count == capacity) {
+                grow();
+            }
+            record = count;
+        }
+
+        int base = offset(record);
+        buffer.putInt(base, id);
+        buffer.putLong(base + SYNC_DATE, syncDateMillis);
+        writeAscii(base + SYS_ID, sysIdBytes, MAX_SYS_ID);
+        writeAscii(base + HASH, hashBytes, MAX_HASH);
+        buffer.put(base + SYS_ID_LENGTH, (byte) sysIdBytes.length);
+        buffer.put(base + HASH_LENGTH, (byte) hashBytes.length);
+        buffer.put(base + FLAGS, synced ? SYNCED : 0);
+
+        if (added) {
+            // O registro só passa a existir depois de escrito por inteiro
+            count++;
+            buffer.putInt(COUNT_OFFSET, count);
+            index(id, record);
+        }
+        dirty = true;
+        writes.increment();
+    }
+
+    /**
+     * Substitui apenas o sys_id; funcionários sem registro são incluídos como pendentes
+     */
+    public synchronized void putSysId(int id, String sysId) {
+        int record = find(id);
+        if (record < 0) {
+            put(id, false, 0L, sysId, null);
+            return;
+        }
+        int base = offset(record);
+        byte[] sysIdBytes = ascii(sysId, MAX_SYS_ID, "sys_id");
+        writeAscii(base + SYS_ID, sysIdBytes, MAX_SYS_ID);
+        buffer.put(base + SYS_ID_LENGTH, (byte) sysIdBytes.length);
+        dirty = true;
+        writes.increment();
+    }
+
+    /**
+     * Leva ao disco as páginas alteradas desde a última chamada
+     */
+    public synchronized void force() {
+        if (!dirty) {
+            return;
+        }
+        long start = System.nanoTime();
+        buffer.force();
+        dirty = false;
+        Metrics.timer("sync_state_force_seconds").recordSince(start);
+    }
+
+    public synchronized int size() {
+        return count;
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            force();
+            channel.close();
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Erro ao fechar o estado de sincronização " + path + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "[arquivo=" + path + ", funcionários=" + size() + ", capacidade=" + capacity + "]";
+    }
+
+    /**
+     * Dobra o arquivo (e o mapeamento) quando todos os registros estão ocupados
+     */
+    private void grow() {
+        long larger = Math.min(MAX_RECORDS, (long) capacity * 2);
+        if (larger <= capacity) {
+            throw new IllegalStateException("Estado de sincronização cheio: " + MAX_RECORDS + " funcionários em " + path);
+        }
+        try {
+            buffer.force();
+            map((int) larger);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao ampliar o estado de sincronização " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static int offset(int record) {
+        return HEADER_SIZE + record * RECORD_SIZE;
+    }
+
+    private int slot(int id) {
+        int h = id * 0x9e3779b9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Número do registro do funcionário, ou -1
+     */
+    private int find(int id) {
+        for (int i = slot(id); ; i = (i + 1) & mask) {
+            if (records[i] == 0) {
+                return -1;
+            }
+            if (keys[i] == id) {
+                return records[i] - 1;
+            }
+        }
+    }
+
+    private void index(int id, int record) {
+        // Mantém a ocupação abaixo de 3/4 para sondagens curtas
+        if ((long) count * 4 > (long) keys.length * 3) {
+            rebuildIndex();
+            return;
+        }
+        insert(id, record);
+    }
+
+    private void insert(int id, int record) {
+        int i = slot(id);
+        while (records[i] != 0 && keys[i] != id) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = id;
+        records[i] = record + 1;
+    }
+
+    /**
+     * Recria o índice a partir dos registros do arquivo, com folga para crescer
+     */
+    private void rebuildIndex() {
+        int size = 16;
+        while ((long) size * 3 < (long) count * 8) {
+            size <<= 1;
+        }
+        keys = new int[size];
+        records = new int[size];
+        mask = size - 1;
+        for (int record = 0; record < count; record++) {
+            insert(buffer.getInt(offset(record)), record);
+        }
+    }
+
+    private String readAscii(int base, int field, int lengthField) {
+        int length = buffer.get(base + lengthField);
+        if (length <= 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(base + field, bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    private void writeAscii(int position, byte[] bytes, int width) {
+        buffer.put(position, bytes);
+        for (int i = bytes.length; i < width; i++) {
+            buffer.put(position + i, (byte) 0);
+        }
+    }
+
+    private static byte[] ascii(String value, int max, String field) {
+        if (value == null) {
+            return new byte[0];
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        if (bytes.length > max) {
+            throw new IllegalArgumentException(field + " com mais de " + max + " caracteres: " + value);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,117 @@
+package com.empresa.integracao.database;
+
+import com.empresa.integracao.config.DatabaseConfig;
+import com.empresa.integracao.metrics.LatencyHistogram;
+import com.empresa.integracao.metrics.Metrics;
+import com.empresa.integracao.metrics.SyncLog;
+import com.empresa.integracao.model.Employee;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffer de gravação do status de sincronização (write-behind)
+ * Acumula funcionários sincronizados e grava em lote a cada N linhas ou T milissegundos,
+ * sempre na origem em que o buffer foi criado
+ */
+public class SyncStatusWriter implements AutoCloseable {
+    private final String source;
+    private final int flushSize;
+    private final List<Employee> buffer = new ArrayList<>();
+    private final ScheduledExecutorService timer;
+    private final Map<Integer, String> failures = Collections.synchronizedMap(new LinkedHashMap<>());
+    private int writtenCount;
+
+    public SyncStatusWriter() {
+        this(DatabaseConfig.getBatchSize(), DatabaseConfig.getBatchFlushIntervalMillis());
+    }
+
+    public SyncStatusWriter(int flushSize, long flushIntervalMillis) {
+        this.source = DatabaseConfig.getCurrentSource();
+        this.flushSize = Math.max(1, flushSize);
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "sync-status-writer");
+            t.setDaemon(true);
+            return t;
+        });
+        if (flushIntervalMillis > 0) {
+            timer.scheduleWithFixedDelay(this::flushQuietly,
+                    flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Enfileira um funcionário sincronizado; grava o lote quando atinge o tamanho configurado
+     */
+    public synchronized void add(Employee employee) {
+        buffer.add(employee);
+        if (buffer.size() >= flushSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Grava imediatamente o que estiver no buffer
+     */
+    public synchronized void flush() {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        List<Employee> pending = new ArrayList<>(buffer);
+        buffer.clear();
+
+        // Com processamento paralelo a ordem de chegada varia; grava sempre em ordem de id
+        pending.sort(Comparator.comparingInt(Employee::getId));
+
+        DatabaseManager.BatchResult result =
+            DatabaseConfig.withSource(source, () -> DatabaseManager.updateEmployeeSyncStatusBatch(pending));
+        writtenCount += result.successCount;
+        Metrics.counter("sync_source_written_total", "source", source).add(result.successCount);
+        
+        // Atraso da origem: da leitura da linha até a confirmação do status no banco
+        long now = System.nanoTime();
+        LatencyHistogram lag = Metrics.timer("sync_source_lag_seconds", "source", source);
+        for (Employee employee : pending) {
+            if (employee.getExtractedAtNanos() != 0 && !result.failures.containsKey(employee.getId())) {
+                lag.recordNanos(now - employee.getExtractedAtNanos());
+            }
+        }
+        for (Map.Entry<Integer, String> failure : result.failures.entrySet()) {
+            failures.put(failure.getKey(), failure.getValue());
+            SyncLog.error("status.erro", "Falha ao gravar status do funcionário " + failure.getKey() + ": " + failure.getValue());
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            System.err.println("Erro na gravação periódica do status: " + e.getMessage());
+        }
+    }
+
+    public synchronized int getWrittenCount() {
+        return writtenCount;
+    }
+
+    public Map<Integer, String> getFailures() {
+        synchronized (failures) {
+            return new LinkedHashMap<>(failures);
+        }
+    }
+
+    /**
+     * Grava o restante do buffer e encerra o temporizador
+     */
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        flush();
+    }
+}
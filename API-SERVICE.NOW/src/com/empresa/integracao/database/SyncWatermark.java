@@ -0,0 +1,133 @@
+package com.empresa.integracao.database;
+
+import com.empresa.integracao.config.DatabaseConfig;
+import com.empresa.integracao.model.Employee;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Properties;
+
+/**
+ * Marca d'água da sincronização incremental: última posição (marcador de alteração, id) processada
+ * Persistida em um arquivo local, gravado de forma atômica ao final de cada execução
+ */
+public class SyncWatermark implements Comparable<SyncWatermark> {
+    private static final String VERSION_KEY = "versao";
+    private static final String ID_KEY = "id";
+
+    private final Object version;
+    private final int id;
+
+    private SyncWatermark(Object version, int id) {
+        this.version = version;
+        this.id = id;
+    }
+
+    /**
+     * Posição anterior a qualquer linha (primeira execução)
+     */
+    public static SyncWatermark initial() {
+        Object version = DatabaseConfig.isChangeTrackingByRowVersion()
+            ? (Object) Long.MIN_VALUE
+            : new Timestamp(0L);
+        return new SyncWatermark(version, Integer.MIN_VALUE);
+    }
+
+    /**
+     * Posição da linha do funcionário (marcador de alteração lido do banco)
+     */
+    public static SyncWatermark of(Employee employee) {
+        Object version = employee.getChangeVersion();
+        return version == null ? initial() : new SyncWatermark(version, employee.getId());
+    }
+
+    /**
+     * Posição imediatamente anterior a esta, para reprocessar a própria linha
+     * na próxima execução (usada quando a linha falhou)
+     */
+    public SyncWatermark justBefore() {
+        return new SyncWatermark(version, id == Integer.MIN_VALUE ? id : id - 1);
+    }
+
+    /**
+     * Lê a marca d'água persistida ou retorna a inicial
+     */
+    public static SyncWatermark load() {
+        Path file = Paths.get(DatabaseConfig.getSyncWatermarkFile());
+        if (!Files.exists(file)) {
+            return initial();
+        }
+        Properties props = new Properties();
+        try (InputStream input = Files.newInputStream(file)) {
+            props.load(input);
+            String version = props.getProperty(VERSION_KEY);
+            int id = Integer.parseInt(props.getProperty(ID_KEY, String.valueOf(Integer.MIN_VALUE)));
+            return new SyncWatermark(DatabaseConfig.isChangeTrackingByRowVersion()
+                ? (Object) Long.parseLong(version)
+                : Timestamp.valueOf(version), id);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Marca d'água inválida em " + file + ", reiniciando do início: " + e.getMessage());
+            return initial();
+        }
+    }
+
+    /**
+     * Grava a marca d'água em arquivo temporário e o move sobre o anterior
+     */
+    public void save() throws IOException {
+        Path file = Paths.get(DatabaseConfig.getSyncWatermarkFile()).toAbsolutePath();
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Properties props = new Properties();
+        props.setProperty(VERSION_KEY, version.toString());
+        props.setProperty(ID_KEY, String.valueOf(id));
+        try (OutputStream output = Files.newOutputStream(temp)) {
+            props.store(output, "Marca d'água da sincronização incremental");
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Paginação a partir desta posição para EmployeeQueries.changedSincePage()
+     */
+    public EmployeeCursor.Keyset keyset() {
+        return new EmployeeCursor.Keyset() {
+            private SyncWatermark position = SyncWatermark.this;
+
+            @Override
+            public void bind(PreparedStatement pstmt) throws SQLException {
+                pstmt.setObject(1, position.version);
+                pstmt.setObject(2, position.version);
+                pstmt.setInt(3, position.id);
+            }
+
+            @Override
+            public void advance(Employee employee) {
+                position = of(employee);
+            }
+
+            @Override
+            public String toString() {
+                return position.toString();
+            }
+        };
+    }
+
+    @Override
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public int compareTo(SyncWatermark other) {
+        int byVersion = ((Comparable) version).compareTo(other.version);
+        return byVersion != 0 ? byVersion : Integer.compare(id, other.id);
+    }
+
+    @Override
+    public String toString() {
+        return "(" + version + ", id " + id + ")";
+    }
+}
@@ -0,0 +1,342 @@
+package com.empresa.integracao.database;
+
+import com.empresa.integracao.config.DatabaseConfig;
+import com.empresa.integracao.model.Employee;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reserva (claim) de funcionários pendentes para execução em vários nós ao mesmo tempo
+ * Cada nó marca as linhas que vai processar com seu id e um prazo (lease); outro nó só pega
+ * a linha depois que o prazo vence, o que cobre nós que caíram no meio da execução.
+ * Prazos são gravados e comparados pelo relógio do banco, não pelo de cada nó.
+ * Com SELECT ... FOR UPDATE SKIP LOCKED (PostgreSQL, MySQL 8+, MariaDB 10.6+) os nós pulam as
+ * linhas que outro está reservando; nos demais bancos a reserva é um UPDATE condicional ao
+ * prazo vencido, que só um nó consegue aplicar em cada linha (combine com sync.shard.count
+ * para que os nós não disputem as mesmas linhas)
+ * As demais leituras (alterações, tabela de falhas, funcionário por id) reservam linha a linha
+ * pelo id (RowClaims): a linha com reserva vigente de outro nó fica com ele
+ */
+public class WorkClaimer implements Iterator<Employee>, AutoCloseable {
+    private final String nodeId;
+    private final int batchSize;
+    private final long leaseMillis;
+    private final int leaseSeconds;
+    private final ArrayDeque<Employee> claimed = new ArrayDeque<>();
+    private final ScheduledExecutorService renewer;
+    private Boolean skipLocked;
+    private boolean exhausted;
+    private boolean closed;
+
+    // Métricas
+    private long claimedCount;
+    private long conflictCount;
+
+    public WorkClaimer() {
+        this(DatabaseConfig.getSyncNodeId(), DatabaseConfig.getSyncClaimBatchSize(), DatabaseConfig.getSyncClaimLeaseMillis());
+    }
+
+    public WorkClaimer(String nodeId, int batchSize, long leaseMillis) {
+        this.nodeId = nodeId;
+        this.batchSize = Math.max(1, batchSize);
+        this.leaseMillis = Math.max(1000L, leaseMillis);
+        this.leaseSeconds = leaseSeconds(this.leaseMillis);
+        // A renovação roda em outra thread, na origem em que as linhas foram reservadas
+        String source = DatabaseConfig.getCurrentSource();
+        this.renewer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(() -> DatabaseConfig.withSource(source, r), "sync-reserva-" + source);
+            t.setDaemon(true);
+            return t;
+        });
+        // Renova as reservas em andamento a cada terço do prazo
+        long renewEvery = this.leaseMillis / 3;
+        renewer.scheduleWithFixedDelay(this::renewQuietly, renewEvery, renewEvery, TimeUnit.MILLISECONDS);
+        System.out.println("Reserva de linhas ativa: nó " + nodeId + ", prazo de " + this.leaseMillis / 1000 + " s");
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (claimed.isEmpty() && !exhausted) {
+            claimed.addAll(claimNext());
+            if (claimed.isEmpty()) {
+                exhausted = true;
+            }
+        }
+        return !claimed.isEmpty();
+    }
+
+    @Override
+    public Employee next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return claimed.poll();
+    }
+
+    /**
+     * Reserva o próximo lote para este nó; lista vazia quando não há pendentes livres
+     *
+     * @throws IllegalStateException se a reserva falhou (a leitura é encerrada como erro)
+     */
+    public List<Employee> claimNext() {
+        try (Connection conn = DatabaseManager.getConnection()) {
+            if (skipLocked == null) {
+                skipLocked = supportsSkipLocked(conn.getMetaData());
+                System.out.println("Reserva por " + (skipLocked ? "FOR UPDATE SKIP LOCKED" : "UPDATE condicional"));
+            }
+            String product = DatabaseManager.getDatabaseProduct();
+            List<Employee> batch = skipLocked ? claimSkipLocked(conn, product) : claimConditional(conn, product);
+            claimedCount += batch.size();
+            return batch;
+        } catch (SQLException e) {
+            // Encerra a leitura; as linhas não reservadas ficam para os outros nós ou a próxima execução
+            exhausted = true;
+            throw new IllegalStateException("Erro ao reservar funcionários: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Seleciona e bloqueia o lote na mesma transação, pulando linhas bloqueadas por outros nós,
+     * e grava a reserva antes do commit
+     */
+    private List<Employee> claimSkipLocked(Connection conn, String product) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            List<Employee> batch = selectCandidates(conn, EmployeeQueries.claimCandidates(product, true, batchSize));
+            if (!batch.isEmpty()) {
+                try (PreparedStatement update = conn.prepareStatement(EmployeeQueries.claimLease(product, false))) {
+                    for (Employee employee : batch) {
+                        update.setString(1, nodeId);
+                        update.setInt(2, leaseSeconds);
+                        update.setInt(3, employee.getId());
+                        update.addBatch();
+                    }
+                    update.executeBatch();
+                }
+            }
+            conn.commit();
+            return batch;
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Lê candidatos sem bloqueio e reserva cada um com UPDATE condicional ao prazo vencido;
+     * as linhas em que outro nó chegou antes (0 linhas afetadas) ficam de fora
+     */
+    private List<Employee> claimConditional(Connection conn, String product) throws SQLException {
+        List<Employee> claimedBatch = new ArrayList<>();
+        while (claimedBatch.isEmpty()) {
+            List<Employee> candidates = selectCandidates(conn, EmployeeQueries.claimCandidates(product, false, batchSize));
+            if (candidates.isEmpty()) {
+                return claimedBatch;
+            }
+
+            try (PreparedStatement update = conn.prepareStatement(EmployeeQueries.claimLease(product, true))) {
+                for (Employee employee : candidates) {
+                    update.setString(1, nodeId);
+                    update.setInt(2, leaseSeconds);
+                    update.setInt(3, employee.getId());
+                    if (update.executeUpdate() == 1) {
+                        claimedBatch.add(employee);
+                    } else {
+                        conflictCount++;
+                    }
+                }
+            }
+        }
+        return claimedBatch;
+    }
+
+    private List<Employee> selectCandidates(Connection conn, String sql) throws SQLException {
+        List<Employee> candidates = new ArrayList<>(batchSize);
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setMaxRows(batchSize);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                EmployeeTableSchema.ColumnIndexes columns = EmployeeTableSchema.ColumnIndexes.resolve(rs.getMetaData());
+                while (rs.next()) {
+                    candidates.add(DatabaseManager.mapResultSetToEmployee(rs, columns));
+                }
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * SKIP LOCKED com LIMIT: PostgreSQL 9.5+, MySQL 8+ e MariaDB 10.6+
+     */
+    static boolean supportsSkipLocked(DatabaseMetaData metaData) throws SQLException {
+        String product = metaData.getDatabaseProductName().toLowerCase();
+        int major = metaData.getDatabaseMajorVersion();
+        int minor = metaData.getDatabaseMinorVersion();
+        if (product.contains("postgres")) {
+            return major > 9 || (major == 9 && minor >= 5);
+        }
+        if (product.contains("mariadb") || metaData.getDatabaseProductVersion().toLowerCase().contains("mariadb")) {
+            return major > 10 || (major == 10 && minor >= 6);
+        }
+        if (product.contains("mysql")) {
+            return major >= 8;
+        }
+        return false;
+    }
+
+    /**
+     * Prazo da reserva em segundos inteiros, arredondado para cima
+     */
+    static int leaseSeconds(long leaseMillis) {
+        return (int) Math.min(Integer.MAX_VALUE, (leaseMillis + 999) / 1000);
+    }
+
+    private void renewQuietly() {
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(EmployeeQueries.renewLeases(DatabaseManager.getDatabaseProduct()))) {
+            pstmt.setInt(1, leaseSeconds);
+            pstmt.setString(2, nodeId);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            System.err.println("Erro ao renovar reservas do nó " + nodeId + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reserva é usada: sync.claim.mode=lease com o estado no banco
+     */
+    public static boolean isActive() {
+        return DatabaseConfig.isSyncClaimEnabled() && !SyncStateStore.isEnabled();
+    }
+
+    /**
+     * Reserva uma a uma as linhas de uma leitura que não é a de pendentes; as reservadas
+     * por outro nó são descartadas e fechar o Stream libera as reservas feitas
+     * Sem reserva ativa devolve o próprio Stream
+     */
+    public static Stream<Employee> claimEach(Stream<Employee> employees) {
+        if (!isActive()) {
+            return employees;
+        }
+        RowClaims claims = new RowClaims();
+        return employees.filter(employee -> claims.claim(employee.getId())).onClose(claims::close);
+    }
+
+    /**
+     * Reservas por id, na origem atual; close libera as que ainda forem deste nó
+     * Sem reserva ativa toda linha é considerada reservada
+     */
+    public static final class RowClaims implements AutoCloseable {
+        private final String source = DatabaseConfig.getCurrentSource();
+        private final String nodeId = DatabaseConfig.getSyncNodeId();
+        private final long leaseMillis = Math.max(1000L, DatabaseConfig.getSyncClaimLeaseMillis());
+        private final boolean active = isActive();
+        private final List<Integer> claimedIds = new ArrayList<>();
+
+        /**
+         * @return true se a linha ficou reservada para este nó; false se outro nó a reservou
+         * @throws IllegalStateException se a reserva não pôde ser gravada (a leitura é encerrada)
+         */
+        public synchronized boolean claim(int employeeId) {
+            if (!active) {
+                return true;
+            }
+            try {
+                boolean claimed = DatabaseConfig.withSource(source, () -> {
+                    try (Connection conn = DatabaseManager.getConnection();
+                         PreparedStatement pstmt = conn.prepareStatement(
+                             EmployeeQueries.claimLease(DatabaseManager.getDatabaseProduct(), true))) {
+                        pstmt.setString(1, nodeId);
+                        pstmt.setInt(2, leaseSeconds(leaseMillis));
+                        pstmt.setInt(3, employeeId);
+                        return pstmt.executeUpdate() == 1;
+                    }
+                });
+                if (claimed) {
+                    claimedIds.add(employeeId);
+                }
+                return claimed;
+            } catch (SQLException e) {
+                throw new IllegalStateException("Erro ao reservar o funcionário " + employeeId + ": " + e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public synchronized void close() {
+            if (claimedIds.isEmpty()) {
+                return;
+            }
+            try {
+                DatabaseConfig.withSource(source, () -> {
+                    try (Connection conn = DatabaseManager.getConnection();
+                         PreparedStatement pstmt = conn.prepareStatement(EmployeeQueries.releaseLease())) {
+                        for (Integer id : claimedIds) {
+                            pstmt.setInt(1, id);
+                            pstmt.setString(2, nodeId);
+                            pstmt.addBatch();
+                        }
+                        return pstmt.executeBatch();
+                    }
+                });
+            } catch (SQLException e) {
+                System.err.println("Erro ao liberar reservas; elas vencem em " + leaseMillis / 1000 + " s: " + e.getMessage());
+            }
+            claimedIds.clear();
+        }
+    }
+
+    /**
+     * Expõe as reservas como Stream; fechar o Stream libera as reservas restantes
+     */
+    public Stream<Employee> stream() {
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+            .onClose(this::close);
+    }
+
+    @Override
+    public String toString() {
+        return "[nó=" + nodeId + ", reservados=" + claimedCount + ", conflitos=" + conflictCount + "]";
+    }
+
+    /**
+     * Interrompe a renovação e libera as reservas deste nó que continuam pendentes
+     * (falhas e linhas não processadas), para que qualquer nó as pegue sem esperar o prazo
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        exhausted = true;
+        claimed.clear();
+        renewer.shutdownNow();
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(EmployeeQueries.releaseLeases())) {
+            pstmt.setString(1, nodeId);
+            int released = pstmt.executeUpdate();
+            System.out.println("Reservas do nó " + nodeId + ": " + this + ", liberadas ao final: " + released);
+        } catch (SQLException e) {
+            System.err.println("Erro ao liberar reservas; elas vencem em " + leaseMillis / 1000 + " s: " + e.getMessage());
+        }
+    }
+}
@@ -1,26 +1,46 @@
+package com.empresa.integracao.main;
+
+import com.empresa.integracao.config.DatabaseConfig;
+import com.empresa.integracao.database.DatabaseManager;
+import com.empresa.integracao.database.SyncJournal;
+import com.empresa.integracao.metrics.Metrics;
+import com.empresa.integracao.metrics.MetricsEndpoint;
+import com.empresa.integracao.service.CronSchedule;
+import com.empresa.integracao.service.EmployeeSyncService;
+import com.empresa.integracao.service.Reconciler;
+import com.empresa.integracao.service.SyncDaemon;
+import com.empresa.integracao.servicenow.ServiceNowClient;
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.Scanner;
 
 /**
  * Classe principal com menu interativo para gerenciar a sincronização
+ * Sem argumentos abre o menu; com argumentos executa sem interação:
+ *   --sync              sincroniza os pendentes e termina
+ *   --incremental       sincroniza as alterações e termina
+ *   --replay            reprocessa a tabela de falhas e termina
+ *   --status EMAIL      mostra o status do funcionário e termina
+ *   --reconcile [--repair]  compara a tabela com o ServiceNow, grava o relatório e,
+ *                       com --repair, corrige os sys_ids desatualizados
+ *   --daemon            permanece em execução, sincronizando conforme a agenda (SyncDaemon)
+ * Códigos de saída: 0 sucesso, 1 falha na execução, 2 argumentos ou configuração inválidos,
+ * 3 reconciliação concluída com diferenças, 4 sincronização concluída com funcionários que falharam ou ficaram adiados
  */
 public class Main {
     public static void main(String[] args) {
+        if (args.length > 0) {
+            System.exit(runCommand(args));
+        }
+        
         try {
-            System.out.println("=== SISTEMA DE INTEGRAÇÃO SERVICE-NOW ===");
-            System.out.println("Conectando ao banco: " + DatabaseConfig.getDatabaseUrl());
-            
-            // Testa a conexão com o banco
-            if (!DatabaseManager.testConnection()) {
-                System.err.println("Não foi possível conectar ao banco de dados.");
-                System.err.println("Verifique as configurações em application.properties");
+            EmployeeSyncService syncService = initialize();
+            if (syncService == null) {
                 return;
             }
             
-            System.out.println("Conexão com o banco estabelecida com sucesso!");
-            
             // Menu interativo
             Scanner scanner = new Scanner(System.in);
-            EmployeeSyncService syncService = new EmployeeSyncService();
             
             while (true) {
                 System.out.println("\n=== MENU PRINCIPAL ===");
@@ -28,6 +48,9 @@ public class Main {
                 System.out.println("2. Verificar status de um funcionário por email");
                 System.out.println("3. Testar conexão com ServiceNow");
                 System.out.println("4. Sair");
+                System.out.println("5. Sincronizar alterações (incremental)");
+                System.out.println("6. Reprocessar funcionários com falha");
+                System.out.println("7. Reconciliar com o ServiceNow (relatório)");
                 System.out.print("Escolha uma opção: ");
                 
                 int choice;
@@ -54,7 +77,17 @@ public class Main {
                     case 4:
                         System.out.println("Saindo...");
                         scanner.close();
+                        DatabaseManager.shutdown();
                         return;
+                    case 5:
+                        syncService.syncIncrementalChanges();
+                        break;
+                    case 6:
+                        syncService.replayDeadLetters();
+                        break;
+                    case 7:
+                        syncService.reconcile(false);
+                        break;
                     default:
                         System.out.println("Opção inválida!");
                 }
@@ -66,6 +99,191 @@ public class Main {
         }
     }
     
+    /**
+     * Conecta ao banco, prepara a tabela e aquece o cache de usuários
+     * Com várias origens (db.sources) cada uma é preparada separadamente; as que falharem
+     * são informadas e ignoradas. Retorna null (após informar o motivo) se não for possível iniciar
+     */
+    private static EmployeeSyncService initialize() {
+        System.out.println("=== SISTEMA DE INTEGRAÇÃO SERVICE-NOW ===");
+        
+        int ready = 0;
+        for (String source : DatabaseConfig.getSourceNames()) {
+            if (DatabaseConfig.withSource(source, () -> initializeSource(source))) {
+                ready++;
+            }
+        }
+        if (ready == 0) {
+            return null;
+        }
+        
+        // Conclui as gravações de status interrompidas por uma queda da execução anterior
+        SyncJournal.recover();
+        
+        EmployeeSyncService syncService = new EmployeeSyncService();
+        syncService.warmUpUserCache();
+        startMetrics();
+        return syncService;
+    }
+    
+    /**
+     * Testa a conexão e prepara a tabela da origem atual
+     */
+    private static boolean initializeSource(String source) {
+        String label = DatabaseConfig.isMultiSource() ? " [" + source + "]" : "";
+        System.out.println("Conectando ao banco" + label + ": " + DatabaseConfig.getDatabaseUrl());
+        
+        // Testa a conexão com o banco
+        if (!DatabaseManager.testConnection()) {
+            System.err.println("Não foi possível conectar ao banco de dados" + label + ".");
+            System.err.println("Verifique as configurações em application.properties");
+            return false;
+        }
+        
+        System.out.println("Conexão com o banco estabelecida com sucesso!");
+        
+        // Lê a estrutura da tabela uma única vez e aplica as colunas de sincronização
+        if (!DatabaseManager.initializeSchema()) {
+            System.err.println("Verifique a configuração employee.table em application.properties" + label);
+            return false;
+        }
+        DatabaseManager.preparePendingQuery();
+        return true;
+    }
+    
+    /**
+     * Publica as métricas via JMX e, se configurado, no endpoint /metrics
+     */
+    private static void startMetrics() {
+        if (DatabaseConfig.isMetricsJmxEnabled()) {
+            Metrics.registerJmx();
+        }
+        int port = DatabaseConfig.getMetricsHttpPort();
+        if (port > 0) {
+            try {
+                MetricsEndpoint.start(DatabaseConfig.getMetricsHttpHost(), port);
+            } catch (IOException e) {
+                System.err.println("Não foi possível abrir o endpoint de métricas na porta " + port + ": " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Execução não interativa a partir dos argumentos da linha de comando
+     *
+     * @return código de saída: 0 sucesso, 1 falha na execução, 2 argumentos ou configuração inválidos,
+     *         3 reconciliação concluída com diferenças, 4 sincronização concluída com falhas ou adiados
+     */
+    private static int runCommand(String[] args) {
+        String command = args[0];
+        boolean known = command.equals("--sync") || command.equals("--incremental") ||
+                        command.equals("--replay") || command.equals("--daemon") || command.equals("--status") ||
+                        command.equals("--reconcile");
+        boolean validArgs = command.equals("--status") ? args.length == 2
+                          : command.equals("--reconcile") ? args.length == 1 || (args.length == 2 && args[1].equals("--repair"))
+                          : args.length == 1;
+        if (!known || !validArgs) {
+            printUsage();
+            return 2;
+        }
+        if (command.equals("--daemon") && !isDaemonScheduleValid()) {
+            return 2;
+        }
+        
+        EmployeeSyncService syncService;
+        try {
+            syncService = initialize();
+        } catch (RuntimeException e) {
+            System.err.println("Erro na inicialização: " + e.getMessage());
+            return 1;
+        }
+        if (syncService == null) {
+            return 1;
+        }
+        
+        if (command.equals("--daemon")) {
+            SyncDaemon daemon;
+            try {
+                daemon = new SyncDaemon(syncService);
+                daemon.start();
+            } catch (RuntimeException e) {
+                System.err.println("Erro ao iniciar o daemon: " + e.getMessage());
+                DatabaseManager.shutdown();
+                return 1;
+            }
+            try {
+                // O encerramento (SIGTERM/Ctrl+C) é feito pelo shutdown hook do daemon
+                daemon.awaitTermination();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 0;
+        }
+        
+        try {
+            switch (command) {
+                case "--sync":
+                    return exitCode(syncService.syncEmployeesToServiceNow());
+                case "--incremental":
+                    return exitCode(syncService.syncIncrementalChanges());
+                case "--replay":
+                    return exitCode(syncService.replayDeadLetters());
+                case "--reconcile":
+                    // 0 sem diferenças, 3 com diferenças no relatório, 1 se não concluiu
+                    Reconciler.Summary summary = syncService.reconcile(args.length == 2);
+                    if (summary == null || !summary.isComplete()) {
+                        return 1;
+                    }
+                    return summary.isConsistent() ? 0 : 3;
+                default:
+                    String status = syncService.checkSyncStatus(args[1]);
+                    System.out.println("Status: " + status);
+                    return status.startsWith("ERRO") ? 1 : 0;
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Erro na execução: " + e.getMessage());
+            return 1;
+        } finally {
+            DatabaseManager.shutdown();
+        }
+    }
+    
+    /**
+     * 0 sucesso, 4 concluída com funcionários que falharam ou adiados, 1 não executada
+     */
+    private static int exitCode(EmployeeSyncService.RunStatus status) {
+        switch (status) {
+            case SUCCESS:
+                return 0;
+            case PARTIAL:
+                return 4;
+            default:
+                return 1;
+        }
+    }
+    
+    /**
+     * Valida sync.daemon.cron antes de conectar ao banco: formato e existência de um próximo horário
+     */
+    private static boolean isDaemonScheduleValid() {
+        String expression = DatabaseConfig.getSyncDaemonCron();
+        if (expression == null) {
+            return true;
+        }
+        try {
+            new CronSchedule(expression).next(LocalDateTime.now());
+            return true;
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            System.err.println("sync.daemon.cron inválida: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    private static void printUsage() {
+        System.err.println("Uso: Main [--sync | --incremental | --replay | --daemon | --status EMAIL | --reconcile [--repair]]");
+        System.err.println("Sem argumentos abre o menu interativo.");
+    }
+    
     private static void testServiceNowConnection() {
         try {
             ServiceNowClient client = new ServiceNowClient();
@@ -0,0 +1,100 @@
+package com.empresa.integracao.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latência sem locks, em microssegundos, com baldes log-lineares
+ * Cada potência de 2 é dividida em 8 baldes, então os percentis têm erro relativo máximo
+ * de 12,5%, com memória fixa (512 contadores) e registro em O(1) por várias threads
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumMicros = new LongAdder();
+
+    /**
+     * Registra uma duração medida com System.nanoTime()
+     */
+    public void recordNanos(long nanos) {
+        recordMicros(TimeUnit.NANOSECONDS.toMicros(Math.max(0, nanos)));
+    }
+
+    /**
+     * Registra a duração desde "startNanos" (System.nanoTime() do início)
+     */
+    public void recordSince(long startNanos) {
+        recordNanos(System.nanoTime() - startNanos);
+    }
+
+    public void recordMicros(long micros) {
+        counts.incrementAndGet(bucketOf(Math.max(0, micros)));
+        count.increment();
+        sumMicros.add(micros);
+    }
+
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Maior valor que cai no balde (limite superior usado nos percentis)
+     */
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int magnitude = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        long lower = (SUB_BUCKETS + subBucket) << (magnitude - SUB_BUCKET_BITS);
+        return lower + (1L << (magnitude - SUB_BUCKET_BITS)) - 1;
+    }
+
+    /**
+     * Percentil (0 a 1) em microssegundos; 0 se não houver registros
+     */
+    public long percentileMicros(double quantile) {
+        long total = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return upperBoundOf(i);
+            }
+        }
+        return upperBoundOf(BUCKETS - 1);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSumMicros() {
+        return sumMicros.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "[n=" + getCount() + ", p50=" + percentileMicros(0.50) + "µs, p95=" + percentileMicros(0.95) +
+               "µs, p99=" + percentileMicros(0.99) + "µs]";
+    }
+}
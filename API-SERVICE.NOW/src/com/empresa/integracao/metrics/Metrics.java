@@ -0,0 +1,227 @@
+package com.empresa.integracao.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+/**
+ * Registro central de métricas da sincronização: contadores, histogramas de latência e
+ * medidores (gauges) lidos sob demanda
+ * Cada série é identificada pelo nome e por um rótulo opcional (por exemplo
+ * servicenow_responses_total{status="404"}). As métricas são expostas no formato texto
+ * do Prometheus (MetricsEndpoint) e via JMX (com.empresa.integracao:type=SyncMetrics)
+ */
+public class Metrics {
+    private static final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private static final Map<String, LatencyHistogram> timers = new ConcurrentHashMap<>();
+    private static final Map<String, DoubleSupplier> gauges = new ConcurrentHashMap<>();
+    private static final double[] QUANTILES = { 0.5, 0.95, 0.99 };
+
+    private Metrics() {}
+
+    public static LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, k -> new LongAdder());
+    }
+
+    public static LongAdder counter(String name, String label, String value) {
+        return counter(series(name, label, value));
+    }
+
+    public static LatencyHistogram timer(String name) {
+        return timers.computeIfAbsent(name, k -> new LatencyHistogram());
+    }
+
+    public static LatencyHistogram timer(String name, String label, String value) {
+        return timer(series(name, label, value));
+    }
+
+    /**
+     * Registra (ou substitui) um medidor lido a cada coleta
+     */
+    public static void gauge(String name, DoubleSupplier supplier) {
+        gauges.put(name, supplier);
+    }
+
+    public static void gauge(String name, String label, String value, DoubleSupplier supplier) {
+        gauge(series(name, label, value), supplier);
+    }
+
+    public static void gauge(String name, String label, String value, String label2, String value2,
+                             DoubleSupplier supplier) {
+        gauge(withLabel(series(name, label2, value2), label + "=\"" + escape(value) + "\""), supplier);
+    }
+
+    private static String series(String name, String label, String value) {
+        return name + "{" + label + "=\"" + escape(value) + "\"}";
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private static String baseName(String series) {
+        int brace = series.indexOf('{');
+        return brace < 0 ? series : series.substring(0, brace);
+    }
+
+    /**
+     * Acrescenta um rótulo a uma série, preservando os rótulos já existentes
+     */
+    private static String withLabel(String series, String label) {
+        int brace = series.indexOf('{');
+        if (brace < 0) {
+            return series + "{" + label + "}";
+        }
+        return series.substring(0, brace) + "{" + label + "," + series.substring(brace + 1);
+    }
+
+    private static String withSuffix(String series, String suffix) {
+        int brace = series.indexOf('{');
+        return brace < 0 ? series + suffix : series.substring(0, brace) + suffix + series.substring(brace);
+    }
+
+    /**
+     * Todas as séries no formato de exposição texto do Prometheus (versão 0.0.4)
+     * Histogramas são expostos como summary em segundos, com quantis 0.5, 0.95 e 0.99
+     */
+    public static String toPrometheusText() {
+        StringBuilder out = new StringBuilder(4096);
+        appendFamily(out, new TreeMap<>(counters), "counter", (sb, series, adder) ->
+            sb.append(series).append(' ').append(adder.sum()).append('\n'));
+        appendFamily(out, new TreeMap<>(gauges), "gauge", (sb, series, supplier) ->
+            sb.append(series).append(' ').append(readGauge(supplier)).append('\n'));
+        appendFamily(out, new TreeMap<>(timers), "summary", (sb, series, histogram) -> {
+            for (double quantile : QUANTILES) {
+                sb.append(withLabel(series, "quantile=\"" + quantile + "\"")).append(' ')
+                  .append(histogram.percentileMicros(quantile) / 1_000_000.0).append('\n');
+            }
+            sb.append(withSuffix(series, "_sum")).append(' ').append(histogram.getSumMicros() / 1_000_000.0).append('\n');
+            sb.append(withSuffix(series, "_count")).append(' ').append(histogram.getCount()).append('\n');
+        });
+        return out.toString();
+    }
+
+    private interface SeriesWriter<T> {
+        void write(StringBuilder out, String series, T value);
+    }
+
+    private static <T> void appendFamily(StringBuilder out, Map<String, T> series, String type, SeriesWriter<T> writer) {
+        String currentFamily = null;
+        for (Map.Entry<String, T> entry : series.entrySet()) {
+            String family = baseName(entry.getKey());
+            if (!family.equals(currentFamily)) {
+                out.append("# TYPE ").append(family).append(' ').append(type).append('\n');
+                currentFamily = family;
+            }
+            writer.write(out, entry.getKey(), entry.getValue());
+        }
+    }
+
+    private static double readGauge(DoubleSupplier supplier) {
+        try {
+            return supplier.getAsDouble();
+        } catch (RuntimeException e) {
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Valores atuais achatados por nome (contadores, medidores e p50/p95/p99/count dos
+     * histogramas, em microssegundos), usados pelo JMX
+     */
+    public static Map<String, Object> snapshot() {
+        Map<String, Object> values = new TreeMap<>();
+        counters.forEach((series, adder) -> values.put(series, adder.sum()));
+        gauges.forEach((series, supplier) -> values.put(series, readGauge(supplier)));
+        timers.forEach((series, histogram) -> {
+            values.put(series + ".p50_us", histogram.percentileMicros(0.50));
+            values.put(series + ".p95_us", histogram.percentileMicros(0.95));
+            values.put(series + ".p99_us", histogram.percentileMicros(0.99));
+            values.put(series + ".count", histogram.getCount());
+        });
+        return values;
+    }
+
+    /**
+     * Publica as métricas no MBeanServer da plataforma (visíveis no JConsole/VisualVM)
+     */
+    public static void registerJmx() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("com.empresa.integracao:type=SyncMetrics");
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new MetricsMBean(), name);
+            }
+        } catch (JMException e) {
+            System.err.println("Não foi possível registrar as métricas no JMX: " + e.getMessage());
+        }
+    }
+
+    /**
+     * MBean dinâmico: cada série é um atributo somente leitura, criado conforme as métricas
+     * vão sendo registradas
+     */
+    private static final class MetricsMBean implements DynamicMBean {
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            Object value = snapshot().get(attribute);
+            if (value == null) {
+                throw new AttributeNotFoundException(attribute);
+            }
+            return value;
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            Map<String, Object> values = snapshot();
+            AttributeList list = new AttributeList();
+            for (String attribute : attributes) {
+                if (values.containsKey(attribute)) {
+                    list.add(new Attribute(attribute, values.get(attribute)));
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> attributes = new ArrayList<>();
+            for (Map.Entry<String, Object> entry : snapshot().entrySet()) {
+                attributes.add(new MBeanAttributeInfo(entry.getKey(), entry.getValue().getClass().getName(),
+                                                      entry.getKey(), true, false, false));
+            }
+            return new MBeanInfo(Metrics.class.getName(), "Métricas da sincronização ServiceNow",
+                                 attributes.toArray(new MBeanAttributeInfo[0]), null, null, null);
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException("Atributos somente leitura: " + attribute.getName());
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+            throw new ReflectionException(new NoSuchMethodException(actionName), "MBean sem operações: " + actionName);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.empresa.integracao.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+/**
+ * Endpoint HTTP GET /metrics no formato texto do Prometheus
+ * Roda em uma única thread daemon; a coleta só lê contadores, então não disputa com a
+ * sincronização
+ */
+public class MetricsEndpoint {
+    private static volatile HttpServer server;
+
+    private MetricsEndpoint() {}
+
+    public static synchronized void start(String host, int port) throws IOException {
+        if (server != null) {
+            return;
+        }
+        HttpServer created = HttpServer.create(new InetSocketAddress(host, port), 0);
+        created.setExecutor(Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "metricas-http");
+            t.setDaemon(true);
+            return t;
+        }));
+        created.createContext("/metrics", MetricsEndpoint::handle);
+        created.start();
+        server = created;
+        System.out.println("Métricas Prometheus em http://" + host + ":" + created.getAddress().getPort() + "/metrics");
+    }
+
+    private static void handle(HttpExchange exchange) throws IOException {
+        int status = 200;
+        byte[] body;
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            status = 405;
+            body = new byte[0];
+        } else {
+            body = Metrics.toPrometheusText().getBytes(StandardCharsets.UTF_8);
+        }
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    public static synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.empresa.integracao.metrics;
+
+import com.empresa.integracao.config.DatabaseConfig;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Log da sincronização com níveis (log.level: DEBUG, INFO, WARN, ERROR) e limite de taxa
+ * As mensagens por funcionário usam debug(), desligado por padrão, pois imprimir cada linha
+ * custa caro em execuções grandes. Avisos e erros repetitivos usam uma chave: cada chave
+ * imprime no máximo log.rate.limit mensagens por minuto e a seguinte informa quantas foram
+ * suprimidas
+ */
+public class SyncLog {
+    public enum Level { DEBUG, INFO, WARN, ERROR }
+
+    private static final long WINDOW_MILLIS = 60_000L;
+    private static final Level level = parseLevel(DatabaseConfig.getLogLevel());
+    private static final int limitPerWindow = DatabaseConfig.getLogRateLimit();
+    private static final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    private SyncLog() {}
+
+    public static boolean isEnabled(Level messageLevel) {
+        return messageLevel.compareTo(level) >= 0;
+    }
+
+    public static boolean isDebugEnabled() {
+        return isEnabled(Level.DEBUG);
+    }
+
+    public static void debug(String message) {
+        if (isEnabled(Level.DEBUG)) {
+            System.out.println(message);
+        }
+    }
+
+    public static void info(String message) {
+        if (isEnabled(Level.INFO)) {
+            System.out.println(message);
+        }
+    }
+
+    public static void warn(String message) {
+        if (isEnabled(Level.WARN)) {
+            System.err.println(message);
+        }
+    }
+
+    public static void error(String message) {
+        System.err.println(message);
+    }
+
+    /**
+     * Aviso limitado por chave (por exemplo "processamento.erro")
+     */
+    public static void warn(String key, String message) {
+        if (isEnabled(Level.WARN)) {
+            limited(key, message);
+        }
+    }
+
+    /**
+     * Erro limitado por chave; a contagem total fica nas métricas (sync_log_suppressed_total)
+     */
+    public static void error(String key, String message) {
+        limited(key, message);
+    }
+
+    private static void limited(String key, String message) {
+        if (limitPerWindow <= 0) {
+            System.err.println(message);
+            return;
+        }
+        long suppressed = windows.computeIfAbsent(key, k -> new Window()).tryAcquire(limitPerWindow);
+        if (suppressed < 0) {
+            Metrics.counter("sync_log_suppressed_total", "key", key).increment();
+            return;
+        }
+        if (suppressed > 0) {
+            System.err.println("(" + suppressed + " mensagens \"" + key + "\" suprimidas no último minuto)");
+        }
+        System.err.println(message);
+    }
+
+    private static Level parseLevel(String value) {
+        try {
+            return Level.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("log.level inválido: " + value + ". Usando INFO");
+            return Level.INFO;
+        }
+    }
+
+    /**
+     * Janela fixa de um minuto por chave
+     */
+    private static final class Window {
+        private long startedAt;
+        private int printed;
+        private long suppressed;
+
+        /**
+         * @return -1 se a mensagem deve ser suprimida; caso contrário, quantas foram suprimidas
+         *         desde a última impressão (e zera a contagem)
+         */
+        synchronized long tryAcquire(int limit) {
+            long now = System.currentTimeMillis();
+            if (now - startedAt >= WINDOW_MILLIS) {
+                startedAt = now;
+                printed = 0;
+            }
+            if (printed >= limit) {
+                suppressed++;
+                return -1;
+            }
+            printed++;
+            long previous = suppressed;
+            suppressed = 0;
+            return previous;
+        }
+    }
+}
@@ -1,3 +1,6 @@
+package com.empresa.integracao.model;
+
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 
 /**
@@ -13,6 +16,10 @@ public class Employee {
     public LocalDateTime hireDate;
     public boolean synced;
     public String serviceNowId;
+    public Object changeVersion;
+    public String lastPushedHash;
+    public String source;
+    public long extractedAtNanos;
     
     public Employee() {}
     
@@ -28,6 +35,148 @@ public class Employee {
         this.synced = false;
     }
     
+    public int getId() {
+        return id;
+    }
+    
+    public void setId(int id) {
+        this.id = id;
+    }
+    
+    public String getFirstName() {
+        return firstName;
+    }
+    
+    public void setFirstName(String firstName) {
+        this.firstName = firstName;
+    }
+    
+    public String getLastName() {
+        return lastName;
+    }
+    
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+    }
+    
+    public String getEmail() {
+        return email;
+    }
+    
+    public void setEmail(String email) {
+        this.email = email;
+    }
+    
+    public String getDepartment() {
+        return department;
+    }
+    
+    public void setDepartment(String department) {
+        this.department = department;
+    }
+    
+    public String getPosition() {
+        return position;
+    }
+    
+    public void setPosition(String position) {
+        this.position = position;
+    }
+    
+    public LocalDateTime getHireDate() {
+        return hireDate;
+    }
+    
+    public void setHireDate(LocalDateTime hireDate) {
+        this.hireDate = hireDate;
+    }
+    
+    public boolean isSyncedToServiceNow() {
+        return synced;
+    }
+    
+    public void setSyncedToServiceNow(boolean synced) {
+        this.synced = synced;
+    }
+    
+    public String getServiceNowSysId() {
+        return serviceNowId;
+    }
+    
+    public void setServiceNowSysId(String serviceNowId) {
+        this.serviceNowId = serviceNowId;
+    }
+    
+    /**
+     * Marcador de alteração da linha (Timestamp ou Long), usado na sincronização incremental
+     */
+    public Object getChangeVersion() {
+        return changeVersion;
+    }
+    
+    public void setChangeVersion(Object changeVersion) {
+        this.changeVersion = changeVersion;
+    }
+    
+    /**
+     * Hash do conteúdo enviado na última sincronização (coluna employee.hash.column)
+     */
+    public String getLastPushedHash() {
+        return lastPushedHash;
+    }
+    
+    public void setLastPushedHash(String lastPushedHash) {
+        this.lastPushedHash = lastPushedHash;
+    }
+    
+    /**
+     * Origem (db.sources) de onde a linha foi lida; o status é gravado de volta nela
+     */
+    public String getSource() {
+        return source;
+    }
+    
+    public void setSource(String source) {
+        this.source = source;
+    }
+    
+    /**
+     * Instante da leitura (System.nanoTime), para medir o atraso até a gravação do status
+     */
+    public long getExtractedAtNanos() {
+        return extractedAtNanos;
+    }
+    
+    public void setExtractedAtNanos(long extractedAtNanos) {
+        this.extractedAtNanos = extractedAtNanos;
+    }
+    
+    /**
+     * Impressão digital estável dos campos enviados ao ServiceNow (FNV-1a de 64 bits, em hex)
+     * Funcionários cuja impressão digital é igual à última enviada não precisam de atualização
+     */
+    public String fingerprint() {
+        long hash = 0xcbf29ce484222325L;
+        for (String field : new String[] { firstName, lastName, email, department, position }) {
+            // Separador e marcador de nulo evitam colisões como ("ab", "c") x ("a", "bc")
+            byte[] bytes = field == null ? new byte[] { 0 } : field.getBytes(StandardCharsets.UTF_8);
+            for (byte b : bytes) {
+                hash ^= (b & 0xff);
+                hash *= 0x100000001b3L;
+            }
+            hash ^= 0x1f;
+            hash *= 0x100000001b3L;
+        }
+        return String.format("%016x", hash);
+    }
+    
+    /**
+     * Verifica se o conteúdo atual já foi enviado ao ServiceNow sem alterações
+     */
+    public boolean isUnchangedSinceLastPush() {
+        return serviceNowId != null && lastPushedHash != null && lastPushedHash.equals(fingerprint());
+    }
+    
     @Override
     public String toString() {
         return firstName + " " + lastName + " (" + email + ")";
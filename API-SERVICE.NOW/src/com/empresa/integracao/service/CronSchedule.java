@@ -0,0 +1,118 @@
+package com.empresa.integracao.service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+
+/**
+ * Agenda no formato cron de cinco campos: minuto hora dia mês dia-da-semana
+ * Cada campo aceita *, valores, listas (1,15), intervalos (1-5) e passos (0-59/10, 8-18/2);
+ * dia-da-semana vai de 0 a 7 (0 e 7 = domingo). Como no cron, quando dia e dia-da-semana
+ * estão restritos basta um dos dois coincidir
+ */
+public class CronSchedule {
+    /** Limite da busca pelo próximo horário (agendas impossíveis, como 31 de fevereiro) */
+    private static final long MAX_MINUTES = 366L * 4 * 24 * 60;
+
+    private final String expression;
+    private final BitSet minutes;
+    private final BitSet hours;
+    private final BitSet days;
+    private final BitSet months;
+    private final BitSet weekdays;
+    private final boolean anyDay;
+    private final boolean anyWeekday;
+
+    public CronSchedule(String expression) {
+        String[] fields = expression.trim().split("\\s+");
+        if (fields.length != 5) {
+            throw new IllegalArgumentException("Agenda cron deve ter 5 campos (minuto hora dia mês dia-da-semana): " + expression);
+        }
+        this.expression = expression.trim();
+        this.minutes = parseField(fields[0], 0, 59);
+        this.hours = parseField(fields[1], 0, 23);
+        this.days = parseField(fields[2], 1, 31);
+        this.months = parseField(fields[3], 1, 12);
+        this.weekdays = parseField(fields[4], 0, 7);
+        if (weekdays.get(7)) {
+            weekdays.set(0);
+        }
+        this.anyDay = fields[2].startsWith("*");
+        this.anyWeekday = fields[4].startsWith("*");
+    }
+
+    /**
+     * Próximo horário da agenda estritamente após "after"
+     */
+    public LocalDateTime next(LocalDateTime after) {
+        LocalDateTime candidate = after.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+        for (long i = 0; i < MAX_MINUTES; i++) {
+            if (matches(candidate)) {
+                return candidate;
+            }
+            candidate = candidate.plusMinutes(1);
+        }
+        throw new IllegalStateException("Agenda cron sem horário válido: " + expression);
+    }
+
+    private boolean matches(LocalDateTime time) {
+        if (!minutes.get(time.getMinute()) || !hours.get(time.getHour()) || !months.get(time.getMonthValue())) {
+            return false;
+        }
+        boolean dayMatches = days.get(time.getDayOfMonth());
+        boolean weekdayMatches = weekdays.get(time.getDayOfWeek().getValue() % 7);
+        if (anyDay || anyWeekday) {
+            return dayMatches && weekdayMatches;
+        }
+        return dayMatches || weekdayMatches;
+    }
+
+    private static BitSet parseField(String field, int min, int max) {
+        BitSet values = new BitSet(max + 1);
+        for (String part : field.split(",")) {
+            int step = 1;
+            int slash = part.indexOf('/');
+            if (slash >= 0) {
+                step = parseValue(part.substring(slash + 1), 1, max, field);
+                part = part.substring(0, slash);
+            }
+
+            int from;
+            int to;
+            if (part.equals("*")) {
+                from = min;
+                to = max;
+            } else if (part.indexOf('-') > 0) {
+                from = parseValue(part.substring(0, part.indexOf('-')), min, max, field);
+                to = parseValue(part.substring(part.indexOf('-') + 1), min, max, field);
+            } else {
+                from = parseValue(part, min, max, field);
+                to = slash >= 0 ? max : from;
+            }
+            if (from > to) {
+                throw new IllegalArgumentException("Intervalo inválido na agenda cron: " + field);
+            }
+            for (int value = from; value <= to; value += step) {
+                values.set(value);
+            }
+        }
+        return values;
+    }
+
+    private static int parseValue(String value, int min, int max, String field) {
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed < min || parsed > max) {
+                throw new IllegalArgumentException("Valor fora do intervalo " + min + "-" + max + " na agenda cron: " + field);
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valor inválido na agenda cron: " + field);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+}
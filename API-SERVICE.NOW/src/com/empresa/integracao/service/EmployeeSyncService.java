@@ -1,6 +1,32 @@
+package com.empresa.integracao.service;
+
+import com.empresa.integracao.config.DatabaseConfig;
+import com.empresa.integracao.database.DatabaseManager;
+import com.empresa.integracao.database.DeadLetterStore;
+import com.empresa.integracao.database.SyncJournal;
+import com.empresa.integracao.database.SyncWatermark;
+import com.empresa.integracao.database.WorkClaimer;
+import com.empresa.integracao.metrics.Metrics;
+import com.empresa.integracao.metrics.SyncLog;
+import com.empresa.integracao.model.Employee;
+import com.empresa.integracao.servicenow.CircuitOpenException;
+import com.empresa.integracao.servicenow.ServiceNowClient;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Serviço de integração adaptado para banco existente
@@ -8,99 +34,916 @@ import com.fasterxml.jackson.databind.ObjectMapper;
  */
 public class EmployeeSyncService {
     private final ServiceNowClient snClient;
-    private final ObjectMapper objectMapper;
+    
+    /**
+     * Funcionários em processamento (origem:id), compartilhados entre execuções concorrentes
+     * (agenda e disparos avulsos) para que o mesmo funcionário não seja criado duas vezes
+     */
+    private final Set<String> inProgress = ConcurrentHashMap.newKeySet();
     
     public EmployeeSyncService() {
         this.snClient = new ServiceNowClient();
-        this.objectMapper = new ObjectMapper();
     }
     
     /**
      * Executa a sincronização completa com tratamento de erros
+     * Com várias origens (db.sources) os pendentes de cada uma são lidos em paralelo
+     *
+     * @return resultado da execução (código de saída da linha de comando)
      */
-    public void syncEmployeesToServiceNow() {
+    public RunStatus syncEmployeesToServiceNow() {
         System.out.println("=== INICIANDO SINCRONIZAÇÃO ===");
         
         // Testa a conexão com o banco primeiro
-        if (!DatabaseManager.testConnection()) {
+        List<String> sources = availableSources();
+        if (sources.isEmpty()) {
             System.err.println("Falha na conexão com o banco de dados. Abortando sincronização.");
-            return;
+            return RunStatus.FAILED;
         }
         
-        // Obtém funcionários para sincronizar
-        List<Employee> employeesToSync = DatabaseManager.getEmployeesToSync();
+        // Conclui antes as gravações que a execução anterior deixou no diário
+        SyncJournal.recover();
+        
+        Map<String, Stream<Employee>> streams = new LinkedHashMap<>();
+        for (String source : sources) {
+            streams.put(source, DatabaseConfig.withSource(source, DatabaseManager::streamEmployeesToSync));
+        }
+        SyncRun run = runSync(streams, this::processEmployee, null);
         
-        if (employeesToSync.isEmpty()) {
+        if (run.total() == 0 && !run.isAborted()) {
             System.out.println("Nenhum funcionário pendente de sincronização.");
-            return;
+            return run.status();
         }
         
-        System.out.println("Encontrados " + employeesToSync.size() + " funcionários para sincronizar.");
+        run.printSummary();
+        return run.status();
+    }
+    
+    /**
+     * Sincronização incremental: envia apenas as linhas alteradas desde a última execução
+     * (pela coluna employee.changetracking.column), criando os novos usuários e atualizando
+     * via PATCH os que já possuem sys_id. O custo é proporcional às alterações, não à tabela
+     * Cada origem tem a sua marca d'água; origens sem a coluna enviam os pendentes
+     *
+     * @return resultado da execução (código de saída da linha de comando)
+     */
+    public RunStatus syncIncrementalChanges() {
+        System.out.println("=== INICIANDO SINCRONIZAÇÃO INCREMENTAL ===");
         
-        int successCount = 0;
-        int errorCount = 0;
+        boolean tracked = false;
+        for (String source : DatabaseConfig.getSourceNames()) {
+            tracked |= DatabaseConfig.withSource(source, DatabaseConfig::getChangeTrackingColumn) != null;
+        }
+        if (!tracked) {
+            System.out.println("employee.changetracking.column não configurada; executando sincronização de pendentes.");
+            return syncEmployeesToServiceNow();
+        }
         
-        // Processa cada funcionário
-        for (Employee employee : employeesToSync) {
-            if (processEmployee(employee)) {
-                successCount++;
+        List<String> sources = availableSources();
+        if (sources.isEmpty()) {
+            System.err.println("Falha na conexão com o banco de dados. Abortando sincronização.");
+            return RunStatus.FAILED;
+        }
+        
+        SyncJournal.recover();
+        
+        Map<String, Stream<Employee>> streams = new LinkedHashMap<>();
+        Map<String, SyncWatermark> starts = new LinkedHashMap<>();
+        Map<String, WatermarkTracker> trackers = new ConcurrentHashMap<>();
+        for (String source : sources) {
+            DatabaseConfig.withSource(source, () -> {
+                if (DatabaseConfig.getChangeTrackingColumn() == null) {
+                    System.out.println("Origem " + source + " sem employee.changetracking.column; enviando os pendentes.");
+                    streams.put(source, DatabaseManager.streamEmployeesToSync());
+                    return;
+                }
+                SyncWatermark start = SyncWatermark.load();
+                System.out.println("Buscando alterações após " + start + (DatabaseConfig.isMultiSource() ? " [" + source + "]" : ""));
+                starts.put(source, start);
+                trackers.put(source, new WatermarkTracker());
+                streams.put(source, WorkClaimer.claimEach(DatabaseManager.streamEmployeesChangedSince(start)));
+            });
+        }
+        
+        // Cada linha é tratada conforme a leitura da sua origem (alterações ou pendentes)
+        EmployeeProcessor processor = (employee, existingSysIds, writeBack) ->
+            trackers.containsKey(sourceOf(employee))
+                ? processChangedEmployee(employee, existingSysIds, writeBack)
+                : processEmployee(employee, existingSysIds, writeBack);
+        SyncRun run = runSync(streams, processor, (employee, success) -> {
+            WatermarkTracker tracker = trackers.get(sourceOf(employee));
+            if (tracker != null) {
+                tracker.accept(employee, success);
+            }
+        });
+        
+        for (Map.Entry<String, SyncWatermark> start : starts.entrySet()) {
+            DatabaseConfig.withSource(start.getKey(), () -> {
+                SyncWatermark next = trackers.get(start.getKey()).next(start.getValue());
+                try {
+                    next.save();
+                    System.out.println("Marca d'água atualizada para " + next +
+                                       (DatabaseConfig.isMultiSource() ? " [" + start.getKey() + "]" : ""));
+                } catch (IOException e) {
+                    System.err.println("Erro ao gravar a marca d'água; as alterações serão reprocessadas: " + e.getMessage());
+                }
+            });
+        }
+        
+        if (run.total() == 0 && !run.isAborted()) {
+            System.out.println("Nenhuma alteração desde a última sincronização.");
+            return run.status();
+        }
+        
+        run.printSummary();
+        return run.status();
+    }
+    
+    /**
+     * Reprocessa apenas os funcionários registrados na tabela de falhas (deadletter.table)
+     * Os que sincronizarem saem da tabela; os que falharem de novo têm as tentativas incrementadas
+     *
+     * @return resultado da execução (código de saída da linha de comando)
+     */
+    public RunStatus replayDeadLetters() {
+        System.out.println("=== REPROCESSANDO FALHAS ===");
+        
+        boolean enabled = false;
+        for (String source : DatabaseConfig.getSourceNames()) {
+            enabled |= DatabaseConfig.withSource(source, DeadLetterStore::isEnabled);
+        }
+        if (!enabled) {
+            System.out.println("Tabela de falhas desativada (deadletter.table vazia ou sync.state.backend=local).");
+            return RunStatus.SUCCESS;
+        }
+        List<String> sources = availableSources();
+        if (sources.isEmpty()) {
+            System.err.println("Falha na conexão com o banco de dados. Abortando reprocessamento.");
+            return RunStatus.FAILED;
+        }
+        SyncJournal.recover();
+        
+        Map<String, Stream<Employee>> streams = new LinkedHashMap<>();
+        Map<String, String> readErrors = new LinkedHashMap<>();
+        for (String source : sources) {
+            DatabaseConfig.withSource(source, () -> {
+                List<Integer> ids = DeadLetterStore.loadIds();
+                if (ids.isEmpty()) {
+                    return;
+                }
+                
+                List<Employee> employees;
+                try {
+                    employees = DatabaseManager.getEmployeesByIds(ids);
+                } catch (SQLException e) {
+                    // Sem a leitura completa não dá para saber quais ids saíram da tabela: a origem
+                    // fica fora desta execução e nada é removido da tabela de falhas
+                    System.err.println("Erro ao buscar funcionários da tabela de falhas" +
+                                       (DatabaseConfig.isMultiSource() ? " [" + source + "]: " : ": ") + e.getMessage());
+                    readErrors.put(source, e.getMessage());
+                    return;
+                }
+                System.out.println("Reprocessando " + employees.size() + " de " + ids.size() + " funcionários da tabela de falhas" +
+                                   (DatabaseConfig.isMultiSource() ? " [" + source + "]." : "."));
+                
+                // Ids que não existem mais na tabela de funcionários não têm o que reprocessar
+                Set<Integer> found = new HashSet<>();
+                for (Employee employee : employees) {
+                    found.add(employee.getId());
+                }
+                for (Integer id : ids) {
+                    if (!found.contains(id)) {
+                        DeadLetterStore.resolve(id);
+                    }
+                }
+                streams.put(source, WorkClaimer.claimEach(employees.stream()));
+            });
+        }
+        if (streams.isEmpty() && readErrors.isEmpty()) {
+            System.out.println("Nenhuma falha registrada.");
+            return RunStatus.SUCCESS;
+        }
+        
+        // Cria quem não existe e atualiza quem já tem sys_id
+        SyncRun run = runSync(streams, this::processChangedEmployee, null);
+        for (Map.Entry<String, String> error : readErrors.entrySet()) {
+            run.abort("Erro na leitura do banco" + (DatabaseConfig.isMultiSource() ? " [" + error.getKey() + "]" : "") +
+                      ": " + error.getValue());
+        }
+        run.printSummary();
+        return run.status();
+    }
+    
+    /**
+     * Origens com conexão disponível, testadas em paralelo
+     * As indisponíveis são informadas e ficam fora da execução, sem bloquear as demais
+     */
+    private static List<String> availableSources() {
+        List<String> names = DatabaseConfig.getSourceNames();
+        if (!DatabaseConfig.isMultiSource()) {
+            return DatabaseManager.testConnection() ? names : Collections.<String>emptyList();
+        }
+        
+        List<CompletableFuture<Boolean>> checks = new ArrayList<>(names.size());
+        for (String source : names) {
+            checks.add(CompletableFuture.supplyAsync(
+                () -> DatabaseConfig.withSource(source, DatabaseManager::testConnection)));
+        }
+        List<String> available = new ArrayList<>(names.size());
+        for (int i = 0; i < names.size(); i++) {
+            if (checks.get(i).join()) {
+                available.add(names.get(i));
             } else {
-                errorCount++;
+                System.err.println("Origem " + names.get(i) + " indisponível; ignorada nesta execução.");
             }
         }
+        return available;
+    }
+    
+    /**
+     * Origem do funcionário, ou a da thread atual se ele não foi lido de uma origem
+     */
+    private static String sourceOf(Employee employee) {
+        return employee.getSource() != null ? employee.getSource() : DatabaseConfig.getCurrentSource();
+    }
+    
+    private static String inProgressKey(Employee employee) {
+        return sourceOf(employee) + ":" + employee.getId();
+    }
+    
+    /**
+     * Executa a sincronização como pipeline (SyncPipeline): uma thread por origem lê os
+     * funcionários do banco, sync.parallelism threads chamam o ServiceNow página a página e uma
+     * thread por origem grava o status em lote, com filas limitadas entre os estágios
+     * O mesmo email vindo de mais de uma linha (de origens diferentes ou não) é enviado uma vez
+     * Com o circuito do ServiceNow aberto a execução é interrompida: a leitura para e as linhas
+     * ainda não enviadas continuam pendentes, sem registro na tabela de falhas
+     */
+    private SyncRun runSync(Map<String, Stream<Employee>> employees, EmployeeProcessor processor,
+                            BiConsumer<Employee, Boolean> onResult) {
+        SyncRun run = new SyncRun();
+        
+        // Email normalizado -> sys_id de quem o enviou nesta execução ("" enquanto em andamento)
+        Map<String, String> pushedEmails = new ConcurrentHashMap<>();
         
-        System.out.println("=== SINCRONIZAÇÃO CONCLUÍDA ===");
-        System.out.println("Sucessos: " + successCount);
-        System.out.println("Erros: " + errorCount);
-        System.out.println("Total processado: " + (successCount + errorCount));
+        SyncPipeline pipeline = new SyncPipeline(
+            DatabaseConfig.getSyncParallelism(),
+            DatabaseConfig.getSyncLookupPageSize(),
+            DatabaseConfig.getSyncPipelineQueueCapacity());
+        run.pipeline = pipeline;
+        
+        pipeline.run(employees, (rows, writeBack) -> {
+            if (run.isAborted()) {
+                for (Employee employee : rows) {
+                    defer(employee, run, onResult);
+                }
+                return;
+            }
+            List<Employee> page = dedupe(rows, pushedEmails, run, onResult);
+            if (page.isEmpty()) {
+                return;
+            }
+            
+            // Resolve a existência da página inteira com uma única consulta
+            Map<String, String> existingSysIds = resolveExistingUsers(page);
+            Set<String> createdInBatch = createMissingUsersInBatch(page, existingSysIds, writeBack, run, onResult,
+                                                                   pushedEmails);
+            
+            for (Employee employee : page) {
+                // Já resolvido pela criação em lote, ou o mesmo funcionário em andamento em outra thread
+                String key = inProgressKey(employee);
+                if (createdInBatch.contains(key)) {
+                    continue;
+                }
+                if (run.isAborted()) {
+                    settle(pushedEmails, employee, false);
+                    defer(employee, run, onResult);
+                    continue;
+                }
+                if (!inProgress.add(key)) {
+                    settle(pushedEmails, employee, false);
+                    defer(employee, run, onResult);
+                    continue;
+                }
+                try {
+                    DatabaseConfig.withSource(sourceOf(employee), () -> {
+                        Outcome outcome = processor.process(employee, existingSysIds, writeBack);
+                        run.record(outcome);
+                        boolean success = outcome != Outcome.FAILED && outcome != Outcome.UNAVAILABLE;
+                        settle(pushedEmails, employee, success);
+                        if (success) {
+                            DeadLetterStore.resolve(employee.getId());
+                        }
+                        if (outcome == Outcome.UNAVAILABLE) {
+                            abort(run);
+                        }
+                        if (onResult != null) {
+                            onResult.accept(employee, success);
+                        }
+                    });
+                } finally {
+                    inProgress.remove(key);
+                }
+            }
+        });
+        
+        // Todas as gravações confirmadas: os segmentos do diário desta execução podem ser apagados
+        SyncJournal.checkpoint();
+        
+        int writeFailures = pipeline.getWriteFailures();
+        run.successCount.addAndGet(-writeFailures);
+        run.errorCount.addAndGet(writeFailures);
+        
+        // Leitura interrompida por erro do banco: a execução não viu todas as linhas e conta como falha
+        for (Map.Entry<String, String> error : pipeline.getExtractionErrors().entrySet()) {
+            run.abort("Erro na leitura do banco" + (DatabaseConfig.isMultiSource() ? " [" + error.getKey() + "]" : "") +
+                      ": " + error.getValue());
+        }
+        return run;
+    }
+    
+    /**
+     * Interrompe a execução na primeira recusa do disjuntor: a leitura de novas linhas para
+     * (SyncPipeline.cancel) e as já lidas são adiadas sem chamar o ServiceNow
+     */
+    private static void abort(SyncRun run) {
+        if (run.abort("ServiceNow indisponível (circuito aberto)")) {
+            System.err.println("Circuito do ServiceNow aberto; interrompendo a execução. " +
+                               "Os funcionários não enviados continuam pendentes.");
+            run.pipeline.cancel();
+        }
+    }
+    
+    /**
+     * Funcionário lido e não enviado nesta execução (interrompida, já em envio por outra thread
+     * ou com o mesmo email ainda em envio por outra linha); continua pendente e entra no
+     * resumo como adiado
+     */
+    private static void defer(Employee employee, SyncRun run, BiConsumer<Employee, Boolean> onResult) {
+        run.record(Outcome.UNAVAILABLE);
+        if (onResult != null) {
+            onResult.accept(employee, false);
+        }
+    }
+    
+    /**
+     * Reserva o email de cada funcionário da página para esta execução
+     * Linhas cujo email já foi enviado por outra linha recebem o sys_id dela, sem nova chamada
+     * ao ServiceNow; se o envio ainda está em andamento, a linha fica pendente para a próxima
+     * execução. Linhas sem alterações não enviam nada e não disputam o email
+     * Só o sys_id é gravado na linha repetida: os dados dela não foram enviados, então ela
+     * não é marcada como sincronizada nem recebe o hash do envio
+     *
+     * @return funcionários da página que seguem para o ServiceNow
+     */
+    private List<Employee> dedupe(List<Employee> page, Map<String, String> pushedEmails, SyncRun run,
+                                  BiConsumer<Employee, Boolean> onResult) {
+        List<Employee> unique = new ArrayList<>(page.size());
+        Map<String, Map<Integer, String>> linkedBySource = new LinkedHashMap<>();
+        for (Employee employee : page) {
+            String email = ServiceNowClient.normalizeEmail(employee.getEmail());
+            if (email == null || employee.isUnchangedSinceLastPush()) {
+                unique.add(employee);
+                continue;
+            }
+            String winner = pushedEmails.putIfAbsent(email, "");
+            if (winner == null) {
+                unique.add(employee);
+                continue;
+            }
+            
+            Metrics.counter("sync_source_duplicates_total", "source", sourceOf(employee)).increment();
+            boolean linked = !winner.isEmpty();
+            if (linked) {
+                employee.setServiceNowSysId(winner);
+                linkedBySource.computeIfAbsent(sourceOf(employee), k -> new LinkedHashMap<>())
+                    .put(employee.getId(), winner);
+                run.record(Outcome.DUPLICATE);
+            }
+            if (SyncLog.isDebugEnabled()) {
+                SyncLog.debug("Email " + email + " já enviado nesta execução" + (linked ? ": " + winner : "; linha adiada"));
+            }
+            if (!linked) {
+                defer(employee, run, onResult);
+            } else if (onResult != null) {
+                onResult.accept(employee, true);
+            }
+        }
+        for (Map.Entry<String, Map<Integer, String>> linked : linkedBySource.entrySet()) {
+            DatabaseConfig.withSource(linked.getKey(), () -> DatabaseManager.updateEmployeeSysIds(linked.getValue()));
+        }
+        return unique;
+    }
+    
+    /**
+     * Libera a reserva do email: com sucesso guarda o sys_id para as linhas repetidas,
+     * caso contrário a próxima linha com o mesmo email poderá enviá-lo
+     */
+    private static void settle(Map<String, String> pushedEmails, Employee employee, boolean success) {
+        String email = ServiceNowClient.normalizeEmail(employee.getEmail());
+        if (email == null) {
+            return;
+        }
+        if (success && employee.getServiceNowSysId() != null) {
+            pushedEmails.replace(email, "", employee.getServiceNowSysId());
+        } else {
+            pushedEmails.remove(email, "");
+        }
+    }
+    
+    /**
+     * Busca em uma única consulta quais funcionários da página já existem no ServiceNow
+     * Retorna null se a consulta em lote falhar; nesse caso cada funcionário é verificado
+     * individualmente em processEmployee
+     */
+    private Map<String, String> resolveExistingUsers(List<Employee> page) {
+        List<String> emails = new ArrayList<>(page.size());
+        for (Employee employee : page) {
+            if (employee.getEmail() != null) {
+                emails.add(employee.getEmail());
+            }
+        }
+        try {
+            return snClient.getUsersByEmails(emails);
+        } catch (CircuitOpenException e) {
+            // O primeiro funcionário da página recebe a mesma recusa e interrompe a execução
+            return null;
+        } catch (Exception e) {
+            System.err.println("Falha na consulta em lote de usuários; verificando individualmente: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * No modo servicenow.create.mode=batch, cria de uma vez os funcionários da página que não
+     * existem no ServiceNow; os criados têm o status enfileirado e ficam fora do processamento
+     * individual. Sem a consulta em lote (existingSysIds null) não há como saber quem falta,
+     * e a página segue pelo caminho individual
+     *
+     * @return chaves (origem:id) dos funcionários tratados pela criação em lote (criados ou com falha, já contabilizados)
+     */
+    private Set<String> createMissingUsersInBatch(List<Employee> page, Map<String, String> existingSysIds,
+                                                  Consumer<Employee> writeBack, SyncRun run,
+                                                  BiConsumer<Employee, Boolean> onResult,
+                                                  Map<String, String> pushedEmails) {
+        if (!DatabaseConfig.isServiceNowBatchCreateEnabled() || existingSysIds == null) {
+            return Collections.emptySet();
+        }
+        
+        List<Employee> missing = new ArrayList<>();
+        Set<String> seenEmails = new HashSet<>();
+        for (Employee employee : page) {
+            String email = ServiceNowClient.normalizeEmail(employee.getEmail());
+            if (email != null && employee.getServiceNowSysId() == null
+                    && !existingSysIds.containsKey(email) && seenEmails.add(email)
+                    && inProgress.add(inProgressKey(employee))) {
+                missing.add(employee);
+            }
+        }
+        if (missing.isEmpty()) {
+            return Collections.emptySet();
+        }
+        
+        try {
+            for (Employee employee : missing) {
+                SyncJournal.intent(employee);
+            }
+            // O resultado do lote é indexado pelo id, que só é único dentro de uma origem
+            Map<String, List<Employee>> bySource = new LinkedHashMap<>();
+            for (Employee employee : missing) {
+                bySource.computeIfAbsent(sourceOf(employee), k -> new ArrayList<>()).add(employee);
+            }
+            Set<String> handled = new HashSet<>();
+            for (Map.Entry<String, List<Employee>> group : bySource.entrySet()) {
+                ServiceNowClient.BatchCreateResult result = run.isAborted()
+                    ? null : snClient.createUsersBatch(group.getValue());
+                DatabaseConfig.withSource(group.getKey(), () -> {
+                    for (Employee employee : group.getValue()) {
+                        String sysId = result == null ? null : result.sysIds.get(employee.getId());
+                        if (result == null || (sysId == null && !result.failures.containsKey(employee.getId()))) {
+                            // Não enviado (circuito aberto): continua pendente, sem registro de falha
+                            SyncJournal.abandoned(employee);
+                            settle(pushedEmails, employee, false);
+                            defer(employee, run, onResult);
+                            handled.add(inProgressKey(employee));
+                            continue;
+                        }
+                        if (sysId != null) {
+                            employee.setServiceNowSysId(sysId);
+                            employee.setLastPushedHash(employee.fingerprint());
+                            employee.setSyncedToServiceNow(true);
+                            SyncJournal.result(employee);
+                            writeBack.accept(employee);
+                            run.record(Outcome.SYNCED);
+                            DeadLetterStore.resolve(employee.getId());
+                        } else {
+                            SyncLog.error("criacao.lote.erro", "ERRO ao criar " + employee.getEmail() + " em lote: " + result.failures.get(employee.getId()));
+                            run.record(Outcome.FAILED);
+                            SyncJournal.abandoned(employee);
+                            DeadLetterStore.record(employee, result.failures.get(employee.getId()));
+                        }
+                        settle(pushedEmails, employee, sysId != null);
+                        if (onResult != null) {
+                            onResult.accept(employee, sysId != null);
+                        }
+                        handled.add(inProgressKey(employee));
+                    }
+                });
+                if (result == null) {
+                    continue;
+                }
+                System.out.println("Criação em lote: " + result.sysIds.size() + " criados, " + result.failures.size() + " falhas.");
+                if (result.unavailable != null) {
+                    abort(run);
+                }
+            }
+            return handled;
+        } finally {
+            for (Employee employee : missing) {
+                inProgress.remove(inProgressKey(employee));
+            }
+        }
     }
     
     /**
      * Processa um funcionário individualmente
+     * Pode ser executado em paralelo; não deve compartilhar estado mutável entre chamadas
+     *
+     * @param existingSysIds sys_ids já resolvidos por email (normalizado), ou null para consultar
      */
-    private boolean processEmployee(Employee employee) {
+    private Outcome processEmployee(Employee employee, Map<String, String> existingSysIds, Consumer<Employee> writeBack) {
         try {
-            System.out.println("Processando: " + employee.getEmail());
+            if (SyncLog.isDebugEnabled()) {
+                SyncLog.debug("Processando: " + employee.getEmail());
+            }
+            
+            // Conteúdo igual ao último enviado: só marca como sincronizado, sem chamar o ServiceNow
+            if (employee.isUnchangedSinceLastPush()) {
+                employee.setSyncedToServiceNow(true);
+                writeBack.accept(employee);
+                return Outcome.SKIPPED;
+            }
             
             // Verifica se já existe no ServiceNow
-            String existingUserResponse = snClient.getUserByEmail(employee.getEmail());
-            JsonNode existingUsers = objectMapper.readTree(existingUserResponse).path("result");
-            
-            String sysId;
-            if (existingUsers.size() > 0) {
-                // Usuário já existe
-                sysId = existingUsers.get(0).path("sys_id").asText();
-                System.out.println("Usuário já existe no ServiceNow: " + sysId);
+            String sysId = existingSysIds != null
+                ? existingSysIds.get(ServiceNowClient.normalizeEmail(employee.getEmail()))
+                : findExistingSysId(employee.getEmail());
+            
+            if (sysId != null) {
+                // Usuário já existe; nada foi enviado, então o hash gravado continua o anterior
+                // e a sincronização incremental ainda envia os dados locais por PATCH
+                if (SyncLog.isDebugEnabled()) {
+                    SyncLog.debug("Usuário já existe no ServiceNow: " + sysId);
+                }
             } else {
-                // Cria novo usuário
-                String createResponse = snClient.createUser(employee);
-                sysId = snClient.extractSysIdFromResponse(createResponse);
-                System.out.println("Usuário criado com sucesso: " + sysId);
+                // Cria novo usuário; a intenção fica no diário até a gravação do status
+                SyncJournal.intent(employee);
+                sysId = snClient.createUser(employee);
+                employee.setLastPushedHash(employee.fingerprint());
+                if (SyncLog.isDebugEnabled()) {
+                    SyncLog.debug("Usuário criado com sucesso: " + sysId);
+                }
             }
             
-            // Atualiza o banco com informações de sincronização
+            // Enfileira a atualização do banco com informações de sincronização
             employee.setServiceNowSysId(sysId);
             employee.setSyncedToServiceNow(true);
-            DatabaseManager.updateEmployeeSyncStatus(employee);
+            SyncJournal.result(employee);
+            writeBack.accept(employee);
             
-            // Pequena pausa para não sobrecarregar a API
-            Thread.sleep(300);
+            return Outcome.SYNCED;
             
-            return true;
+        } catch (CircuitOpenException e) {
+            // Instância indisponível: nada foi enviado; a linha continua pendente, sem registro de falha
+            SyncJournal.abandoned(employee);
+            return Outcome.UNAVAILABLE;
+        } catch (Exception e) {
+            // As repetições de falhas transitórias já foram feitas pelo cliente; registra para reprocessamento
+            SyncLog.error("processamento.erro", "ERRO ao processar " + employee.getEmail() + ": " + e.getMessage());
+            SyncJournal.abandoned(employee);
+            DeadLetterStore.record(employee, e);
+            return Outcome.FAILED;
+        }
+    }
+    
+    /**
+     * Processa um funcionário alterado (sincronização incremental)
+     * Usuários já existentes recebem PATCH com os dados atuais; os demais são criados
+     * Linhas cujos campos enviados não mudaram (por exemplo, a própria gravação do status,
+     * que também altera o marcador) são ignoradas sem chamada ao ServiceNow nem ao banco
+     */
+    private Outcome processChangedEmployee(Employee employee, Map<String, String> existingSysIds, Consumer<Employee> writeBack) {
+        try {
+            if (employee.isUnchangedSinceLastPush()) {
+                return Outcome.SKIPPED;
+            }
+            
+            if (SyncLog.isDebugEnabled()) {
+                SyncLog.debug("Processando alteração: " + employee.getEmail());
+            }
+            
+            String sysId = employee.getServiceNowSysId();
+            if (sysId == null) {
+                sysId = existingSysIds != null
+                    ? existingSysIds.get(ServiceNowClient.normalizeEmail(employee.getEmail()))
+                    : findExistingSysId(employee.getEmail());
+            }
+            
+            if (sysId != null && snClient.updateUser(sysId, employee) != null) {
+                if (SyncLog.isDebugEnabled()) {
+                    SyncLog.debug("Usuário atualizado no ServiceNow: " + sysId);
+                }
+            } else {
+                // Não existe (ou o sys_id gravado não é mais válido): cria novamente
+                SyncJournal.intent(employee);
+                sysId = snClient.createUser(employee);
+                if (SyncLog.isDebugEnabled()) {
+                    SyncLog.debug("Usuário criado com sucesso: " + sysId);
+                }
+            }
+            employee.setLastPushedHash(employee.fingerprint());
             
+            employee.setServiceNowSysId(sysId);
+            employee.setSyncedToServiceNow(true);
+            SyncJournal.result(employee);
+            writeBack.accept(employee);
+            
+            return Outcome.SYNCED;
+            
+        } catch (CircuitOpenException e) {
+            // Instância indisponível: nada foi enviado; a linha continua pendente, sem registro de falha
+            SyncJournal.abandoned(employee);
+            return Outcome.UNAVAILABLE;
         } catch (Exception e) {
-            System.err.println("ERRO ao processar " + employee.getEmail() + ": " + e.getMessage());
-            return false;
+            // As repetições de falhas transitórias já foram feitas pelo cliente; registra para reprocessamento
+            SyncLog.error("processamento.erro", "ERRO ao processar " + employee.getEmail() + ": " + e.getMessage());
+            SyncJournal.abandoned(employee);
+            DeadLetterStore.record(employee, e);
+            return Outcome.FAILED;
+        }
+    }
+    
+    /**
+     * Consulta individual de existência por email; null se o usuário não existir
+     */
+    private String findExistingSysId(String email) throws Exception {
+        return snClient.findSysIdByEmail(email);
+    }
+    
+    /**
+     * Compara a tabela inteira (de todas as origens) com o sys_user do ServiceNow em uma única
+     * passada (Reconciler) e grava o relatório; com repair corrige os sys_ids desatualizados
+     *
+     * @return resumo da reconciliação, ou null se ela não pôde ser iniciada
+     */
+    public Reconciler.Summary reconcile(boolean repair) {
+        // Sem uma das origens, os usuários dela seriam classificados como órfãos
+        if (availableSources().size() < DatabaseConfig.getSourceNames().size()) {
+            System.err.println("Falha na conexão com o banco de dados. Abortando reconciliação.");
+            return null;
         }
+        try {
+            Reconciler.Summary summary = new Reconciler(snClient).reconcile(repair);
+            summary.printSummary();
+            return summary;
+        } catch (IOException | SQLException e) {
+            System.err.println("Erro na reconciliação: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Aquece o cache de usuários com os sys_ids já gravados no banco
+     */
+    public void warmUpUserCache() {
+        if (!DatabaseConfig.isServiceNowCacheWarmupEnabled()) {
+            return;
+        }
+        int loaded = 0;
+        for (String source : DatabaseConfig.getSourceNames()) {
+            int remaining = DatabaseConfig.getServiceNowCacheMaxEntries() - loaded;
+            if (remaining <= 0) {
+                break;
+            }
+            loaded += DatabaseConfig.withSource(source,
+                    () -> DatabaseManager.forEachKnownSysId(ServiceNowClient::cacheKnownUser, remaining));
+        }
+        System.out.println("Cache de usuários ServiceNow aquecido com " + loaded + " registros.");
     }
     
     /**
-     * Sincroniza um funcionário específico pelo ID
+     * Sincroniza um funcionário específico pelo ID, sem varrer os pendentes
+     * Lê a linha pela chave primária, resolve o sys_id pelo valor gravado ou pelo cache de
+     * usuários, cria ou atualiza no ServiceNow e grava o status imediatamente
+     *
+     * @return true se o funcionário está sincronizado ao final
      */
     public boolean syncEmployeeById(int employeeId) {
-        // Implementação para buscar um funcionário específico por ID
-        // e sincronizá-lo individualmente
-        return false;
+        long start = System.nanoTime();
+        String key = DatabaseConfig.getCurrentSource() + ":" + employeeId;
+        if (!inProgress.add(key)) {
+            System.out.println("Funcionário " + employeeId + " já está sendo sincronizado por outra execução.");
+            return false;
+        }
+        try {
+            SyncJournal.recover();
+            // Com reserva (sync.claim.mode=lease), o funcionário em andamento em outro nó fica com ele
+            try (WorkClaimer.RowClaims claims = new WorkClaimer.RowClaims()) {
+                if (!claims.claim(employeeId)) {
+                    System.out.println("Funcionário " + employeeId + " reservado por outro nó.");
+                    return false;
+                }
+                Employee employee = DatabaseManager.getEmployeeById(employeeId);
+                if (employee == null) {
+                    System.out.println("Funcionário " + employeeId + " não encontrado.");
+                    return false;
+                }
+                long loadedAt = System.nanoTime();
+                
+                Outcome outcome = processChangedEmployee(employee, null, DatabaseManager::updateEmployeeSyncStatus);
+                if (outcome == Outcome.SKIPPED && !employee.isSyncedToServiceNow()) {
+                    // Conteúdo já enviado antes; falta apenas marcar a linha como sincronizada
+                    employee.setSyncedToServiceNow(true);
+                    DatabaseManager.updateEmployeeSyncStatus(employee);
+                }
+                boolean synced = outcome != Outcome.FAILED && outcome != Outcome.UNAVAILABLE;
+                if (synced) {
+                    DeadLetterStore.resolve(employeeId);
+                }
+                recordOutcome(outcome);
+                Metrics.timer("sync_employee_by_id_seconds").recordSince(start);
+                
+                System.out.println("Funcionário " + employeeId + ": " + outcome + " em " +
+                                   TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms (leitura: " +
+                                   TimeUnit.NANOSECONDS.toMicros(loadedAt - start) + " µs)");
+                return synced;
+            }
+        } catch (SQLException | IllegalStateException e) {
+            System.err.println("Erro ao buscar funcionário " + employeeId + ": " + e.getMessage());
+            return false;
+        } finally {
+            inProgress.remove(key);
+        }
+    }
+    
+    /**
+     * Processamento de um funcionário dentro de uma execução
+     */
+    private interface EmployeeProcessor {
+        Outcome process(Employee employee, Map<String, String> existingSysIds, Consumer<Employee> writeBack);
+    }
+    
+    /**
+     * Resultado do processamento de um funcionário
+     */
+    private enum Outcome {
+        /** Enviado ao ServiceNow (criado ou atualizado) */
+        SYNCED,
+        /** Sem alterações desde o último envio; nenhuma chamada ao ServiceNow */
+        SKIPPED,
+        /** Email já enviado por outra linha na mesma execução; recebe o sys_id dela */
+        DUPLICATE,
+        FAILED,
+        /** Não enviado: circuito do ServiceNow aberto ou execução interrompida; continua pendente */
+        UNAVAILABLE
+    }
+    
+    /**
+     * Resultado de uma execução, usado no código de saída da linha de comando
+     */
+    public enum RunStatus {
+        /** Todos os funcionários lidos foram sincronizados (ou não havia o que sincronizar) */
+        SUCCESS,
+        /** Execução concluída com funcionários que falharam ou ficaram adiados para a próxima */
+        PARTIAL,
+        /** A execução não pôde ser iniciada ou foi interrompida (ServiceNow indisponível) */
+        FAILED
+    }
+    
+    private static void recordOutcome(Outcome outcome) {
+        Metrics.counter("sync_employees_total", "outcome", outcome.name().toLowerCase()).increment();
+    }
+    
+    /**
+     * Contadores de uma execução, atualizados pelas threads de processamento
+     * Os ignorados (sem alterações) e os duplicados contam como sucesso; os adiados
+     * (continuam pendentes) não contam como sucesso nem como erro, mas tornam a execução parcial
+     */
+    private static class SyncRun {
+        final AtomicInteger successCount = new AtomicInteger();
+        final AtomicInteger skippedCount = new AtomicInteger();
+        final AtomicInteger duplicateCount = new AtomicInteger();
+        final AtomicInteger errorCount = new AtomicInteger();
+        final AtomicInteger deferredCount = new AtomicInteger();
+        volatile String abortReason;
+        SyncPipeline pipeline;
+        
+        void record(Outcome outcome) {
+            recordOutcome(outcome);
+            if (outcome == Outcome.FAILED) {
+                errorCount.incrementAndGet();
+                return;
+            }
+            if (outcome == Outcome.UNAVAILABLE) {
+                deferredCount.incrementAndGet();
+                return;
+            }
+            successCount.incrementAndGet();
+            if (outcome == Outcome.SKIPPED) {
+                skippedCount.incrementAndGet();
+            } else if (outcome == Outcome.DUPLICATE) {
+                duplicateCount.incrementAndGet();
+            }
+        }
+        
+        int total() {
+            return successCount.get() + errorCount.get() + deferredCount.get();
+        }
+        
+        /**
+         * Marca a execução como interrompida; retorna true só na primeira chamada
+         */
+        synchronized boolean abort(String reason) {
+            if (abortReason != null) {
+                return false;
+            }
+            abortReason = reason;
+            return true;
+        }
+        
+        boolean isAborted() {
+            return abortReason != null;
+        }
+        
+        RunStatus status() {
+            if (isAborted()) {
+                return RunStatus.FAILED;
+            }
+            return errorCount.get() > 0 || deferredCount.get() > 0 ? RunStatus.PARTIAL : RunStatus.SUCCESS;
+        }
+        
+        void printSummary() {
+            if (isAborted()) {
+                System.out.println("=== SINCRONIZAÇÃO INTERROMPIDA ===");
+                System.err.println("Motivo: " + abortReason);
+            } else {
+                System.out.println("=== SINCRONIZAÇÃO CONCLUÍDA ===");
+            }
+            System.out.println("Sucessos: " + successCount.get());
+            System.out.println("Ignorados (sem alterações): " + skippedCount.get());
+            if (duplicateCount.get() > 0) {
+                System.out.println("Duplicados (mesmo email): " + duplicateCount.get());
+            }
+            System.out.println("Erros: " + errorCount.get());
+            if (deferredCount.get() > 0) {
+                System.out.println("Adiados (continuam pendentes): " + deferredCount.get());
+            }
+            System.out.println("Total processado: " + total());
+            if (pipeline != null) {
+                pipeline.printSummary();
+            }
+            for (String source : DatabaseConfig.getSourceNames()) {
+                DatabaseConfig.withSource(source, () ->
+                    System.out.println("Pool de conexões" + (DatabaseConfig.isMultiSource() ? " [" + source + "]" : "") +
+                                       ": " + DatabaseManager.getPoolMetrics()));
+            }
+            System.out.println("Limite de taxa ServiceNow: " + ServiceNowClient.getRateLimiter());
+            System.out.println("Disjuntor ServiceNow: " + ServiceNowClient.getCircuitBreaker());
+            if (DeadLetterStore.isEnabled()) {
+                System.out.println("Tabela de falhas: " + DeadLetterStore.size() + " funcionários pendentes de reprocessamento");
+            }
+            System.out.println("Cache de usuários ServiceNow: " + ServiceNowClient.getUserCache());
+        }
+    }
+    
+    /**
+     * Calcula a próxima marca d'água: a última linha lida ou, se houve falhas,
+     * a posição imediatamente anterior à primeira falha (que será reprocessada)
+     * Falhas registradas na tabela de falhas não seguram a marca d'água: são reprocessadas
+     * por --replay, e uma linha que falha sempre não faz a leitura recomeçar nela a cada execução
+     */
+    private static class WatermarkTracker implements BiConsumer<Employee, Boolean> {
+        private SyncWatermark lastRead;
+        private SyncWatermark firstFailed;
+        
+        @Override
+        public synchronized void accept(Employee employee, Boolean success) {
+            SyncWatermark position = SyncWatermark.of(employee);
+            if (lastRead == null || position.compareTo(lastRead) > 0) {
+                lastRead = position;
+            }
+            if (!success && !DeadLetterStore.isRecorded(sourceOf(employee), employee.getId())
+                    && (firstFailed == null || position.compareTo(firstFailed) < 0)) {
+                firstFailed = position;
+            }
+        }
+        
+        synchronized SyncWatermark next(SyncWatermark start) {
+            if (firstFailed != null) {
+                return firstFailed.justBefore();
+            }
+            return lastRead != null ? lastRead : start;
+        }
     }
     
     /**
@@ -108,11 +951,11 @@ public class EmployeeSyncService {
      */
     public String checkSyncStatus(String email) {
         try {
-            String response = snClient.getUserByEmail(email);
-            JsonNode users = objectMapper.readTree(response).path("result");
+            // Consulta o cache primeiro; usuários recém-criados não custam uma chamada
+            String sysId = snClient.findSysIdByEmail(email);
             
-            if (users.size() > 0) {
-                return "EXISTE no ServiceNow - SysID: " + users.get(0).path("sys_id").asText();
+            if (sysId != null) {
+                return "EXISTE no ServiceNow - SysID: " + sysId;
             } else {
                 return "NÃO ENCONTRADO no ServiceNow";
             }
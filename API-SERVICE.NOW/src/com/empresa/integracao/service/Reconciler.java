@@ -0,0 +1,447 @@
+package com.empresa.integracao.service;
+
+import com.empresa.integracao.config.DatabaseConfig;
+import com.empresa.integracao.database.DatabaseManager;
+import com.empresa.integracao.metrics.Metrics;
+import com.empresa.integracao.metrics.SyncLog;
+import com.empresa.integracao.model.Employee;
+import com.empresa.integracao.servicenow.ServiceNowClient;
+import com.empresa.integracao.servicenow.ServiceNowUser;
+import com.empresa.integracao.servicenow.ServiceNowUserExport;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+
+/**
+ * Reconciliação completa entre a tabela de funcionários e o sys_user do ServiceNow
+ * As duas fontes são lidas ao mesmo tempo, ordenadas por email: a extração local
+ * (DatabaseManager.streamEmployeesByEmail) e a exportação paginada por chave
+ * (ServiceNowUserExport). Uma junção por intercalação (merge join) classifica cada email
+ * em uma única passada, com memória constante:
+ *   AUSENTE               funcionário sem usuário no ServiceNow
+ *   ORFAO                 usuário do ServiceNow sem funcionário (filtre com reconcile.servicenow.query)
+ *   DIVERGENTE            nome, sobrenome ou cargo diferentes
+ *   SYS_ID_DESATUALIZADO  sys_id local vazio ou diferente do usuário com o mesmo email
+ *   DUPLICADO_LOCAL / DUPLICADO_SERVICENOW  email repetido em uma das fontes
+ *   FORA_DE_ORDEM         registro que quebra a ordenação (collation diferente entre as fontes);
+ *                         as classificações AUSENTE/ORFAO próximas a ele podem ser falsas
+ * Com várias origens (db.sources), a extração de cada uma é intercalada por email
+ * (SourceMerge) antes da comparação: o mesmo email em duas origens é DUPLICADO_LOCAL, e um
+ * usuário só é ORFAO se não existir em nenhuma delas
+ * Cada ocorrência vira uma linha do relatório CSV. Com repair, os sys_ids desatualizados são
+ * corrigidos em lote na tabela local da origem de cada funcionário (apenas a coluna de sys_id)
+ */
+public class Reconciler {
+    public enum Category {
+        AUSENTE, ORFAO, DIVERGENTE, SYS_ID_DESATUALIZADO, DUPLICADO_LOCAL, DUPLICADO_SERVICENOW, FORA_DE_ORDEM
+    }
+
+    private static final long PROGRESS_INTERVAL = 50_000;
+
+    private final ServiceNowClient snClient;
+
+    public Reconciler(ServiceNowClient snClient) {
+        this.snClient = snClient;
+    }
+
+    /**
+     * Executa a reconciliação e grava o relatório
+     *
+     * @param repair corrige no banco os sys_ids desatualizados
+     */
+    public Summary reconcile(boolean repair) throws IOException, SQLException {
+        Path reportPath = reportPath();
+        Summary summary = new Summary(reportPath);
+        ServiceNowUserExport remote = new ServiceNowUserExport(snClient, DatabaseConfig.getReconcileServiceNowQuery(),
+                                                               DatabaseConfig.getReconcilePageSize());
+        long start = System.nanoTime();
+        System.out.println("=== RECONCILIAÇÃO COM O SERVICENOW ===");
+
+        List<Stream<Employee>> extracts = new ArrayList<>();
+        try (BufferedWriter report = Files.newBufferedWriter(reportPath, StandardCharsets.UTF_8)) {
+            List<Iterator<Employee>> sources = new ArrayList<>();
+            for (String source : DatabaseConfig.getSourceNames()) {
+                Stream<Employee> extract = DatabaseConfig.withSource(source, DatabaseManager::streamEmployeesByEmail);
+                extracts.add(extract);
+                sources.add(new SourceIterator(source, extract.iterator()));
+            }
+            report.write("categoria,id_funcionario,email,sys_id_local,sys_id_servicenow,detalhe");
+            report.newLine();
+
+            Iterator<Employee> employees = sources.size() == 1 ? sources.get(0) : new SourceMerge(sources);
+            Merge merge = new Merge(employees, remote, report, summary, repair);
+            try {
+                merge.run();
+            } catch (IllegalStateException e) {
+                // Uma das fontes falhou no meio: o que foi classificado até aqui fica no relatório
+                summary.error = e.getMessage();
+                report.write("# INCOMPLETO: " + csv(e.getMessage()));
+                report.newLine();
+            }
+            merge.flushRepairs();
+        } finally {
+            for (Stream<Employee> extract : extracts) {
+                extract.close();
+            }
+        }
+
+        summary.servicenowPages = remote.getPages();
+        summary.elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        Metrics.timer("reconcile_seconds").recordSince(start);
+        return summary;
+    }
+
+    private static Path reportPath() {
+        String configured = DatabaseConfig.getReconcileReportFile();
+        if (configured != null) {
+            return Paths.get(configured);
+        }
+        return Paths.get("reconciliacao-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".csv");
+    }
+
+    /**
+     * Estado da intercalação: o registro atual e a última chave de cada fonte
+     */
+    static final class Merge {
+        private final Iterator<Employee> local;
+        private final Iterator<ServiceNowUser> remote;
+        private final BufferedWriter report;
+        private final Summary summary;
+        private final boolean repair;
+        private final Map<String, Map<Integer, String>> pendingRepairs = new LinkedHashMap<>();
+        private int pendingRepairCount;
+        private final int repairBatchSize = DatabaseConfig.getBatchSize();
+        private String lastLocalKey;
+        private String lastRemoteKey;
+
+        Merge(Iterator<Employee> local, Iterator<ServiceNowUser> remote, BufferedWriter report,
+              Summary summary, boolean repair) {
+            this.local = local;
+            this.remote = remote;
+            this.report = report;
+            this.summary = summary;
+            this.repair = repair;
+        }
+
+        void run() throws IOException {
+            Employee employee = nextLocal();
+            ServiceNowUser user = nextRemote();
+            long steps = 0;
+
+            while (employee != null || user != null) {
+                int comparison = employee == null ? 1
+                               : user == null ? -1
+                               : key(employee).compareTo(key(user));
+                if (comparison < 0) {
+                    write(Category.AUSENTE, employee, null, "");
+                    employee = nextLocal();
+                } else if (comparison > 0) {
+                    write(Category.ORFAO, null, user, "");
+                    user = nextRemote();
+                } else {
+                    compare(employee, user);
+                    employee = nextLocal();
+                    user = nextRemote();
+                }
+                if (++steps % PROGRESS_INTERVAL == 0) {
+                    SyncLog.info("Reconciliação: " + summary.localRecords + " funcionários e " +
+                                 summary.servicenowRecords + " usuários comparados");
+                }
+            }
+        }
+
+        private void compare(Employee employee, ServiceNowUser user) throws IOException {
+            summary.matched++;
+            boolean divergent = false;
+
+            String localSysId = employee.getServiceNowSysId();
+            if (!user.getSysId().equals(localSysId)) {
+                write(Category.SYS_ID_DESATUALIZADO, employee, user, localSysId == null ? "sys_id local vazio" : "");
+                divergent = true;
+                if (repair) {
+                    String source = employee.getSource() != null ? employee.getSource() : DatabaseConfig.getCurrentSource();
+                    pendingRepairs.computeIfAbsent(source, k -> new LinkedHashMap<>()).put(employee.getId(), user.getSysId());
+                    if (++pendingRepairCount >= repairBatchSize) {
+                        flushRepairs();
+                    }
+                }
+            }
+
+            String differences = differences(employee, user);
+            if (!differences.isEmpty()) {
+                write(Category.DIVERGENTE, employee, user, differences);
+                divergent = true;
+            }
+            if (!divergent) {
+                summary.consistent++;
+            }
+        }
+
+        /**
+         * Campos diferentes entre as fontes, no formato "campo: local -> servicenow"
+         */
+        private static String differences(Employee employee, ServiceNowUser user) {
+            StringBuilder out = new StringBuilder();
+            appendDifference(out, "first_name", employee.getFirstName(), user.getFirstName());
+            appendDifference(out, "last_name", employee.getLastName(), user.getLastName());
+            appendDifference(out, "title", employee.getPosition(), user.getTitle());
+            return out.toString();
+        }
+
+        private static void appendDifference(StringBuilder out, String field, String localValue, String remoteValue) {
+            String local = localValue == null ? "" : localValue.trim();
+            String remote = remoteValue == null ? "" : remoteValue.trim();
+            if (!local.equals(remote)) {
+                out.append(out.length() == 0 ? "" : "; ").append(field).append(": ").append(local).append(" -> ").append(remote);
+            }
+        }
+
+        /**
+         * Próximo funcionário em ordem; repetidos e fora de ordem são registrados e pulados
+         */
+        private Employee nextLocal() throws IOException {
+            while (local.hasNext()) {
+                Employee employee = local.next();
+                summary.localRecords++;
+                String key = key(employee);
+                if (key == null) {
+                    continue;
+                }
+                if (lastLocalKey != null) {
+                    int order = key.compareTo(lastLocalKey);
+                    if (order == 0) {
+                        write(Category.DUPLICADO_LOCAL, employee, null, "");
+                        continue;
+                    }
+                    if (order < 0) {
+                        write(Category.FORA_DE_ORDEM, employee, null, "local, após " + lastLocalKey);
+                        continue;
+                    }
+                }
+                lastLocalKey = key;
+                return employee;
+            }
+            return null;
+        }
+
+        private ServiceNowUser nextRemote() throws IOException {
+            while (remote.hasNext()) {
+                ServiceNowUser user = remote.next();
+                summary.servicenowRecords++;
+                String key = key(user);
+                if (lastRemoteKey != null) {
+                    int order = key.compareTo(lastRemoteKey);
+                    if (order == 0) {
+                        write(Category.DUPLICADO_SERVICENOW, null, user, "");
+                        continue;
+                    }
+                    if (order < 0) {
+                        write(Category.FORA_DE_ORDEM, null, user, "servicenow, após " + lastRemoteKey);
+                        continue;
+                    }
+                }
+                lastRemoteKey = key;
+                return user;
+            }
+            return null;
+        }
+
+        private static String key(Employee employee) {
+            return ServiceNowClient.normalizeEmail(employee.getEmail());
+        }
+
+        private static String key(ServiceNowUser user) {
+            return ServiceNowClient.normalizeEmail(user.getEmail());
+        }
+
+        private void write(Category category, Employee employee, ServiceNowUser user, String detail) throws IOException {
+            summary.counts.merge(category, 1L, Long::sum);
+            Metrics.counter("reconcile_records_total", "category", category.name().toLowerCase()).increment();
+            report.write(category.name());
+            report.write(',');
+            report.write(employee == null ? "" : String.valueOf(employee.getId()));
+            report.write(',');
+            report.write(csv(employee != null ? employee.getEmail() : user.getEmail()));
+            report.write(',');
+            report.write(csv(employee == null ? null : employee.getServiceNowSysId()));
+            report.write(',');
+            report.write(csv(user == null ? null : user.getSysId()));
+            report.write(',');
+            report.write(csv(detail));
+            report.newLine();
+        }
+
+        void flushRepairs() {
+            for (Map.Entry<String, Map<Integer, String>> repairs : pendingRepairs.entrySet()) {
+                summary.repaired += DatabaseConfig.withSource(repairs.getKey(),
+                        () -> DatabaseManager.updateEmployeeSysIds(repairs.getValue()));
+            }
+            pendingRepairs.clear();
+            pendingRepairCount = 0;
+        }
+    }
+
+    /**
+     * Extração de uma origem: cada linha é lida (e mapeada) com a origem da thread definida,
+     * pois as colunas e o estado local dependem dela
+     */
+    private static final class SourceIterator implements Iterator<Employee> {
+        private final String source;
+        private final Iterator<Employee> rows;
+
+        SourceIterator(String source, Iterator<Employee> rows) {
+            this.source = source;
+            this.rows = rows;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return DatabaseConfig.withSource(source, rows::hasNext);
+        }
+
+        @Override
+        public Employee next() {
+            return DatabaseConfig.withSource(source, rows::next);
+        }
+    }
+
+    /**
+     * Intercalação das extrações ordenadas de várias origens em uma única sequência por email
+     * Emails nulos saem primeiro (a comparação os ignora); com emails iguais vale a ordem das origens
+     */
+    static final class SourceMerge implements Iterator<Employee> {
+        private final List<Iterator<Employee>> sources;
+        private final Employee[] heads;
+
+        SourceMerge(List<Iterator<Employee>> sources) {
+            this.sources = sources;
+            this.heads = new Employee[sources.size()];
+        }
+
+        @Override
+        public boolean hasNext() {
+            return pick() >= 0;
+        }
+
+        @Override
+        public Employee next() {
+            int index = pick();
+            if (index < 0) {
+                throw new NoSuchElementException();
+            }
+            Employee employee = heads[index];
+            heads[index] = null;
+            return employee;
+        }
+
+        /**
+         * Origem com o menor email atual, ou -1 se todas terminaram
+         */
+        private int pick() {
+            int best = -1;
+            String bestKey = null;
+            for (int i = 0; i < heads.length; i++) {
+                if (heads[i] == null && sources.get(i).hasNext()) {
+                    heads[i] = sources.get(i).next();
+                }
+                if (heads[i] == null) {
+                    continue;
+                }
+                String key = Merge.key(heads[i]);
+                if (best < 0 || (bestKey != null && (key == null || key.compareTo(bestKey) < 0))) {
+                    best = i;
+                    bestKey = key;
+                }
+            }
+            return best;
+        }
+    }
+
+    /**
+     * Valor CSV, entre aspas quando contém separador, aspas ou quebra de linha
+     */
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Totais de uma reconciliação
+     */
+    public static class Summary {
+        private final Path reportPath;
+        private final Map<Category, Long> counts = new EnumMap<>(Category.class);
+        private long localRecords;
+        private long servicenowRecords;
+        private long servicenowPages;
+        private long matched;
+        private long consistent;
+        private int repaired;
+        private long elapsedMillis;
+        private String error;
+
+        Summary(Path reportPath) {
+            this.reportPath = reportPath;
+        }
+
+        public long count(Category category) {
+            return counts.getOrDefault(category, 0L);
+        }
+
+        /**
+         * Verdadeiro se a comparação terminou e não encontrou nenhuma diferença
+         */
+        public boolean isConsistent() {
+            return error == null && counts.isEmpty();
+        }
+
+        public boolean isComplete() {
+            return error == null;
+        }
+
+        public Path getReportPath() {
+            return reportPath;
+        }
+
+        public void printSummary() {
+            System.out.println("\n=== RECONCILIAÇÃO " + (isComplete() ? "CONCLUÍDA" : "INCOMPLETA") + " ===");
+            if (error != null) {
+                System.err.println("Interrompida: " + error);
+            }
+            System.out.println("Funcionários lidos: " + localRecords);
+            System.out.println("Usuários do ServiceNow lidos: " + servicenowRecords + " (" + servicenowPages + " páginas)");
+            System.out.println("Pares por email: " + matched + " (consistentes: " + consistent + ")");
+            for (Category category : Category.values()) {
+                System.out.println("  " + category + ": " + count(category));
+            }
+            if (repaired > 0 || count(Category.SYS_ID_DESATUALIZADO) > 0) {
+                System.out.println("sys_ids corrigidos: " + repaired);
+            }
+            if (count(Category.FORA_DE_ORDEM) > 0) {
+                System.err.println("AVISO: as fontes não seguem a mesma ordenação de email. " +
+                                   "Ajuste reconcile.db.order para a collation do ServiceNow");
+            }
+            System.out.println("Tempo: " + elapsedMillis + " ms");
+            System.out.println("Relatório: " + reportPath.toAbsolutePath());
+        }
+    }
+}
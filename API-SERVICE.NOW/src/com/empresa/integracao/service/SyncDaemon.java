@@ -0,0 +1,183 @@
+package com.empresa.integracao.service;
+
+import com.empresa.integracao.config.DatabaseConfig;
+import com.empresa.integracao.database.DatabaseManager;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Modo serviço: executa a sincronização incremental periodicamente no mesmo processo,
+ * mantendo o pool de conexões, o cliente HTTP e o cache de usuários entre as execuções
+ * A agenda é um intervalo fixo entre execuções (sync.daemon.interval.s) ou uma expressão
+ * cron (sync.daemon.cron). Nunca há duas execuções ao mesmo tempo: um disparo que encontra
+ * outra em andamento é ignorado. No encerramento (SIGTERM/Ctrl+C) a leitura de novas linhas
+ * é interrompida e os funcionários em andamento terminam e têm o status gravado
+ * Com sync.trigger.port configurada, também atende disparos avulsos (SyncTriggerServer)
+ */
+public class SyncDaemon {
+    private final EmployeeSyncService syncService;
+    private final ScheduledExecutorService scheduler;
+    private final CronSchedule cron;
+    private final long intervalSeconds;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile boolean stopping;
+    private volatile Thread runner;
+    private SyncTriggerServer triggerServer;
+
+    // Métricas
+    private final AtomicLong completedRuns = new AtomicLong();
+    private final AtomicLong skippedRuns = new AtomicLong();
+
+    public SyncDaemon(EmployeeSyncService syncService) {
+        this.syncService = syncService;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "sync-daemon"));
+        String expression = DatabaseConfig.getSyncDaemonCron();
+        this.cron = expression != null ? new CronSchedule(expression) : null;
+        this.intervalSeconds = DatabaseConfig.getSyncDaemonIntervalSeconds();
+    }
+
+    /**
+     * Inicia a agenda e registra o encerramento gracioso no desligamento da JVM
+     */
+    public void start() {
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "sync-daemon-encerramento"));
+
+        if (cron != null) {
+            System.out.println("Daemon de sincronização iniciado. Agenda cron: " + cron);
+            scheduleNextCronRun();
+        } else {
+            System.out.println("Daemon de sincronização iniciado. Intervalo entre execuções: " + intervalSeconds + " s");
+            scheduler.scheduleWithFixedDelay(() -> runOnce("agenda"), 0, intervalSeconds, TimeUnit.SECONDS);
+        }
+        
+        int port = DatabaseConfig.getSyncTriggerPort();
+        if (port > 0) {
+            try {
+                triggerServer = new SyncTriggerServer(syncService, this);
+                triggerServer.start(DatabaseConfig.getSyncTriggerHost(), port);
+            } catch (IOException e) {
+                // A agenda continua funcionando sem o endpoint
+                System.err.println("Não foi possível abrir o endpoint de disparo na porta " + port + ": " + e.getMessage());
+                triggerServer = null;
+            }
+        }
+    }
+
+    private void scheduleNextCronRun() {
+        if (stopping) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime next = cron.next(now);
+        System.out.println("Próxima sincronização: " + next);
+        scheduler.schedule(() -> {
+            try {
+                runOnce("agenda");
+            } finally {
+                scheduleNextCronRun();
+            }
+        }, Duration.between(now, next).toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Executa uma sincronização incremental, a menos que outra esteja em andamento
+     *
+     * @return false se o disparo foi ignorado (execução em andamento ou daemon encerrando)
+     */
+    public boolean runOnce(String trigger) {
+        if (stopping) {
+            System.out.println("Sincronização (" + trigger + ") ignorada: daemon encerrando.");
+            return false;
+        }
+        if (!running.compareAndSet(false, true)) {
+            skippedRuns.incrementAndGet();
+            System.out.println("Sincronização (" + trigger + ") ignorada: execução anterior ainda em andamento.");
+            return false;
+        }
+        runner = Thread.currentThread();
+        long start = System.nanoTime();
+        try {
+            syncService.syncIncrementalChanges();
+            completedRuns.incrementAndGet();
+        } catch (RuntimeException e) {
+            // Uma execução com erro não derruba a agenda; a próxima tenta de novo
+            System.err.println("Erro na sincronização agendada: " + e.getMessage());
+        } finally {
+            runner = null;
+            running.set(false);
+            // Não carrega a interrupção do encerramento para a próxima tarefa da thread
+            Thread.interrupted();
+            System.out.println("Sincronização (" + trigger + ") finalizada em " +
+                               TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms. Daemon: " + this);
+        }
+        return true;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * Bloqueia a thread chamadora até o daemon ser encerrado
+     */
+    public void awaitTermination() throws InterruptedException {
+        while (!scheduler.awaitTermination(1, TimeUnit.HOURS)) {
+            // continua aguardando
+        }
+    }
+
+    /**
+     * Encerramento gracioso: não inicia novas execuções, interrompe a leitura da execução em
+     * andamento (SyncPipeline conclui os funcionários já lidos) e aguarda até
+     * sync.daemon.shutdown.timeout.s antes de fechar o pool de conexões
+     */
+    public void shutdown() {
+        if (stopping) {
+            return;
+        }
+        stopping = true;
+        System.out.println("Encerrando daemon de sincronização...");
+        if (triggerServer != null) {
+            triggerServer.stop();
+        }
+        scheduler.shutdown();
+
+        Thread current = runner;
+        if (current != null) {
+            System.out.println("Aguardando a sincronização em andamento terminar os funcionários já lidos.");
+            current.interrupt();
+        }
+
+        // A execução pode estar na thread da agenda ou em uma disparada pelo endpoint
+        long timeout = DatabaseConfig.getSyncDaemonShutdownTimeoutSeconds();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeout);
+        try {
+            boolean terminated = scheduler.awaitTermination(timeout, TimeUnit.SECONDS);
+            while (running.get() && System.nanoTime() < deadline) {
+                Thread.sleep(100);
+            }
+            if (!terminated || running.get()) {
+                System.err.println("Sincronização não terminou em " + timeout + " s; encerrando assim mesmo. " +
+                                   "As linhas não gravadas continuam pendentes.");
+                scheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            scheduler.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        DatabaseManager.shutdown();
+        System.out.println("Daemon encerrado. " + this);
+    }
+
+    @Override
+    public String toString() {
+        return "[execuções=" + completedRuns.get() + ", ignoradas=" + skippedRuns.get() + "]";
+    }
+}
@@ -0,0 +1,519 @@
+package com.empresa.integracao.service;
+
+import com.empresa.integracao.config.DatabaseConfig;
+import com.empresa.integracao.database.SyncStatusWriter;
+import com.empresa.integracao.metrics.LatencyHistogram;
+import com.empresa.integracao.metrics.Metrics;
+import com.empresa.integracao.model.Employee;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Sincronização em três estágios: extração do banco, chamadas ao ServiceNow e gravação do status
+ * Cada estágio roda em suas próprias threads, ligado ao seguinte por uma fila limitada; quando um
+ * estágio fica para trás a fila enche e o anterior espera (contrapressão). Assim o banco continua
+ * sendo lido e gravado enquanto as chamadas HTTP estão em andamento
+ *
+ * Com várias origens (db.sources) cada uma tem sua thread de extração e sua thread de gravação;
+ * as linhas de todas entram na mesma fila do estágio ServiceNow. A contrapressão da gravação é
+ * por origem: cada origem tem no máximo queueCapacity linhas entre a leitura e a gravação do
+ * status (vagas reservadas na extração e devolvidas na gravação), então um banco lento só deixa
+ * de ser lido, sem bloquear as threads do ServiceNow nem as demais origens
+ */
+public class SyncPipeline {
+    private static final long POLL_MILLIS = 100;
+
+    /**
+     * Processamento de uma página de funcionários no estágio ServiceNow
+     * Os funcionários sincronizados são entregues a writeBack para gravação do status
+     */
+    public interface PageWorker {
+        void process(List<Employee> page, Consumer<Employee> writeBack);
+    }
+
+    private final int workers;
+    private final int pageSize;
+    private final int queueCapacity;
+    private final BlockingQueue<Employee> extracted;
+    private final Map<String, BlockingQueue<Employee>> writeQueues = new ConcurrentHashMap<>();
+    private final Map<String, Semaphore> writeSlots = new ConcurrentHashMap<>();
+    private final Map<String, Thread> writerThreads = new ConcurrentHashMap<>();
+    private final Map<String, SourceStats> sourceStats = new ConcurrentHashMap<>();
+    private final Stage extractStage;
+    private final Stage serviceNowStage;
+    private final Stage writeStage;
+    private final AtomicInteger writeFailures = new AtomicInteger();
+    private final Map<String, String> extractionErrors = new ConcurrentHashMap<>();
+    private final AtomicInteger runningExtractors = new AtomicInteger();
+    private volatile boolean extractionDone;
+    private volatile boolean processingDone;
+    private volatile boolean cancelled;
+    private long startedAt;
+
+    /**
+     * @param workers       threads do estágio ServiceNow (funcionários em andamento)
+     * @param pageSize      máximo de funcionários entregues de uma vez a cada thread
+     * @param queueCapacity capacidade da fila de extraídos e de cada fila de gravação (linhas
+     *                      de uma origem entre a leitura e a gravação)
+     */
+    public SyncPipeline(int workers, int pageSize, int queueCapacity) {
+        this.workers = Math.max(1, workers);
+        this.pageSize = Math.max(1, pageSize);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.extracted = new ArrayBlockingQueue<>(this.queueCapacity);
+        this.extractStage = new Stage("extração", null);
+        this.serviceNowStage = new Stage("ServiceNow", extracted::size);
+        this.writeStage = new Stage("gravação", this::writeQueueDepth);
+        
+        // Profundidade das filas da execução atual (a próxima execução substitui os medidores)
+        Metrics.gauge("sync_queue_depth", "queue", "extraidos", extracted::size);
+        Metrics.gauge("sync_queue_depth", "queue", "processados", this::writeQueueDepth);
+    }
+
+    private int writeQueueDepth() {
+        int depth = 0;
+        for (BlockingQueue<Employee> queue : writeQueues.values()) {
+            depth += queue.size();
+        }
+        return depth;
+    }
+
+    /**
+     * Executa os três estágios sobre uma única origem (a atual)
+     */
+    public void run(Stream<Employee> employees, PageWorker worker) {
+        run(Collections.singletonMap(DatabaseConfig.getCurrentSource(), employees), worker);
+    }
+
+    /**
+     * Executa os três estágios e aguarda o término de todos
+     * Cada Stream é consumido pela thread de extração da sua origem e fechado só depois da
+     * gravação do último status, pois fechar a origem pode liberar recursos das linhas ainda
+     * em andamento
+     *
+     * @param sources Stream de funcionários por origem (db.sources)
+     */
+    public void run(Map<String, Stream<Employee>> sources, PageWorker worker) {
+        startedAt = System.nanoTime();
+        ScheduledExecutorService reporter = startReporter();
+
+        List<Thread> extractors = new ArrayList<>();
+        List<Thread> writers = new ArrayList<>();
+        for (Map.Entry<String, Stream<Employee>> source : sources.entrySet()) {
+            String name = source.getKey();
+            BlockingQueue<Employee> queue = new ArrayBlockingQueue<>(queueCapacity);
+            writeQueues.put(name, queue);
+            writeSlots.put(name, new Semaphore(queueCapacity));
+            sourceStats.put(name, new SourceStats(name));
+            Metrics.gauge("sync_source_write_queue", "source", name, queue::size);
+            extractors.add(new Thread(() -> DatabaseConfig.withSource(name, () -> extract(name, source.getValue())),
+                                      "sync-extracao-" + name));
+            Thread writer = new Thread(() -> DatabaseConfig.withSource(name, () -> writeBack(name, queue)),
+                                       "sync-gravacao-" + name);
+            writerThreads.put(name, writer);
+            writers.add(writer);
+        }
+        runningExtractors.set(extractors.size());
+        extractionDone = extractors.isEmpty();
+        ExecutorService executor = createExecutor(workers);
+
+        extractors.forEach(Thread::start);
+        writers.forEach(Thread::start);
+        for (int i = 0; i < workers; i++) {
+            executor.execute(() -> work(worker));
+        }
+
+        boolean interrupted = false;
+        try {
+            for (Thread extractor : extractors) {
+                interrupted |= join(extractor);
+            }
+            executor.shutdown();
+            interrupted |= awaitTermination(executor);
+            processingDone = true;
+            for (Thread writer : writers) {
+                interrupted |= join(writer);
+            }
+        } finally {
+            for (Map.Entry<String, Stream<Employee>> source : sources.entrySet()) {
+                DatabaseConfig.withSource(source.getKey(), source.getValue()::close);
+            }
+            reporter.shutdownNow();
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Lê uma origem na sua própria thread, no escopo dela (as páginas usam o pool dessa origem)
+     */
+    private void extract(String source, Stream<Employee> employees) {
+        Semaphore slots = writeSlots.get(source);
+        SourceStats stats = sourceStats.get(source);
+        try {
+            Iterator<Employee> rows = employees.iterator();
+            long start = System.nanoTime();
+            while (!cancelled && rows.hasNext()) {
+                Employee employee = rows.next();
+                employee.setExtractedAtNanos(System.nanoTime());
+                extractStage.record(1, start);
+                stats.countExtracted();
+                
+                // Gravação desta origem atrasada: espera uma vaga sem ocupar a fila comum
+                while (!slots.tryAcquire(POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    if (cancelled) {
+                        return;
+                    }
+                }
+                while (!extracted.offer(employee, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    if (cancelled) {
+                        slots.release();
+                        return;
+                    }
+                }
+                start = System.nanoTime();
+            }
+        } catch (InterruptedException e) {
+            cancelled = true;
+        } catch (RuntimeException e) {
+            extractionErrors.put(source, e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            System.err.println("Erro na extração de funcionários" + (sourceStats.size() > 1 ? " [" + source + "]" : "") +
+                               ": " + e.getMessage());
+        } finally {
+            stats.extractionEndedAt = System.nanoTime();
+            if (runningExtractors.decrementAndGet() == 0) {
+                extractionDone = true;
+            }
+        }
+    }
+
+    private void work(PageWorker worker) {
+        try {
+            while (!cancelled) {
+                Employee first = extracted.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (extractionDone && extracted.isEmpty()) {
+                        return;
+                    }
+                    continue;
+                }
+                // Leva o que já estiver na fila, até uma página, sem esperar por mais linhas
+                List<Employee> page = new ArrayList<>(pageSize);
+                page.add(first);
+                extracted.drainTo(page, pageSize - 1);
+                serviceNowStage.observeDepth(page.size());
+
+                long start = System.nanoTime();
+                Set<Employee> notWritten = Collections.newSetFromMap(new IdentityHashMap<>());
+                notWritten.addAll(page);
+                try {
+                    worker.process(page, employee -> {
+                        notWritten.remove(employee);
+                        enqueueWrite(employee);
+                    });
+                } catch (RuntimeException e) {
+                    // As linhas da página continuam pendentes; a thread segue com a próxima
+                    System.err.println("Erro no estágio ServiceNow: " + e.getMessage());
+                } finally {
+                    // Linhas sem gravação de status devolvem aqui a vaga da sua origem
+                    for (Employee employee : notWritten) {
+                        writeSlots.get(sourceOf(employee)).release();
+                    }
+                }
+                serviceNowStage.record(page.size(), start);
+            }
+        } catch (InterruptedException e) {
+            cancelled = true;
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Origem do funcionário entre as desta execução (a primeira, se ele não foi lido de uma delas)
+     */
+    private String sourceOf(Employee employee) {
+        String source = employee.getSource();
+        return source != null && writeQueues.containsKey(source) ? source : writeQueues.keySet().iterator().next();
+    }
+
+    /**
+     * Entrega o funcionário à gravação da sua origem; a fila tem sempre vaga para as linhas
+     * lidas, então a espera só se prolonga se a thread de gravação tiver terminado com erro
+     */
+    private void enqueueWrite(Employee employee) {
+        String source = sourceOf(employee);
+        BlockingQueue<Employee> queue = writeQueues.get(source);
+        try {
+            while (!queue.offer(employee, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (!writerThreads.get(source).isAlive()) {
+                    // A linha continua pendente e será reprocessada na próxima execução
+                    writeFailures.incrementAndGet();
+                    writeSlots.get(source).release();
+                    System.err.println("Gravação do status de " + employee.getEmail() + " descartada (gravação encerrada).");
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelled = true;
+            writeSlots.get(source).release();
+            // A linha continua pendente e será reprocessada na próxima execução
+            System.err.println("Gravação do status de " + employee.getEmail() + " descartada (interrompida).");
+        }
+    }
+
+    /**
+     * Grava o status de uma origem em lote, na sua própria thread e no escopo dela (no seu banco)
+     */
+    private void writeBack(String source, BlockingQueue<Employee> queue) {
+        SyncStatusWriter statusWriter = new SyncStatusWriter();
+        try (statusWriter) {
+            int batchSize = DatabaseConfig.getBatchSize();
+            Semaphore slots = writeSlots.get(source);
+            List<Employee> batch = new ArrayList<>(batchSize);
+            while (true) {
+                Employee first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (processingDone && queue.isEmpty()) {
+                        break;
+                    }
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeStage.observeDepth(batch.size());
+
+                long start = System.nanoTime();
+                for (Employee employee : batch) {
+                    statusWriter.add(employee);
+                }
+                writeStage.record(batch.size(), start);
+                slots.release(batch.size());
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Lidos após o close, que grava o restante do buffer
+        writeFailures.addAndGet(statusWriter.getFailures().size());
+        sourceStats.get(source).written = statusWriter.getWrittenCount();
+    }
+
+    /**
+     * Origens cuja leitura terminou com erro, com a mensagem; as linhas não lidas continuam pendentes
+     */
+    public Map<String, String> getExtractionErrors() {
+        return extractionErrors;
+    }
+
+    /**
+     * Falhas na gravação do status (funcionários enviados que continuam pendentes no banco)
+     */
+    public int getWriteFailures() {
+        return writeFailures.get();
+    }
+
+    /**
+     * Threads do estágio ServiceNow: virtuais quando disponíveis (Java 21+) ou pool fixo
+     */
+    private static ExecutorService createExecutor(int workers) {
+        if ("virtual".equals(DatabaseConfig.getSyncExecutorType())) {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                System.out.println("Threads virtuais indisponíveis nesta JVM; usando pool fixo de " + workers + " threads.");
+            }
+        }
+        return Executors.newFixedThreadPool(workers);
+    }
+
+    /**
+     * Aguarda as threads do estágio; uma interrupção cancela a extração, mas os funcionários
+     * em andamento terminam e têm o status gravado
+     *
+     * @return true se a thread chamadora foi interrompida
+     */
+    private boolean awaitTermination(ExecutorService executor) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                    return interrupted;
+                }
+                System.out.println("Aguardando funcionários em andamento...");
+            } catch (InterruptedException e) {
+                interrupted = true;
+                cancel();
+            }
+        }
+    }
+
+    private boolean join(Thread thread) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                thread.join();
+                return interrupted;
+            } catch (InterruptedException e) {
+                interrupted = true;
+                cancel();
+            }
+        }
+    }
+
+    /**
+     * Para a leitura e a entrega de novas páginas; as páginas em andamento terminam e têm o
+     * status gravado, as linhas ainda na fila continuam pendentes
+     */
+    public void cancel() {
+        if (!cancelled) {
+            cancelled = true;
+            System.err.println("Sincronização interrompida. Aguardando funcionários em andamento.");
+        }
+    }
+
+    private ScheduledExecutorService startReporter() {
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "sync-metricas");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = DatabaseConfig.getSyncPipelineReportIntervalSeconds();
+        if (interval > 0) {
+            reporter.scheduleAtFixedRate(() -> System.out.println("Pipeline: " + this), interval, interval, TimeUnit.SECONDS);
+        }
+        return reporter;
+    }
+
+    /**
+     * Métricas por estágio: itens, vazão, ocupação e profundidade da fila de entrada
+     * O estágio com ocupação perto de 100% e fila de entrada cheia é o gargalo
+     */
+    public void printSummary() {
+        System.out.println("Pipeline de sincronização:");
+        for (Stage stage : new Stage[] { extractStage, serviceNowStage, writeStage }) {
+            System.out.println("  " + stage.describe(elapsedNanos(), threadsOf(stage)));
+        }
+        if (sourceStats.size() > 1) {
+            for (SourceStats stats : sourceStats.values()) {
+                System.out.println("  " + stats.describe(startedAt));
+            }
+        }
+    }
+
+    private int threadsOf(Stage stage) {
+        return stage == serviceNowStage ? workers : Math.max(1, writeQueues.size());
+    }
+
+    private long elapsedNanos() {
+        return Math.max(1, System.nanoTime() - startedAt);
+    }
+
+    @Override
+    public String toString() {
+        long elapsed = elapsedNanos();
+        return extractStage.describe(elapsed, threadsOf(extractStage)) + " | " +
+               serviceNowStage.describe(elapsed, workers) + " | " +
+               writeStage.describe(elapsed, threadsOf(writeStage));
+    }
+
+    /**
+     * Contadores de um estágio, atualizados pelas suas threads
+     */
+    private static final class Stage {
+        final String name;
+        final IntSupplier input;
+        final AtomicLong items = new AtomicLong();
+        final AtomicLong busyNanos = new AtomicLong();
+        final AtomicInteger maxDepth = new AtomicInteger();
+        final LongAdder itemsTotal;
+        final LatencyHistogram latency;
+
+        Stage(String name, IntSupplier input) {
+            this.name = name;
+            this.input = input;
+            this.itemsTotal = Metrics.counter("sync_stage_items_total", "stage", name);
+            this.latency = Metrics.timer("sync_stage_seconds", "stage", name);
+        }
+
+        /**
+         * Registra "count" itens processados de uma vez (uma linha ou uma página)
+         */
+        void record(int count, long startNanos) {
+            long nanos = System.nanoTime() - startNanos;
+            items.addAndGet(count);
+            busyNanos.addAndGet(nanos);
+            itemsTotal.add(count);
+            latency.recordNanos(nanos);
+        }
+
+        /**
+         * Registra a profundidade da fila no momento em que "taken" itens foram retirados
+         */
+        void observeDepth(int taken) {
+            maxDepth.accumulateAndGet(input.getAsInt() + taken, Math::max);
+        }
+
+        String describe(long elapsedNanos, int threads) {
+            double seconds = elapsedNanos / 1_000_000_000.0;
+            double busy = busyNanos.get() / (double) (elapsedNanos * (long) threads);
+            String queue = input == null ? "" : String.format(", fila=%d (máx. %d)", input.getAsInt(), maxDepth.get());
+            return String.format("%s: %d itens, %.1f/s, ocupação=%.0f%%%s",
+                    name, items.get(), items.get() / seconds, Math.min(1.0, busy) * 100, queue);
+        }
+    }
+
+    /**
+     * Vazão e atraso de uma origem: linhas lidas, status gravados e tempo da leitura até a
+     * confirmação no banco (sync_source_lag_seconds)
+     */
+    private static final class SourceStats {
+        final String name;
+        /** Linhas lidas nesta execução; sync_source_rows_total acumula as de todas */
+        final LongAdder extracted = new LongAdder();
+        final LongAdder extractedTotal;
+        final LatencyHistogram lag;
+        volatile long extractionEndedAt;
+        volatile int written;
+
+        SourceStats(String name) {
+            this.name = name;
+            this.extractedTotal = Metrics.counter("sync_source_rows_total", "source", name);
+            this.lag = Metrics.timer("sync_source_lag_seconds", "source", name);
+        }
+
+        void countExtracted() {
+            extracted.increment();
+            extractedTotal.increment();
+        }
+
+        String describe(long startedAt) {
+            long end = extractionEndedAt != 0 ? extractionEndedAt : System.nanoTime();
+            double seconds = Math.max(1, end - startedAt) / 1_000_000_000.0;
+            return String.format("origem %s: %d lidos em %.1f s (%.1f/s), %d gravados, atraso p95=%d ms",
+                    name, extracted.sum(), seconds, extracted.sum() / seconds, written,
+                    lag.percentileMicros(0.95) / 1000);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.empresa.integracao.service;
+
+import com.empresa.integracao.config.DatabaseConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Endpoint HTTP local para disparar a sincronização sem esperar a agenda do daemon
+ *   POST /sync/employee/{id}           sincroniza um funcionário (syncEmployeeById) e responde ao final
+ *   POST /sync/employee/{origem}/{id}  idem, na origem informada (db.sources); sem ela vale a primeira
+ *   POST /sync/run                     inicia uma sincronização incremental em segundo plano
+ * Pensado para o sistema de RH chamar logo após gravar uma admissão ou alteração, para que
+ * ela chegue ao ServiceNow em segundos. Por padrão escuta apenas em 127.0.0.1; com
+ * sync.trigger.token configurado exige o cabeçalho X-Sync-Token
+ */
+public class SyncTriggerServer {
+    private static final String EMPLOYEE_PATH = "/sync/employee/";
+    private static final String RUN_PATH = "/sync/run";
+    private static final int HANDLER_THREADS = 4;
+
+    private final EmployeeSyncService syncService;
+    private final SyncDaemon daemon;
+    private final String token;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public SyncTriggerServer(EmployeeSyncService syncService, SyncDaemon daemon) {
+        this.syncService = syncService;
+        this.daemon = daemon;
+        this.token = DatabaseConfig.getSyncTriggerToken();
+    }
+
+    public void start(String host, int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(HANDLER_THREADS, r -> {
+            Thread t = new Thread(r, "sync-disparo-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(executor);
+        server.createContext(EMPLOYEE_PATH, this::handleEmployee);
+        server.createContext(RUN_PATH, this::handleRun);
+        server.start();
+        System.out.println("Endpoint de disparo da sincronização em http://" + host + ":" +
+                           server.getAddress().getPort() + EMPLOYEE_PATH +
+                           (DatabaseConfig.isMultiSource() ? "{origem}/{id}" : "{id}"));
+    }
+
+    private void handleEmployee(HttpExchange exchange) throws IOException {
+        if (!accept(exchange)) {
+            return;
+        }
+        String path = exchange.getRequestURI().getPath().substring(EMPLOYEE_PATH.length());
+        int slash = path.lastIndexOf('/');
+        String source = slash < 0 ? DatabaseConfig.getSourceNames().get(0) : path.substring(0, slash);
+        if (!DatabaseConfig.getSourceNames().contains(source)) {
+            respond(exchange, 404, "{\"erro\":\"origem não configurada\"}");
+            return;
+        }
+        int employeeId;
+        try {
+            employeeId = Integer.parseInt(path.substring(slash + 1));
+        } catch (NumberFormatException e) {
+            respond(exchange, 400, "{\"erro\":\"id inválido\"}");
+            return;
+        }
+
+        boolean synced;
+        try {
+            synced = DatabaseConfig.withSource(source, () -> syncService.syncEmployeeById(employeeId));
+        } catch (RuntimeException e) {
+            System.err.println("Erro no disparo do funcionário " + employeeId + " [" + source + "]: " + e.getMessage());
+            respond(exchange, 500, result(source, employeeId, false));
+            return;
+        }
+        respond(exchange, synced ? 200 : 500, result(source, employeeId, synced));
+    }
+
+    private static String result(String source, int employeeId, boolean synced) {
+        return "{\"origem\":\"" + source + "\",\"id\":" + employeeId + ",\"sincronizado\":" + synced + "}";
+    }
+
+    private void handleRun(HttpExchange exchange) throws IOException {
+        if (!accept(exchange)) {
+            return;
+        }
+        if (daemon.isRunning()) {
+            respond(exchange, 409, "{\"erro\":\"sincronização em andamento\"}");
+            return;
+        }
+        // A execução pode levar minutos; responde na hora e roda fora da thread do endpoint
+        CompletableFuture.runAsync(() -> daemon.runOnce("endpoint"));
+        respond(exchange, 202, "{\"iniciada\":true}");
+    }
+
+    /**
+     * Valida método e token; responde o erro e retorna false se a requisição não for aceita
+     */
+    private boolean accept(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().set("Allow", "POST");
+            respond(exchange, 405, "{\"erro\":\"use POST\"}");
+            return false;
+        }
+        if (token != null) {
+            String received = exchange.getRequestHeaders().getFirst("X-Sync-Token");
+            if (received == null || !MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8),
+                                                           received.getBytes(StandardCharsets.UTF_8))) {
+                respond(exchange, 401, "{\"erro\":\"token inválido\"}");
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Para de aceitar disparos, aguardando até 2 s as requisições em andamento
+     */
+    public void stop() {
+        if (server != null) {
+            server.stop(2);
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.empresa.integracao.servicenow;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+
+/**
+ * Disjuntor (circuit breaker) das chamadas ao ServiceNow
+ * Após N falhas consecutivas (erros de rede ou 5xx) o circuito abre e as chamadas falham
+ * imediatamente, sem acessar a instância. Depois do tempo de espera uma única chamada de teste
+ * é liberada (meio aberto): se der certo o circuito fecha, se falhar volta a abrir
+ */
+public class CircuitBreaker {
+    private static final Logger logger = Logger.getLogger(CircuitBreaker.class.getName());
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * Chamada protegida pelo disjuntor (execute)
+     */
+    @FunctionalInterface
+    public interface Call<T> {
+        T run() throws IOException, InterruptedException;
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtNanos;
+    private boolean trialInFlight;
+
+    // Métricas
+    private long openCount;
+    private long rejectedCount;
+
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, openMillis));
+    }
+
+    /**
+     * Executa a chamada pelo disjuntor e registra o resultado: IOException e os resultados
+     * indicados por isFailure (respostas 5xx) contam como falha. Se a chamada terminar sem
+     * resultado (interrupção ou RuntimeException), a permissão de teste do meio aberto é
+     * devolvida; sem isso o circuito ficaria recusando todas as chamadas seguintes
+     */
+    public <T> T execute(Call<T> call, Predicate<? super T> isFailure) throws IOException, InterruptedException {
+        boolean trial = acquirePermission();
+        boolean recorded = false;
+        try {
+            T result = call.run();
+            recorded = true;
+            if (isFailure.test(result)) {
+                onFailure();
+            } else {
+                onSuccess();
+            }
+            return result;
+        } catch (IOException e) {
+            recorded = true;
+            onFailure();
+            throw e;
+        } finally {
+            if (!recorded && trial) {
+                releaseTrial();
+            }
+        }
+    }
+
+    /**
+     * Libera a chamada ou lança CircuitOpenException se o circuito estiver aberto
+     *
+     * @return true se a chamada é a de teste do meio aberto; quem a recebe deve registrar o
+     *         resultado (onSuccess/onFailure) ou devolvê-la com releaseTrial
+     */
+    public synchronized boolean acquirePermission() throws CircuitOpenException {
+        if (state == State.CLOSED) {
+            return false;
+        }
+        long now = System.nanoTime();
+        if (state == State.OPEN && now - openedAtNanos >= openNanos) {
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+            logger.info("Circuito ServiceNow meio aberto; liberando uma chamada de teste");
+        }
+        if (state == State.HALF_OPEN && !trialInFlight) {
+            trialInFlight = true;
+            return true;
+        }
+        rejectedCount++;
+        long remaining = state == State.OPEN ? openNanos - (now - openedAtNanos) : openNanos;
+        throw new CircuitOpenException(TimeUnit.NANOSECONDS.toMillis(Math.max(0, remaining)));
+    }
+
+    /**
+     * Devolve a permissão de teste sem registrar sucesso nem falha; a próxima chamada será o teste
+     */
+    public synchronized void releaseTrial() {
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            logger.info("Circuito ServiceNow fechado; instância respondendo novamente");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAtNanos = System.nanoTime();
+            trialInFlight = false;
+            openCount++;
+            logger.warning("Circuito ServiceNow aberto após " + consecutiveFailures + " falhas consecutivas; " +
+                           "chamadas recusadas por " + TimeUnit.NANOSECONDS.toMillis(openNanos) + " ms");
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("[estado=%s, falhas consecutivas=%d, aberturas=%d, chamadas recusadas=%d]",
+                state, consecutiveFailures, openCount, rejectedCount);
+    }
+}
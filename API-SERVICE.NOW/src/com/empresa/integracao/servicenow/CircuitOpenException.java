@@ -0,0 +1,21 @@
+package com.empresa.integracao.servicenow;
+
+import java.io.IOException;
+
+/**
+ * Chamada recusada sem acessar o ServiceNow porque o circuito está aberto
+ */
+public class CircuitOpenException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final long retryInMillis;
+
+    public CircuitOpenException(long retryInMillis) {
+        super("ServiceNow indisponível (circuito aberto); nova tentativa em " + retryInMillis + " ms");
+        this.retryInMillis = retryInMillis;
+    }
+
+    public long getRetryInMillis() {
+        return retryInMillis;
+    }
+}
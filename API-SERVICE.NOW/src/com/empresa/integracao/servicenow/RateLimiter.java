@@ -0,0 +1,141 @@
+package com.empresa.integracao.servicenow;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Limitador de taxa adaptativo (token bucket) compartilhado pelas chamadas ao ServiceNow
+ * Reduz a taxa pela metade a cada 429 (ou 503 com Retry-After), respeita o Retry-After e volta a subir
+ * gradualmente (+10% da taxa máxima a cada segundo de chamadas sem throttling)
+ */
+public class RateLimiter {
+    private static final Logger logger = Logger.getLogger(RateLimiter.class.getName());
+    private static final long MIN_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final double maxRate;
+    private final double minRate;
+    private final double burst;
+
+    private double currentRate;
+    private double tokens;
+    private long lastRefillNanos;
+    private long pausedUntilNanos;
+    private long lastIncreaseNanos;
+
+    // Métricas
+    private long acquiredCount;
+    private long throttleCount;
+    private long totalWaitNanos;
+
+    public RateLimiter(double requestsPerSecond, int burst, double minRequestsPerSecond) {
+        this.maxRate = Math.max(0.1, requestsPerSecond);
+        this.minRate = Math.max(0.1, Math.min(minRequestsPerSecond, this.maxRate));
+        this.burst = Math.max(1, burst);
+        this.currentRate = this.maxRate;
+        this.tokens = this.burst;
+        this.lastRefillNanos = System.nanoTime();
+        this.lastIncreaseNanos = this.lastRefillNanos;
+    }
+
+    /**
+     * Bloqueia até haver uma permissão disponível
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos;
+        while ((waitNanos = tryReserve()) > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Versão não bloqueante de acquire: o futuro completa quando houver permissão
+     */
+    public CompletableFuture<Void> acquireAsync() {
+        long waitNanos = tryReserve();
+        if (waitNanos == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Executor delayed = CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS);
+        return CompletableFuture.runAsync(() -> { }, delayed).thenCompose(ignored -> acquireAsync());
+    }
+
+    /**
+     * Consome uma permissão e retorna 0, ou retorna quantos nanossegundos aguardar
+     */
+    private synchronized long tryReserve() {
+        long now = System.nanoTime();
+        refill(now);
+        if (tokens >= 1 && now >= pausedUntilNanos) {
+            tokens -= 1;
+            acquiredCount++;
+            return 0;
+        }
+        long waitNanos = now < pausedUntilNanos
+            ? pausedUntilNanos - now
+            : (long) ((1 - tokens) / currentRate * TimeUnit.SECONDS.toNanos(1));
+        waitNanos = Math.max(waitNanos, MIN_WAIT_NANOS);
+        totalWaitNanos += waitNanos;
+        return waitNanos;
+    }
+
+    private void refill(long now) {
+        double elapsedSeconds = (now - lastRefillNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+        tokens = Math.min(burst, tokens + elapsedSeconds * currentRate);
+        lastRefillNanos = now;
+    }
+
+    /**
+     * Registra uma resposta de throttling: reduz a taxa e pausa pelo Retry-After informado
+     */
+    public synchronized void onThrottle(long retryAfterMillis) {
+        long now = System.nanoTime();
+        refill(now);
+        throttleCount++;
+        currentRate = Math.max(minRate, currentRate / 2);
+        tokens = 0;
+        pausedUntilNanos = Math.max(pausedUntilNanos, now + TimeUnit.MILLISECONDS.toNanos(retryAfterMillis));
+        lastIncreaseNanos = now;
+        logger.warning(String.format("ServiceNow limitou as requisições; taxa reduzida para %.1f req/s, pausa de %d ms",
+                currentRate, retryAfterMillis));
+    }
+
+    /**
+     * Registra uma resposta sem throttling; recupera a taxa aos poucos
+     */
+    public synchronized void onSuccess() {
+        if (currentRate >= maxRate) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (now - lastIncreaseNanos >= TimeUnit.SECONDS.toNanos(1)) {
+            refill(now);
+            currentRate = Math.min(maxRate, currentRate + maxRate * 0.1);
+            lastIncreaseNanos = now;
+        }
+    }
+
+    public synchronized double getCurrentRate() {
+        return currentRate;
+    }
+
+    public synchronized long getThrottleCount() {
+        return throttleCount;
+    }
+
+    public synchronized long getAcquiredCount() {
+        return acquiredCount;
+    }
+
+    public synchronized long getAverageWaitMillis() {
+        return acquiredCount == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalWaitNanos / acquiredCount);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("[taxa atual=%.1f/%.1f req/s, requisições=%d, throttles=%d, espera média=%d ms]",
+                currentRate, maxRate, acquiredCount, throttleCount,
+                acquiredCount == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalWaitNanos / acquiredCount));
+    }
+}
@@ -0,0 +1,60 @@
+package com.empresa.integracao.servicenow;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.http.HttpConnectTimeoutException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Política de novas tentativas com backoff exponencial e jitter ("full jitter"):
+ * a espera antes da tentativa N é sorteada entre 0 e min(máximo, base * 2^(N-1))
+ * O sorteio espalha as repetições das várias threads, evitando rajadas sincronizadas
+ */
+public class RetryPolicy {
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMillis = Math.max(1, baseDelayMillis);
+        this.maxDelayMillis = Math.max(this.baseDelayMillis, maxDelayMillis);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Verifica se a falha pode ser repetida
+     * Com circuito aberto não adianta repetir; POST só é repetido se a requisição não chegou
+     * ao servidor (falha de conexão), para não criar o mesmo usuário duas vezes
+     *
+     * @param idempotent true para GET/PATCH, false para POST
+     */
+    public boolean isRetryable(IOException failure, boolean idempotent) {
+        if (failure instanceof CircuitOpenException) {
+            return false;
+        }
+        if (failure instanceof ServiceNowHttpException) {
+            return idempotent && ((ServiceNowHttpException) failure).isTransient();
+        }
+        if (failure instanceof ConnectException || failure instanceof HttpConnectTimeoutException) {
+            return true;
+        }
+        return idempotent;
+    }
+
+    /**
+     * Espera antes da próxima tentativa, dado o número da tentativa que falhou (1, 2, ...)
+     */
+    public long delayMillis(int failedAttempt) {
+        long ceiling = baseDelayMillis << Math.min(20, Math.max(0, failedAttempt - 1));
+        return ThreadLocalRandom.current().nextLong(Math.min(maxDelayMillis, ceiling) + 1);
+    }
+
+    @Override
+    public String toString() {
+        return "[tentativas=" + maxAttempts + ", base=" + baseDelayMillis + " ms, máximo=" + maxDelayMillis + " ms]";
+    }
+}
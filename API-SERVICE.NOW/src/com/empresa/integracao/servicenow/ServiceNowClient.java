@@ -1,19 +1,82 @@
 package com.empresa.integracao.servicenow;
 
 import com.empresa.integracao.config.DatabaseConfig;
+import com.empresa.integracao.metrics.Metrics;
 import com.empresa.integracao.model.Employee;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
 
 public class ServiceNowClient {
     private static final Logger logger = Logger.getLogger(ServiceNowClient.class.getName());
-    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final String USER_TABLE_PATH = "/api/now/table/sys_user";
+    private static final String BATCH_PATH = "/api/now/v1/batch";
+    
+    /**
+     * Limitador de taxa compartilhado por todas as instâncias e threads
+     */
+    private static final RateLimiter rateLimiter = new RateLimiter(
+        DatabaseConfig.getServiceNowRateLimit(),
+        DatabaseConfig.getServiceNowRateLimitBurst(),
+        DatabaseConfig.getServiceNowRateLimitMin());
+    
+    /**
+     * Disjuntor compartilhado: falha imediatamente enquanto a instância estiver fora do ar
+     */
+    private static final CircuitBreaker circuitBreaker = new CircuitBreaker(
+        DatabaseConfig.getServiceNowCircuitFailureThreshold(),
+        DatabaseConfig.getServiceNowCircuitOpenMillis());
+    
+    /**
+     * Novas tentativas para falhas transitórias (rede, 5xx)
+     */
+    private static final RetryPolicy retryPolicy = new RetryPolicy(
+        DatabaseConfig.getServiceNowRetryMaxAttempts(),
+        DatabaseConfig.getServiceNowRetryBaseDelayMillis(),
+        DatabaseConfig.getServiceNowRetryMaxDelayMillis());
+    
+    /**
+     * Cache de email para sys_id compartilhado, alimentado por consultas e criações
+     */
+    private static final UserLookupCache userCache = new UserLookupCache(
+        DatabaseConfig.getServiceNowCacheMaxEntries(),
+        DatabaseConfig.getServiceNowCacheTtlMillis(),
+        DatabaseConfig.getServiceNowCacheNegativeTtlMillis());
+    
+    /**
+     * HttpClient único e de longa duração: reaproveita conexões (keep-alive),
+     * prefere HTTP/2 (multiplexação) e usa um executor dedicado para as respostas
+     */
+    private static final HttpClient httpClient;
     
     /**
      * Configurações específicas para HTTPS no macOS
@@ -29,17 +92,740 @@ public class ServiceNowClient {
             System.setProperty("jdk.internal.httpclient.disableHostnameVerification", "true");
             logger.warning("Verificação de hostname SSL desativada para ambiente de desenvolvimento");
         }
+        
+        // Mantém conexões HTTP/1.1 ociosas abertas entre as chamadas (lido na criação do cliente)
+        if (System.getProperty("jdk.httpclient.keepalive.timeout") == null) {
+            System.setProperty("jdk.httpclient.keepalive.timeout",
+                String.valueOf(DatabaseConfig.getServiceNowKeepAliveSeconds()));
+        }
+        
+        httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofMillis(DatabaseConfig.getServiceNowConnectTimeoutMillis()))
+            .executor(Executors.newFixedThreadPool(DatabaseConfig.getServiceNowHttpThreads(), r -> {
+                Thread t = new Thread(r, "servicenow-http");
+                t.setDaemon(true);
+                return t;
+            }))
+            .build();
+        
+        Metrics.gauge("servicenow_circuit_open", () -> circuitBreaker.getState() == CircuitBreaker.State.CLOSED ? 0 : 1);
+        Metrics.gauge("servicenow_rate_limit_per_second", rateLimiter::getCurrentRate);
+        Metrics.gauge("servicenow_user_cache_entries", userCache::size);
+        Metrics.gauge("servicenow_user_cache_hit_ratio", userCache::getHitRate);
     }
     
+    /**
+     * Cria o usuário na Table API
+     *
+     * @return sys_id do usuário criado, lido da resposta sem materializá-la
+     */
     public String createUser(Employee employee) throws Exception {
-        logger.info("Criando usuário no ServiceNow: " + employee.getEmail());
+        logger.fine("Criando usuário no ServiceNow: " + employee.getEmail());
+        String sysId;
+        try {
+            HttpResponse<InputStream> response = send(buildCreateUserRequest(employee), HttpResponse.BodyHandlers.ofInputStream());
+            try (JsonParser parser = ServiceNowJson.parser(requireStatus(response, "Erro ao criar usuário", 201, 200))) {
+                sysId = requireSysId(ServiceNowJson.readResultSysId(parser));
+            }
+        } catch (Exception e) {
+            // Sem resposta não se sabe se o usuário foi criado: descarta o "não encontrado" em
+            // cache para que a próxima tentativa consulte o ServiceNow antes de criar de novo
+            userCache.invalidate(employee.getEmail());
+            throw e;
+        }
+        userCache.put(employee.getEmail(), sysId);
+        return sysId;
+    }
+    
+    /**
+     * Versão assíncrona de createUser: não bloqueia a thread chamadora,
+     * permitindo várias requisições simultâneas sobre as mesmas conexões
+     * O corpo é recebido em bytes (sem bloquear as threads do HttpClient) e lido com o parser
+     *
+     * @return sys_id do usuário criado
+     */
+    public CompletableFuture<String> createUserAsync(Employee employee) {
+        logger.fine("Criando usuário no ServiceNow (assíncrono): " + employee.getEmail());
+        try {
+            return sendAsync(buildCreateUserRequest(employee), 1)
+                .thenApply(response -> {
+                    try {
+                        checkStatus(response.statusCode(), response.body(), "Erro ao criar usuário", 201, 200);
+                        String sysId;
+                        try (JsonParser parser = ServiceNowJson.parser(response.body())) {
+                            sysId = requireSysId(ServiceNowJson.readResultSysId(parser));
+                        }
+                        userCache.put(employee.getEmail(), sysId);
+                        return sysId;
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                });
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+    
+    /**
+     * Cria vários usuários pela API de lote (/api/now/v1/batch), com até servicenow.batch.size
+     * POSTs para a Table API em cada requisição. O resultado de cada registro é lido de
+     * serviced_requests; registros rejeitados, não atendidos (unserviced_requests) ou de um
+     * lote que falhou por inteiro aparecem em failures e não são reenviados individualmente
+     *
+     * @return sys_ids criados e falhas, ambos pelo id do funcionário
+     */
+    public BatchCreateResult createUsersBatch(List<Employee> employees) {
+        BatchCreateResult result = new BatchCreateResult();
+        int batchSize = DatabaseConfig.getServiceNowBatchSize();
         
-        // ... resto do método mantido com logging adicional ...
+        for (int start = 0; start < employees.size(); start += batchSize) {
+            List<Employee> chunk = employees.subList(start, Math.min(employees.size(), start + batchSize));
+            logger.info("Criando " + chunk.size() + " usuários no ServiceNow em lote");
+            try {
+                HttpResponse<InputStream> response = send(buildBatchCreateRequest(chunk), HttpResponse.BodyHandlers.ofInputStream());
+                try (JsonParser parser = ServiceNowJson.parser(requireStatus(response, "Erro na requisição em lote", 200))) {
+                    parseBatchCreateResponse(parser, chunk, result);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                markUnanswered(chunk, result, "lote interrompido");
+                break;
+            } catch (CircuitOpenException e) {
+                // Nada deste bloco em diante foi enviado; não são falhas dos funcionários
+                result.unavailable = e;
+                break;
+            } catch (Exception e) {
+                markUnanswered(chunk, result, e.getMessage());
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Monta a requisição de lote: um item por funcionário, identificado pela posição no bloco,
+     * com o mesmo corpo JSON de createUser codificado em base64
+     */
+    private HttpRequest buildBatchCreateRequest(List<Employee> chunk) throws IOException {
+        // Os corpos internos usam um buffer próprio, pois o da thread recebe o lote
+        ByteArrayBuilder userBody = new ByteArrayBuilder(512);
+        byte[] body = ServiceNowJson.write(generator -> {
+            generator.writeStartObject();
+            generator.writeStringField("batch_request_id", UUID.randomUUID().toString());
+            generator.writeArrayFieldStart("rest_requests");
+            for (int i = 0; i < chunk.size(); i++) {
+                generator.writeStartObject();
+                generator.writeStringField("id", String.valueOf(i));
+                generator.writeStringField("url", USER_TABLE_PATH);
+                generator.writeStringField("method", "POST");
+                generator.writeArrayFieldStart("headers");
+                writeHeader(generator, "Content-Type", "application/json");
+                writeHeader(generator, "Accept", "application/json");
+                generator.writeEndArray();
+                
+                userBody.reset();
+                try (JsonGenerator userGenerator = ServiceNowJson.MAPPER.getFactory().createGenerator(userBody)) {
+                    ServiceNowJson.writeUser(userGenerator, chunk.get(i));
+                }
+                generator.writeBinaryField("body", userBody.toByteArray());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        });
+        
+        return newRequest(BATCH_PATH)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+            .build();
+    }
+    
+    private static void writeHeader(JsonGenerator generator, String name, String value) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("name", name);
+        generator.writeStringField("value", value);
+        generator.writeEndObject();
+    }
+    
+    /**
+     * Lê serviced_requests ({"id", "status_code", "body" em base64}) e registra o sys_id
+     * ou a falha de cada funcionário do bloco
+     */
+    private void parseBatchCreateResponse(JsonParser parser, List<Employee> chunk, BatchCreateResult result) throws IOException {
+        ServiceNowJson.readBatchItems(parser, (id, status, body) -> {
+            int index = parseIndex(id);
+            if (index < 0 || index >= chunk.size()) {
+                return;
+            }
+            Employee employee = chunk.get(index);
+            if (status != 201 && status != 200) {
+                result.failures.put(employee.getId(), "HTTP " + status + ": " + new String(body, StandardCharsets.UTF_8));
+                return;
+            }
+            String sysId;
+            try (JsonParser recordParser = ServiceNowJson.parser(body)) {
+                sysId = ServiceNowJson.readResultSysId(recordParser);
+            }
+            if (sysId == null || sysId.isEmpty()) {
+                result.failures.put(employee.getId(), "Resposta do ServiceNow sem sys_id");
+                return;
+            }
+            result.sysIds.put(employee.getId(), sysId);
+            userCache.put(employee.getEmail(), sysId);
+        });
+        markUnanswered(chunk, result, "não atendido pela requisição em lote");
+    }
+    
+    private static int parseIndex(String id) {
+        try {
+            return id == null ? -1 : Integer.parseInt(id);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+    
+    private static void markUnanswered(List<Employee> chunk, BatchCreateResult result, String reason) {
+        for (Employee employee : chunk) {
+            if (!result.sysIds.containsKey(employee.getId())) {
+                result.failures.putIfAbsent(employee.getId(), reason);
+            }
+        }
+    }
+    
+    /**
+     * Resultado de createUsersBatch, por id do funcionário
+     */
+    public static class BatchCreateResult {
+        public final Map<Integer, String> sysIds = new HashMap<>();
+        public final Map<Integer, String> failures = new HashMap<>();
+        /** Circuito aberto: os funcionários fora de sysIds e failures não foram enviados */
+        public CircuitOpenException unavailable;
     }
     
+    /**
+     * Consulta o usuário por email e retorna o corpo da resposta, sem interpretá-lo
+     */
     public String getUserByEmail(String email) throws Exception {
-        logger.info("Buscando usuário por email: " + email);
+        logger.fine("Buscando usuário por email: " + email);
+        HttpResponse<InputStream> response = send(buildUserByEmailRequest(email), HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = requireStatus(response, "Erro ao buscar usuário", 200)) {
+            return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+    
+    /**
+     * Atualiza (PATCH) os dados de um usuário existente
+     *
+     * @return sys_id atualizado, ou null se o sys_id não existir mais no ServiceNow (HTTP 404)
+     */
+    public String updateUser(String sysId, Employee employee) throws Exception {
+        logger.fine("Atualizando usuário no ServiceNow: " + employee.getEmail() + " (" + sysId + ")");
+        
+        HttpRequest request = newRequest(USER_TABLE_PATH + "/" + URLEncoder.encode(sysId, StandardCharsets.UTF_8))
+            .header("Content-Type", "application/json")
+            .method("PATCH", HttpRequest.BodyPublishers.ofByteArray(ServiceNowJson.writeUserBody(employee)))
+            .build();
+        
+        HttpResponse<InputStream> response = send(request, HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() == 404) {
+            closeBody(response);
+            userCache.invalidate(employee.getEmail());
+            return null;
+        }
+        String updatedSysId;
+        try (JsonParser parser = ServiceNowJson.parser(requireStatus(response, "Erro ao atualizar usuário", 200))) {
+            updatedSysId = ServiceNowJson.readResultSysId(parser);
+        }
+        userCache.put(employee.getEmail(), sysId);
+        return updatedSysId != null ? updatedSysId : sysId;
+    }
+    
+    /**
+     * Retorna o sys_id do usuário com o email informado, ou null se não existir
+     * Consulta primeiro o cache local; só vai ao ServiceNow em caso de falta
+     */
+    public String findSysIdByEmail(String email) throws Exception {
+        String cached = userCache.get(email);
+        if (cached != null) {
+            return cached == UserLookupCache.NOT_FOUND ? null : cached;
+        }
+        
+        logger.fine("Buscando usuário por email: " + email);
+        HttpResponse<InputStream> response = send(buildUserByEmailRequest(email), HttpResponse.BodyHandlers.ofInputStream());
+        String[] found = new String[1];
+        try (JsonParser parser = ServiceNowJson.parser(requireStatus(response, "Erro ao buscar usuário", 200))) {
+            ServiceNowJson.readUsers(parser, (userEmail, sysId) -> {
+                if (found[0] == null) {
+                    found[0] = sysId;
+                }
+            });
+        }
+        if (found[0] != null) {
+            userCache.put(email, found[0]);
+            return found[0];
+        }
+        userCache.putNotFound(email);
+        return null;
+    }
+    
+    /**
+     * Versão assíncrona de getUserByEmail
+     */
+    public CompletableFuture<String> getUserByEmailAsync(String email) {
+        logger.fine("Buscando usuário por email (assíncrono): " + email);
+        return sendAsync(buildUserByEmailRequest(email), 1).thenApply(response -> {
+            try {
+                checkStatus(response.statusCode(), response.body(), "Erro ao buscar usuário", 200);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+            return new String(response.body(), StandardCharsets.UTF_8);
+        });
+    }
+    
+    /**
+     * Resolve vários emails para sys_id com consultas "emailIN" (sysparm_fields=sys_id,email)
+     * A lista é dividida em blocos que respeitam o limite de tamanho da URL.
+     * Emails presentes no cache não geram consulta; emails com vírgula, que o operador IN
+     * separaria, são consultados um a um
+     *
+     * @return mapa de email normalizado (minúsculas) para sys_id; emails ausentes não aparecem
+     */
+    public Map<String, String> getUsersByEmails(Collection<String> emails) throws Exception {
+        Map<String, String> sysIdsByEmail = new HashMap<>();
+        List<String> uncached = new ArrayList<>();
+        Set<String> withComma = new LinkedHashSet<>();
+        
+        for (String email : emails) {
+            String cached = userCache.get(email);
+            if (cached == null) {
+                String normalized = normalizeEmail(email);
+                if (normalized != null && normalized.indexOf(',') >= 0) {
+                    withComma.add(normalized);
+                } else {
+                    uncached.add(email);
+                }
+            } else if (cached != UserLookupCache.NOT_FOUND) {
+                sysIdsByEmail.put(normalizeEmail(email), cached);
+            }
+        }
+        
+        for (List<String> chunk : chunkEmails(uncached)) {
+            logger.info("Buscando " + chunk.size() + " usuários por email em lote");
+            
+            HttpRequest request = newRequest(USER_TABLE_PATH + "?" + buildEmailInQuery(chunk)).GET().build();
+            HttpResponse<InputStream> response = send(request, HttpResponse.BodyHandlers.ofInputStream());
+            
+            // Lê os registros um a um, direto da resposta
+            try (JsonParser parser = ServiceNowJson.parser(requireStatus(response, "Erro ao buscar usuários", 200))) {
+                ServiceNowJson.readUsers(parser, (userEmail, sysId) -> {
+                    String email = normalizeEmail(userEmail);
+                    if (email != null && sysId != null && !sysIdsByEmail.containsKey(email)) {
+                        sysIdsByEmail.put(email, sysId);
+                        userCache.put(email, sysId);
+                    }
+                });
+            }
+            for (String email : chunk) {
+                if (!sysIdsByEmail.containsKey(email)) {
+                    userCache.putNotFound(email);
+                }
+            }
+        }
+        for (String email : withComma) {
+            String sysId = findSysIdByEmail(email);
+            if (sysId != null) {
+                sysIdsByEmail.put(email, sysId);
+            }
+        }
+        return sysIdsByEmail;
+    }
+    
+    /**
+     * Uma página da exportação de sys_user ordenada por email e sys_id, a partir do email
+     * informado (inclusive; null começa do início). Usada pela paginação por chave da
+     * reconciliação: só os campos comparados são pedidos e a contagem total é omitida
+     *
+     * @param extraQuery filtro adicional (encoded query) ou null
+     */
+    public List<ServiceNowUser> fetchUserPage(String fromEmail, String extraQuery, int limit) throws Exception {
+        StringBuilder query = new StringBuilder("emailISNOTEMPTY");
+        if (extraQuery != null) {
+            query.append('^').append(extraQuery);
+        }
+        if (fromEmail != null) {
+            // "^" separa condições na encoded query; dentro de um valor é escrito "^^"
+            query.append("^email>=").append(fromEmail.replace("^", "^^"));
+        }
+        query.append("^ORDERBYemail^ORDERBYsys_id");
+        
+        String path = USER_TABLE_PATH + "?sysparm_query=" + URLEncoder.encode(query.toString(), StandardCharsets.UTF_8) +
+                      "&sysparm_fields=sys_id,email,first_name,last_name,title" +
+                      "&sysparm_exclude_reference_link=true&sysparm_no_count=true&sysparm_limit=" + limit;
+        HttpResponse<InputStream> response = send(newRequest(path).GET().build(), HttpResponse.BodyHandlers.ofInputStream());
+        
+        List<ServiceNowUser> users = new ArrayList<>(limit);
+        try (JsonParser parser = ServiceNowJson.parser(requireStatus(response, "Erro ao exportar usuários", 200))) {
+            ServiceNowJson.readUserRecords(parser, users::add);
+        }
+        return users;
+    }
+    
+    /**
+     * Normaliza o email para comparação (o ServiceNow compara sem distinguir maiúsculas)
+     */
+    public static String normalizeEmail(String email) {
+        if (email == null || email.trim().isEmpty()) {
+            return null;
+        }
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    /**
+     * Divide os emails (normalizados, sem repetição) em blocos pelo número máximo
+     * e pelo tamanho da URL codificada. Emails com vírgula não cabem no operador IN
+     * e ficam de fora (getUsersByEmails os consulta individualmente)
+     */
+    private List<List<String>> chunkEmails(Collection<String> emails) {
+        int maxChunk = DatabaseConfig.getServiceNowLookupChunkSize();
+        int maxQueryLength = DatabaseConfig.getServiceNowLookupMaxUrlLength()
+            - (DatabaseConfig.getServiceNowUrl() + USER_TABLE_PATH).length() - 1;
+        
+        Set<String> unique = new LinkedHashSet<>();
+        for (String email : emails) {
+            String normalized = normalizeEmail(email);
+            if (normalized != null && normalized.indexOf(',') < 0) {
+                unique.add(normalized);
+            }
+        }
+        
+        List<List<String>> chunks = new ArrayList<>();
+        List<String> current = new ArrayList<>();
+        for (String email : unique) {
+            current.add(email);
+            if (current.size() > 1 &&
+                (current.size() > maxChunk || buildEmailInQuery(current).length() > maxQueryLength)) {
+                current.remove(current.size() - 1);
+                chunks.add(current);
+                current = new ArrayList<>();
+                current.add(email);
+            }
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
+    
+    private static String buildEmailInQuery(List<String> emails) {
+        return "sysparm_query=" + URLEncoder.encode("emailIN" + String.join(",", emails), StandardCharsets.UTF_8) +
+               "&sysparm_fields=sys_id,email&sysparm_limit=" + (emails.size() * 2);
+    }
+    
+    private HttpRequest buildCreateUserRequest(Employee employee) throws IOException {
+        return newRequest(USER_TABLE_PATH)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(ServiceNowJson.writeUserBody(employee)))
+            .build();
+    }
+    
+    private HttpRequest buildUserByEmailRequest(String email) {
+        String query = "sysparm_query=" + URLEncoder.encode("email=" + email, StandardCharsets.UTF_8) +
+                       "&sysparm_fields=sys_id,email&sysparm_limit=1";
+        return newRequest(USER_TABLE_PATH + "?" + query).GET().build();
+    }
+    
+    /**
+     * Retorna o corpo da resposta se o status for um dos aceitos; caso contrário lê o corpo
+     * (para a mensagem) e lança IOException
+     */
+    private static InputStream requireStatus(HttpResponse<InputStream> response, String message, int... accepted) throws IOException {
+        for (int status : accepted) {
+            if (response.statusCode() == status) {
+                return response.body();
+            }
+        }
+        byte[] body;
+        try (InputStream input = response.body()) {
+            body = input.readAllBytes();
+        }
+        checkStatus(response.statusCode(), body, message, accepted);
+        return response.body();
+    }
+    
+    private static void checkStatus(int statusCode, byte[] body, String message, int... accepted) throws IOException {
+        for (int status : accepted) {
+            if (statusCode == status) {
+                return;
+            }
+        }
+        throw new ServiceNowHttpException(message + " (HTTP " + statusCode + "): " + new String(body, StandardCharsets.UTF_8), statusCode);
+    }
+    
+    private static String requireSysId(String sysId) throws IOException {
+        if (sysId == null || sysId.isEmpty()) {
+            throw new IOException("Resposta do ServiceNow sem sys_id");
+        }
+        return sysId;
+    }
+    
+    /**
+     * Descarta o corpo de uma resposta que não será lida, liberando a conexão
+     */
+    private static void closeBody(HttpResponse<?> response) {
+        if (response.body() instanceof Closeable) {
+            try {
+                ((Closeable) response.body()).close();
+            } catch (IOException ignored) {
+                // A conexão será descartada pelo HttpClient
+            }
+        }
+    }
+    
+    /**
+     * Extrai o sys_id da resposta de criação ({"result": {"sys_id": ...}})
+     */
+    public String extractSysIdFromResponse(String response) throws IOException {
+        try (JsonParser parser = ServiceNowJson.parser(response)) {
+            return requireSysId(ServiceNowJson.readResultSysId(parser));
+        }
+    }
+    
+    /**
+     * Registra um par email/sys_id já conhecido (aquecimento do cache a partir do banco)
+     */
+    public static void cacheKnownUser(String email, String sysId) {
+        userCache.put(email, sysId);
+    }
+    
+    /**
+     * Cache de usuários e suas métricas (taxa de acerto)
+     */
+    public static UserLookupCache getUserCache() {
+        return userCache;
+    }
+    
+    /**
+     * Estado do disjuntor (aberto/fechado, chamadas recusadas)
+     */
+    public static CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+    
+    /**
+     * Métricas do limitador de taxa (taxa atual, throttles)
+     */
+    public static RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+    
+    private HttpRequest.Builder newRequest(String path) {
+        String credentials = DatabaseConfig.getServiceNowUsername() + ":" + DatabaseConfig.getServiceNowPassword();
+        return HttpRequest.newBuilder()
+            .uri(URI.create(DatabaseConfig.getServiceNowUrl() + path))
+            .timeout(Duration.ofMillis(DatabaseConfig.getServiceNowRequestTimeoutMillis()))
+            .header("Accept", "application/json")
+            .header("Authorization", "Basic " +
+                Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)));
+    }
+    
+    /**
+     * Envia a requisição passando pelo disjuntor e repetindo falhas transitórias
+     * (erros de rede e 5xx) com backoff exponencial e jitter. POST só é repetido quando a
+     * conexão nem chegou a ser aberta, para não duplicar usuários
+     */
+    private <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler) throws IOException, InterruptedException {
+        boolean idempotent = !"POST".equals(request.method());
+        
+        for (int attempt = 1; ; attempt++) {
+            HttpResponse<T> response;
+            long start = System.nanoTime();
+            try {
+                // Erros de rede e 5xx contam como falha no disjuntor
+                response = circuitBreaker.execute(() -> {
+                    HttpResponse<T> sent = sendThrottled(request, bodyHandler);
+                    recordResponse(request, sent.statusCode(), start);
+                    return sent;
+                }, sent -> sent.statusCode() >= 500);
+            } catch (IOException e) {
+                Metrics.counter("servicenow_errors_total", "type", e.getClass().getSimpleName()).increment();
+                if (attempt >= retryPolicy.getMaxAttempts() || !retryPolicy.isRetryable(e, idempotent)) {
+                    throw e;
+                }
+                backoff(request, attempt, e.toString());
+                continue;
+            }
+            
+            if (response.statusCode() < 500) {
+                return response;
+            }
+            if (!idempotent || attempt >= retryPolicy.getMaxAttempts()) {
+                return response;
+            }
+            closeBody(response);
+            backoff(request, attempt, "HTTP " + response.statusCode());
+        }
+    }
+    
+    /**
+     * Latência por método (inclui esperas do limitador de taxa) e contagem por status HTTP
+     */
+    private static void recordResponse(HttpRequest request, int statusCode, long startNanos) {
+        Metrics.timer("servicenow_request_seconds", "method", request.method()).recordSince(startNanos);
+        Metrics.counter("servicenow_responses_total", "status", String.valueOf(statusCode)).increment();
+    }
+    
+    private static void backoff(HttpRequest request, int attempt, String reason) throws InterruptedException {
+        Thread.sleep(nextDelay(request, attempt, reason));
+    }
+    
+    /**
+     * Registra a nova tentativa e retorna a espera antes dela
+     */
+    private static long nextDelay(HttpRequest request, int attempt, String reason) {
+        Metrics.counter("servicenow_retries_total").increment();
+        long delay = retryPolicy.delayMillis(attempt);
+        logger.warning("Falha transitória em " + request.method() + " " + request.uri().getPath() + " (" + reason +
+                       "); tentativa " + (attempt + 1) + "/" + retryPolicy.getMaxAttempts() + " em " + delay + " ms");
+        return delay;
+    }
+    
+    /**
+     * Envia a requisição respeitando o limitador de taxa
+     * Em 429 (ou 503 com Retry-After) aguarda o Retry-After e tenta novamente, até o limite
+     * configurado. Um 503 sem Retry-After é falha da instância: fica com o disjuntor e a
+     * política de novas tentativas (send)
+     */
+    private <T> HttpResponse<T> sendThrottled(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler) throws IOException, InterruptedException {
+        int maxAttempts = DatabaseConfig.getServiceNowThrottleMaxAttempts();
+        
+        for (int attempt = 1; ; attempt++) {
+            rateLimiter.acquire();
+            HttpResponse<T> response = httpClient.send(request, bodyHandler);
+            
+            if (!isThrottled(response)) {
+                rateLimiter.onSuccess();
+                return response;
+            }
+            
+            rateLimiter.onThrottle(retryAfterMillis(response, attempt));
+            if (attempt >= maxAttempts) {
+                return response;
+            }
+            closeBody(response);
+        }
+    }
+    
+    /**
+     * Versão assíncrona de send: aguarda o limitador, os Retry-After e o backoff sem bloquear
+     * threads. Como em send, o disjuntor registra só o resultado final de cada sequência de
+     * throttles e as falhas transitórias seguem a política de novas tentativas
+     */
+    private CompletableFuture<HttpResponse<byte[]>> sendAsync(HttpRequest request, int attempt) {
+        boolean idempotent = !"POST".equals(request.method());
+        boolean trial;
+        try {
+            trial = circuitBreaker.acquirePermission();
+        } catch (CircuitOpenException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        long start = System.nanoTime();
         
-        // ... resto do método mantido ...
+        return sendThrottledAsync(request, 1)
+            .handle((response, failure) -> {
+                Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                    ? failure.getCause() : failure;
+                if (cause == null) {
+                    recordResponse(request, response.statusCode(), start);
+                    if (response.statusCode() >= 500) {
+                        circuitBreaker.onFailure();
+                    } else {
+                        circuitBreaker.onSuccess();
+                    }
+                    return retryAsync(request, attempt, idempotent, response, null);
+                }
+                Metrics.counter("servicenow_errors_total", "type", cause.getClass().getSimpleName()).increment();
+                if (cause instanceof IOException) {
+                    circuitBreaker.onFailure();
+                } else if (trial) {
+                    // Terminou sem resultado: devolve a permissão de teste, como em execute
+                    circuitBreaker.releaseTrial();
+                }
+                return retryAsync(request, attempt, idempotent, null, cause);
+            })
+            .thenCompose(next -> next);
+    }
+    
+    /**
+     * Decide a próxima tentativa de sendAsync com as mesmas regras de send: falhas de rede
+     * repetíveis (RetryPolicy) e 5xx em métodos idempotentes, até o limite de tentativas
+     */
+    private CompletableFuture<HttpResponse<byte[]>> retryAsync(HttpRequest request, int attempt, boolean idempotent,
+                                                               HttpResponse<byte[]> response, Throwable failure) {
+        String reason;
+        if (failure != null) {
+            if (!(failure instanceof IOException) || attempt >= retryPolicy.getMaxAttempts()
+                    || !retryPolicy.isRetryable((IOException) failure, idempotent)) {
+                return CompletableFuture.failedFuture(failure);
+            }
+            reason = failure.toString();
+        } else {
+            if (response.statusCode() < 500 || !idempotent || attempt >= retryPolicy.getMaxAttempts()) {
+                return CompletableFuture.completedFuture(response);
+            }
+            reason = "HTTP " + response.statusCode();
+        }
+        Executor delayed = CompletableFuture.delayedExecutor(nextDelay(request, attempt, reason), TimeUnit.MILLISECONDS);
+        return CompletableFuture.supplyAsync(() -> sendAsync(request, attempt + 1), delayed).thenCompose(next -> next);
+    }
+    
+    /**
+     * Versão assíncrona de sendThrottled
+     */
+    private CompletableFuture<HttpResponse<byte[]>> sendThrottledAsync(HttpRequest request, int attempt) {
+        int maxAttempts = DatabaseConfig.getServiceNowThrottleMaxAttempts();
+        
+        return rateLimiter.acquireAsync()
+            .thenCompose(ignored -> httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()))
+            .thenCompose(response -> {
+                if (!isThrottled(response)) {
+                    rateLimiter.onSuccess();
+                    return CompletableFuture.completedFuture(response);
+                }
+                rateLimiter.onThrottle(retryAfterMillis(response, attempt));
+                if (attempt >= maxAttempts) {
+                    return CompletableFuture.completedFuture(response);
+                }
+                return sendThrottledAsync(request, attempt + 1);
+            });
+    }
+    
+    /**
+     * 429, ou 503 acompanhado de Retry-After (manutenção ou limite informado pela instância)
+     */
+    private static boolean isThrottled(HttpResponse<?> response) {
+        return response.statusCode() == 429
+            || (response.statusCode() == 503 && response.headers().firstValue("Retry-After").isPresent());
+    }
+    
+    /**
+     * Lê o Retry-After (segundos ou data HTTP); sem o cabeçalho, usa 1s por tentativa
+     */
+    private static long retryAfterMillis(HttpResponse<?> response, int attempt) {
+        Optional<String> retryAfter = response.headers().firstValue("Retry-After");
+        if (retryAfter.isPresent()) {
+            String value = retryAfter.get().trim();
+            try {
+                return Math.max(0, Long.parseLong(value) * 1000L);
+            } catch (NumberFormatException e) {
+                try {
+                    ZonedDateTime until = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+                    return Math.max(0, Duration.between(ZonedDateTime.now(until.getZone()), until).toMillis());
+                } catch (RuntimeException ignored) {
+                    // Formato desconhecido, usa o padrão
+                }
+            }
+        }
+        return 1000L * attempt;
     }
 }
\ No newline at end of file
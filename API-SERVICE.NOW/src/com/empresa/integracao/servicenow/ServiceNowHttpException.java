@@ -0,0 +1,29 @@
+package com.empresa.integracao.servicenow;
+
+import java.io.IOException;
+
+/**
+ * Resposta HTTP de erro do ServiceNow, com o status para classificar a falha
+ */
+public class ServiceNowHttpException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final int statusCode;
+
+    public ServiceNowHttpException(String message, int statusCode) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Erros do lado do servidor (5xx), timeout (408) e throttling (429) podem ser repetidos;
+     * os demais 4xx indicam problema na própria requisição
+     */
+    public boolean isTransient() {
+        return statusCode >= 500 || statusCode == 408 || statusCode == 429;
+    }
+}
@@ -0,0 +1,224 @@
+package com.empresa.integracao.servicenow;
+
+import com.empresa.integracao.model.Employee;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * JSON do cliente ServiceNow com a API de streaming do Jackson
+ * As respostas são lidas direto do corpo HTTP, extraindo apenas os campos usados (sem montar
+ * árvores JsonNode), e os corpos das requisições são escritos com JsonGenerator em um buffer
+ * reaproveitado por thread
+ */
+final class ServiceNowJson {
+    /**
+     * ObjectMapper único do cliente, já configurado; fornece a fábrica de parsers e geradores
+     */
+    static final ObjectMapper MAPPER = new ObjectMapper(JsonFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build())
+        .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private static final JsonFactory FACTORY = MAPPER.getFactory();
+
+    /**
+     * Buffer de escrita por thread; reset() mantém o bloco já alocado
+     */
+    private static final ThreadLocal<ByteArrayBuilder> BUFFER =
+        ThreadLocal.withInitial(() -> new ByteArrayBuilder(1024));
+
+    private ServiceNowJson() {}
+
+    /**
+     * Escrita de um corpo JSON com o gerador
+     */
+    interface BodyWriter {
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+    /**
+     * Item de serviced_requests da API de lote, com o corpo já decodificado do base64
+     */
+    interface BatchItemConsumer {
+        void accept(String id, int statusCode, byte[] body) throws IOException;
+    }
+
+    /**
+     * Escreve o JSON no buffer da thread e retorna uma cópia dos bytes
+     */
+    static byte[] write(BodyWriter writer) throws IOException {
+        ByteArrayBuilder buffer = BUFFER.get();
+        buffer.reset();
+        try (JsonGenerator generator = FACTORY.createGenerator(buffer)) {
+            writer.write(generator);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * Corpo do usuário para a Table API (sys_user)
+     */
+    static byte[] writeUserBody(Employee employee) throws IOException {
+        return write(generator -> writeUser(generator, employee));
+    }
+
+    static void writeUser(JsonGenerator generator, Employee employee) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("user_name", employee.getEmail());
+        generator.writeStringField("first_name", employee.getFirstName());
+        generator.writeStringField("last_name", employee.getLastName());
+        generator.writeStringField("email", employee.getEmail());
+        generator.writeStringField("department", employee.getDepartment());
+        generator.writeStringField("title", employee.getPosition());
+        generator.writeEndObject();
+    }
+
+    static JsonParser parser(InputStream input) throws IOException {
+        return FACTORY.createParser(input);
+    }
+
+    static JsonParser parser(byte[] input) throws IOException {
+        return FACTORY.createParser(input);
+    }
+
+    static JsonParser parser(String input) throws IOException {
+        return FACTORY.createParser(input);
+    }
+
+    /**
+     * Lê result.sys_id de uma resposta de criação ou atualização; null se ausente
+     */
+    static String readResultSysId(JsonParser parser) throws IOException {
+        if (!moveToTopLevelField(parser, "result") || parser.currentToken() != JsonToken.START_OBJECT) {
+            return null;
+        }
+        String sysId = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if ("sys_id".equals(field)) {
+                sysId = parser.getValueAsString();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return sysId;
+    }
+
+    /**
+     * Percorre a lista result de uma consulta, entregando (email, sys_id) de cada registro
+     */
+    static void readUsers(JsonParser parser, BiConsumer<String, String> consumer) throws IOException {
+        if (!moveToTopLevelField(parser, "result") || parser.currentToken() != JsonToken.START_ARRAY) {
+            return;
+        }
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String email = null;
+            String sysId = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if ("email".equals(field)) {
+                    email = parser.getValueAsString();
+                } else if ("sys_id".equals(field)) {
+                    sysId = parser.getValueAsString();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            consumer.accept(email, sysId);
+        }
+    }
+
+    /**
+     * Percorre a lista result de uma exportação de sys_user, entregando cada registro com os
+     * campos usados na reconciliação (valores de referência vêm como texto com
+     * sysparm_exclude_reference_link=true)
+     */
+    static void readUserRecords(JsonParser parser, Consumer<ServiceNowUser> consumer) throws IOException {
+        if (!moveToTopLevelField(parser, "result") || parser.currentToken() != JsonToken.START_ARRAY) {
+            return;
+        }
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String sysId = null;
+            String email = null;
+            String firstName = null;
+            String lastName = null;
+            String title = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if (parser.currentToken().isStructStart()) {
+                    parser.skipChildren();
+                } else if ("sys_id".equals(field)) {
+                    sysId = parser.getValueAsString();
+                } else if ("email".equals(field)) {
+                    email = parser.getValueAsString();
+                } else if ("first_name".equals(field)) {
+                    firstName = parser.getValueAsString();
+                } else if ("last_name".equals(field)) {
+                    lastName = parser.getValueAsString();
+                } else if ("title".equals(field)) {
+                    title = parser.getValueAsString();
+                }
+            }
+            consumer.accept(new ServiceNowUser(sysId, email, firstName, lastName, title));
+        }
+    }
+
+    /**
+     * Percorre serviced_requests da resposta da API de lote
+     */
+    static void readBatchItems(JsonParser parser, BatchItemConsumer consumer) throws IOException {
+        if (!moveToTopLevelField(parser, "serviced_requests") || parser.currentToken() != JsonToken.START_ARRAY) {
+            return;
+        }
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String id = null;
+            int statusCode = 0;
+            byte[] body = new byte[0];
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if ("id".equals(field)) {
+                    id = parser.getValueAsString();
+                } else if ("status_code".equals(field)) {
+                    statusCode = parser.getValueAsInt();
+                } else if ("body".equals(field) && parser.currentToken() == JsonToken.VALUE_STRING) {
+                    body = parser.getBinaryValue();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            consumer.accept(id, statusCode, body);
+        }
+    }
+
+    /**
+     * Avança até o valor do campo de primeiro nível informado; false se não existir
+     */
+    private static boolean moveToTopLevelField(JsonParser parser, String name) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            return false;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if (name.equals(field)) {
+                return true;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+}
@@ -0,0 +1,45 @@
+package com.empresa.integracao.servicenow;
+
+/**
+ * Registro de sys_user com os campos comparados na reconciliação
+ */
+public class ServiceNowUser {
+    private final String sysId;
+    private final String email;
+    private final String firstName;
+    private final String lastName;
+    private final String title;
+
+    public ServiceNowUser(String sysId, String email, String firstName, String lastName, String title) {
+        this.sysId = sysId;
+        this.email = email;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.title = title;
+    }
+
+    public String getSysId() {
+        return sysId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    @Override
+    public String toString() {
+        return email + " (" + sysId + ")";
+    }
+}
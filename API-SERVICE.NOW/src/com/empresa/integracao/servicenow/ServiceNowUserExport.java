@@ -0,0 +1,98 @@
+package com.empresa.integracao.servicenow;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Percorre todos os usuários de sys_user em ordem de email, uma página por vez, com
+ * paginação por chave: cada página começa no último email lido ("email>=último"), em vez de
+ * sysparm_offset, que obriga a instância a percorrer de novo os registros já entregues.
+ * Registros do último email já entregues (sys_id menor ou igual) são descartados, o que
+ * preserva emails repetidos na divisa entre páginas. A memória fica limitada a uma página
+ *
+ * Uma falha de consulta interrompe a exportação com IllegalStateException: uma exportação
+ * parcial faria a reconciliação apontar ausências que não existem
+ */
+public class ServiceNowUserExport implements Iterator<ServiceNowUser> {
+    private final ServiceNowClient client;
+    private final String extraQuery;
+    private final int pageSize;
+    private final ArrayDeque<ServiceNowUser> page = new ArrayDeque<>();
+    private String lastEmail;
+    private String lastSysId;
+    private boolean exhausted;
+    private long pages;
+    private long usersRead;
+
+    public ServiceNowUserExport(ServiceNowClient client, String extraQuery, int pageSize) {
+        this.client = client;
+        this.extraQuery = extraQuery;
+        this.pageSize = Math.max(1, pageSize);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (page.isEmpty() && !exhausted) {
+            fetchNextPage();
+        }
+        return !page.isEmpty();
+    }
+
+    @Override
+    public ServiceNowUser next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.poll();
+    }
+
+    private void fetchNextPage() {
+        List<ServiceNowUser> users;
+        try {
+            users = client.fetchUserPage(lastEmail, extraQuery, pageSize);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Exportação de usuários interrompida após " + lastEmail, e);
+        } catch (Exception e) {
+            throw new IllegalStateException("Erro ao exportar usuários após " + lastEmail + ": " + e.getMessage(), e);
+        }
+        pages++;
+
+        String previousEmail = lastEmail;
+        String previousSysId = lastSysId;
+        int added = 0;
+        for (ServiceNowUser user : users) {
+            String email = ServiceNowClient.normalizeEmail(user.getEmail());
+            if (email == null || user.getSysId() == null) {
+                continue;
+            }
+            if (email.equals(previousEmail) && user.getSysId().compareTo(previousSysId) <= 0) {
+                continue;
+            }
+            page.add(user);
+            added++;
+            lastEmail = email;
+            lastSysId = user.getSysId();
+        }
+        usersRead += added;
+
+        if (users.size() < pageSize) {
+            exhausted = true;
+        } else if (added == 0) {
+            // Página inteira com registros já entregues (mais repetições do mesmo email que o
+            // tamanho da página): repetir a consulta devolveria a mesma página
+            throw new IllegalStateException("Mais de " + pageSize + " usuários com o email " + previousEmail +
+                                            "; aumente reconcile.page.size");
+        }
+    }
+
+    public long getPages() {
+        return pages;
+    }
+
+    public long getUsersRead() {
+        return usersRead;
+    }
+}
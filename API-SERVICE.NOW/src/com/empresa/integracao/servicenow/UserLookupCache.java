@@ -0,0 +1,116 @@
+package com.empresa.integracao.servicenow;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache local de email (normalizado) para sys_id, na frente das consultas ao ServiceNow
+ * Limitado por quantidade (LRU), com expiração (TTL) e cache negativo para "não encontrado"
+ */
+public class UserLookupCache {
+    /**
+     * Valor retornado por get() quando o cache sabe que o usuário não existe
+     */
+    public static final String NOT_FOUND = "";
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final long negativeTtlMillis;
+    private final LinkedHashMap<String, CacheEntry> entries;
+
+    // Métricas
+    private long hits;
+    private long negativeHits;
+    private long misses;
+    private long evictions;
+
+    public UserLookupCache(int maxEntries, long ttlMillis, long negativeTtlMillis) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlMillis = ttlMillis;
+        this.negativeTtlMillis = negativeTtlMillis;
+        this.entries = new LinkedHashMap<String, CacheEntry>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                if (size() > UserLookupCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Retorna o sys_id em cache, NOT_FOUND se o usuário sabidamente não existe,
+     * ou null se o email não está em cache (ou expirou)
+     */
+    public synchronized String get(String email) {
+        String key = ServiceNowClient.normalizeEmail(email);
+        CacheEntry entry = key == null ? null : entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (entry.expiresAt < System.currentTimeMillis()) {
+            entries.remove(key);
+            misses++;
+            return null;
+        }
+        if (entry.sysId == null) {
+            negativeHits++;
+            return NOT_FOUND;
+        }
+        hits++;
+        return entry.sysId;
+    }
+
+    public synchronized void put(String email, String sysId) {
+        String key = ServiceNowClient.normalizeEmail(email);
+        if (key != null && sysId != null && !sysId.isEmpty()) {
+            entries.put(key, new CacheEntry(sysId, System.currentTimeMillis() + ttlMillis));
+        }
+    }
+
+    public synchronized void putNotFound(String email) {
+        String key = ServiceNowClient.normalizeEmail(email);
+        if (key != null && negativeTtlMillis > 0) {
+            entries.put(key, new CacheEntry(null, System.currentTimeMillis() + negativeTtlMillis));
+        }
+    }
+
+    public synchronized void invalidate(String email) {
+        String key = ServiceNowClient.normalizeEmail(email);
+        if (key != null) {
+            entries.remove(key);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized boolean isFull() {
+        return entries.size() >= maxEntries;
+    }
+
+    public synchronized double getHitRate() {
+        long total = hits + negativeHits + misses;
+        return total == 0 ? 0 : (hits + negativeHits) / (double) total;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("[entradas=%d/%d, acertos=%d, acertos negativos=%d, faltas=%d, taxa de acerto=%.1f%%, removidas=%d]",
+                entries.size(), maxEntries, hits, negativeHits, misses, getHitRate() * 100, evictions);
+    }
+
+    private static final class CacheEntry {
+        final String sysId;
+        final long expiresAt;
+
+        CacheEntry(String sysId, long expiresAt) {
+            this.sysId = sysId;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
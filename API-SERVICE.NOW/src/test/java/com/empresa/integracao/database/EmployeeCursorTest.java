@@ -0,0 +1,43 @@
+package com.empresa.integracao.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.empresa.integracao.config.DatabaseConfig;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Paginação por chave do EmployeeCursor no H2 dos testes
+ */
+class EmployeeCursorTest {
+
+    @BeforeAll
+    static void createTable() throws Exception {
+        TestDatabase.createEmployeeTable(25);
+    }
+
+    @Test
+    void readsEveryPage() {
+        try (EmployeeCursor cursor = new EmployeeCursor(EmployeeQueries.pendingPage(), 10, 10)) {
+            int count = 0;
+            while (cursor.hasNext()) {
+                assertEquals(++count, cursor.next().getId());
+            }
+            assertEquals(25, count);
+            assertEquals(25, cursor.getRowsRead());
+        }
+    }
+
+    @Test
+    void pageErrorFailsTheCursor() {
+        String sql = "SELECT * FROM " + DatabaseConfig.getEmployeeTable() + "_inexistente WHERE " +
+                     DatabaseConfig.getEmployeeIdColumn() + " > ?";
+        try (EmployeeCursor cursor = new EmployeeCursor(sql, 10, 10)) {
+            // O erro não pode parecer o fim das linhas
+            assertThrows(IllegalStateException.class, cursor::hasNext);
+            assertFalse(cursor.hasNext());
+        }
+    }
+}
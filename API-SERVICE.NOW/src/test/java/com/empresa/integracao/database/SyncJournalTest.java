@@ -0,0 +1,145 @@
+package com.empresa.integracao.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.empresa.integracao.config.DatabaseConfig;
+import com.empresa.integracao.model.Employee;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Recuperação do diário deixado por uma execução interrompida e compactação dos segmentos
+ * O diário é estático e recuperado uma vez por processo: o segmento da "execução anterior"
+ * é escrito antes de recover(), em setUp
+ */
+class SyncJournalTest {
+    private static final String SOURCE = DatabaseConfig.DEFAULT_SOURCE;
+    private static final String SYS_ID_1 = "11111111111111111111111111111111";
+    private static final String SYS_ID_2 = "22222222222222222222222222222222";
+    private static final String SYS_ID_3 = "33333333333333333333333333333333";
+
+    private static Path directory;
+    private static Path previousSegment;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        TestDatabase.createEmployeeTable(4);
+        assertTrue(DatabaseManager.initializeSchema());
+
+        directory = Paths.get(DatabaseConfig.getSyncJournalDir());
+        if (Files.exists(directory)) {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+        }
+        Files.createDirectories(directory);
+
+        String fingerprint = DatabaseManager.getEmployeeById(1).fingerprint();
+        previousSegment = directory.resolve("segmento-00000007.log");
+        Files.write(previousSegment, String.join("\n",
+            // 1: enviado e não gravado no banco
+            "I\t" + SOURCE + "\t1\t" + TestDatabase.email(1),
+            "R\t" + SOURCE + "\t1\t" + TestDatabase.email(1) + "\t" + SYS_ID_1 + "\t" + fingerprint,
+            // 2: alterado depois do envio (hash diferente)
+            "I\t" + SOURCE + "\t2\t" + TestDatabase.email(2),
+            "R\t" + SOURCE + "\t2\t" + TestDatabase.email(2) + "\t" + SYS_ID_2 + "\t0000000000000000",
+            // 3: já confirmado no banco
+            "I\t" + SOURCE + "\t3\t" + TestDatabase.email(3),
+            "R\t" + SOURCE + "\t3\t" + TestDatabase.email(3) + "\t" + SYS_ID_3 + "\t" + fingerprint,
+            "C\t" + SOURCE + "\t3",
+            // 4: criação sem resposta registrada
+            "I\t" + SOURCE + "\t4\t" + TestDatabase.email(4),
+            // 99: não existe mais na tabela
+            "R\t" + SOURCE + "\t99\tsaiu@empresa.com\t" + SYS_ID_3 + "\t" + fingerprint,
+            // gravação interrompida no meio da linha
+            "R\t" + SOURCE + "\t4\t" + TestDatabase.email(4) + "\t" + SYS_ID_3).getBytes(StandardCharsets.UTF_8));
+
+        SyncJournal.recover();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        SyncJournal.close();
+    }
+
+    @Test
+    void recoverCompletesPendingResults() throws Exception {
+        Employee sent = DatabaseManager.getEmployeeById(1);
+        assertTrue(sent.isSyncedToServiceNow());
+        assertEquals(SYS_ID_1, sent.getServiceNowSysId());
+        assertEquals(sent.fingerprint(), sent.getLastPushedHash());
+
+        Employee changed = DatabaseManager.getEmployeeById(2);
+        assertFalse(changed.isSyncedToServiceNow());
+        assertEquals(SYS_ID_2, changed.getServiceNowSysId());
+
+        for (int id : new int[] { 3, 4 }) {
+            Employee untouched = DatabaseManager.getEmployeeById(id);
+            assertFalse(untouched.isSyncedToServiceNow());
+            assertNull(untouched.getServiceNowSysId());
+        }
+        assertFalse(Files.exists(previousSegment));
+    }
+
+    @Test
+    void confirmedSegmentsAreCompacted() throws Exception {
+        Employee employee = new Employee(10, "Nome", "Sobrenome", "novo@empresa.com", "TI", "Analista");
+        employee.setSource(SOURCE);
+        int before = SyncJournal.getOutstandingCount();
+
+        SyncJournal.intent(employee);
+        employee.setServiceNowSysId(SYS_ID_1);
+        employee.setLastPushedHash(employee.fingerprint());
+        SyncJournal.result(employee);
+        assertEquals(before + 1, SyncJournal.getOutstandingCount());
+
+        // O segmento com o resultado em aberto é fechado, mas não apagado
+        SyncJournal.checkpoint();
+        List<Path> segments = segments();
+        assertEquals(2, segments.size());
+        assertTrue(Files.readString(segments.get(0)).contains(SYS_ID_1));
+
+        SyncJournal.committed(10);
+        assertEquals(before, SyncJournal.getOutstandingCount());
+        SyncJournal.checkpoint();
+        segments = segments();
+        assertEquals(1, segments.size());
+        assertEquals(0, Files.size(segments.get(0)));
+    }
+
+    @Test
+    void abandonedIntentIsClosed() {
+        Employee employee = new Employee(11, "Nome", "Sobrenome", "falhou@empresa.com", "TI", "Analista");
+        employee.setSource(SOURCE);
+        int before = SyncJournal.getOutstandingCount();
+
+        SyncJournal.intent(employee);
+        assertEquals(before + 1, SyncJournal.getOutstandingCount());
+        SyncJournal.abandoned(employee);
+        assertEquals(before, SyncJournal.getOutstandingCount());
+    }
+
+    private static List<Path> segments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "segmento-*.log")) {
+            files.forEach(segments::add);
+        }
+        segments.sort(null);
+        return segments;
+    }
+}
@@ -0,0 +1,107 @@
+package com.empresa.integracao.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.empresa.integracao.config.DatabaseConfig;
+import com.empresa.integracao.model.Employee;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SyncStateStoreTest {
+    private static final String SYS_ID = "0123456789abcdef0123456789abcdef";
+    private final Path file = Paths.get(DatabaseConfig.getSyncStateFile());
+
+    @BeforeEach
+    @AfterEach
+    void removeFile() throws IOException {
+        SyncStateStore.closeAll();
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    void unknownEmployeesArePending() {
+        SyncStateStore store = SyncStateStore.current();
+        assertFalse(store.isSynced(1));
+        assertNull(store.getSysId(1));
+
+        Employee employee = employee(1);
+        employee.setSyncedToServiceNow(true);
+        store.apply(employee);
+        assertFalse(employee.isSyncedToServiceNow());
+    }
+
+    @Test
+    void putOverwritesExistingRecord() {
+        SyncStateStore store = SyncStateStore.current();
+        store.put(7, false, 0L, null, null);
+        store.put(7, true, 1000L, SYS_ID, "00000000000000ff");
+        assertEquals(1, store.size());
+
+        Employee employee = employee(7);
+        store.apply(employee);
+        assertTrue(employee.isSyncedToServiceNow());
+        assertEquals(SYS_ID, employee.getServiceNowSysId());
+        assertEquals("00000000000000ff", employee.getLastPushedHash());
+    }
+
+    @Test
+    void putSysIdKeepsStatusAndIncludesMissingAsPending() {
+        SyncStateStore store = SyncStateStore.current();
+        store.put(1, true, 1000L, "antigo", "00000000000000ff");
+        store.putSysId(1, SYS_ID);
+        store.putSysId(2, SYS_ID);
+
+        assertTrue(store.isSynced(1));
+        assertEquals(SYS_ID, store.getSysId(1));
+        assertFalse(store.isSynced(2));
+        assertEquals(SYS_ID, store.getSysId(2));
+    }
+
+    @Test
+    void growsBeyondInitialCapacityAndSurvivesReopen() {
+        int rows = DatabaseConfig.getSyncStateInitialCapacity() * 10;
+        SyncStateStore store = SyncStateStore.current();
+        for (int id = 1; id <= rows; id++) {
+            store.put(id, id % 3 == 0, id, String.format("%032x", id), String.format("%016x", id));
+        }
+        SyncStateStore.closeAll();
+
+        SyncStateStore reopened = SyncStateStore.current();
+        assertEquals(rows, reopened.size());
+        for (int id = 1; id <= rows; id++) {
+            assertEquals(id % 3 == 0, reopened.isSynced(id), "id " + id);
+            assertEquals(String.format("%032x", id), reopened.getSysId(id));
+        }
+        assertFalse(reopened.isSynced(rows + 1));
+    }
+
+    @Test
+    void oversizedValuesAreRejected() {
+        SyncStateStore store = SyncStateStore.current();
+        assertThrows(IllegalArgumentException.class, () -> store.put(1, true, 0L, SYS_ID + "x", null));
+        assertThrows(IllegalArgumentException.class, () -> store.put(1, true, 0L, SYS_ID, "00000000000000000"));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void invalidFileIsRefused() throws IOException {
+        Files.write(file, new byte[] { 1, 2, 3 });
+        assertThrows(UncheckedIOException.class, SyncStateStore::current);
+    }
+
+    private static Employee employee(int id) {
+        Employee employee = new Employee();
+        employee.setId(id);
+        return employee;
+    }
+}
@@ -0,0 +1,67 @@
+package com.empresa.integracao.database;
+
+import com.empresa.integracao.config.DatabaseConfig;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Tabela de funcionários no H2 em memória dos testes (src/test/resources/application.properties)
+ */
+public final class TestDatabase {
+
+    private TestDatabase() {}
+
+    /**
+     * Recria a tabela com os ids 1..rows, todos pendentes
+     */
+    public static void createEmployeeTable(int rows) throws SQLException {
+        String table = DatabaseConfig.getEmployeeTable();
+        try (Connection conn = DatabaseManager.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DROP TABLE IF EXISTS " + table);
+            stmt.executeUpdate("CREATE TABLE " + table + " (" +
+                DatabaseConfig.getEmployeeIdColumn() + " INT PRIMARY KEY, " +
+                DatabaseConfig.getEmployeeFirstNameColumn() + " VARCHAR(100) NOT NULL, " +
+                DatabaseConfig.getEmployeeLastNameColumn() + " VARCHAR(100) NOT NULL, " +
+                DatabaseConfig.getEmployeeEmailColumn() + " VARCHAR(200) NOT NULL, " +
+                DatabaseConfig.getEmployeeDepartmentColumn() + " VARCHAR(100), " +
+                DatabaseConfig.getEmployeePositionColumn() + " VARCHAR(100), " +
+                DatabaseConfig.getEmployeeHireDateColumn() + " TIMESTAMP, " +
+                DatabaseConfig.getEmployeeSyncColumn() + " TINYINT DEFAULT 0, " +
+                DatabaseConfig.getEmployeeSyncDateColumn() + " TIMESTAMP NULL, " +
+                DatabaseConfig.getEmployeeSysIdColumn() + " VARCHAR(100) NULL, " +
+                DatabaseConfig.getEmployeeHashColumn() + " VARCHAR(16) NULL)");
+        }
+
+        String sql = "INSERT INTO " + table + " (" +
+            DatabaseConfig.getEmployeeIdColumn() + ", " +
+            DatabaseConfig.getEmployeeFirstNameColumn() + ", " +
+            DatabaseConfig.getEmployeeLastNameColumn() + ", " +
+            DatabaseConfig.getEmployeeEmailColumn() + ", " +
+            DatabaseConfig.getEmployeeDepartmentColumn() + ", " +
+            DatabaseConfig.getEmployeePositionColumn() + ", " +
+            DatabaseConfig.getEmployeeHireDateColumn() + ") VALUES (?, ?, ?, ?, ?, ?, ?)";
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int id = 1; id <= rows; id++) {
+                pstmt.setInt(1, id);
+                pstmt.setString(2, "Nome" + id);
+                pstmt.setString(3, "Sobrenome" + id);
+                pstmt.setString(4, email(id));
+                pstmt.setString(5, "TI");
+                pstmt.setString(6, "Analista");
+                pstmt.setTimestamp(7, Timestamp.valueOf(LocalDateTime.of(2020, 1, 1, 9, 0)));
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    public static String email(int id) {
+        return "funcionario" + id + "@empresa.com";
+    }
+}
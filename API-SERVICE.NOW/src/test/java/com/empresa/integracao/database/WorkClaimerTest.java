@@ -0,0 +1,83 @@
+package com.empresa.integracao.database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.empresa.integracao.config.DatabaseConfig;
+import com.empresa.integracao.model.Employee;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Reserva de linhas entre nós (UPDATE condicional no H2), com os prazos no relógio do banco
+ */
+class WorkClaimerTest {
+    private static final long LEASE_MILLIS = 60_000L;
+
+    @BeforeEach
+    void createTable() throws Exception {
+        TestDatabase.createEmployeeTable(10);
+        try (Connection conn = DatabaseManager.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("ALTER TABLE " + DatabaseConfig.getEmployeeTable() + " ADD COLUMN " +
+                               DatabaseConfig.getEmployeeLeaseOwnerColumn() + " VARCHAR(100) NULL");
+            stmt.executeUpdate("ALTER TABLE " + DatabaseConfig.getEmployeeTable() + " ADD COLUMN " +
+                               DatabaseConfig.getEmployeeLeaseUntilColumn() + " TIMESTAMP NULL");
+        }
+    }
+
+    @Test
+    void nodesClaimDisjointBatches() throws Exception {
+        try (WorkClaimer first = new WorkClaimer("no-a", 3, LEASE_MILLIS);
+             WorkClaimer second = new WorkClaimer("no-b", 3, LEASE_MILLIS)) {
+            assertEquals(List.of(1, 2, 3), ids(first.claimNext()));
+            assertEquals(List.of(4, 5, 6), ids(second.claimNext()));
+            // Prazo gravado pelo relógio do banco, à frente do instante atual dele
+            assertEquals(6, count(DatabaseConfig.getEmployeeLeaseUntilColumn() + " > LOCALTIMESTAMP"));
+        }
+    }
+
+    @Test
+    void expiredLeaseIsReclaimed() throws Exception {
+        try (WorkClaimer first = new WorkClaimer("no-a", 3, LEASE_MILLIS);
+             WorkClaimer second = new WorkClaimer("no-b", 3, LEASE_MILLIS)) {
+            assertEquals(List.of(1, 2, 3), ids(first.claimNext()));
+            update("SET " + DatabaseConfig.getEmployeeLeaseUntilColumn() + " = DATEADD(SECOND, -5, LOCALTIMESTAMP)" +
+                   " WHERE " + DatabaseConfig.getEmployeeIdColumn() + " = 2");
+
+            List<Integer> claimed = ids(second.claimNext());
+            assertEquals(List.of(2, 4, 5), claimed);
+            assertEquals(2, count(DatabaseConfig.getEmployeeLeaseOwnerColumn() + " = 'no-a'"));
+        }
+    }
+
+    private static List<Integer> ids(List<Employee> employees) {
+        List<Integer> ids = new ArrayList<>(employees.size());
+        for (Employee employee : employees) {
+            ids.add(employee.getId());
+        }
+        return ids;
+    }
+
+    private static int count(String condition) throws SQLException {
+        try (Connection conn = DatabaseManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + DatabaseConfig.getEmployeeTable() +
+                                              " WHERE " + condition)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static void update(String clause) throws SQLException {
+        try (Connection conn = DatabaseManager.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("UPDATE " + DatabaseConfig.getEmployeeTable() + " " + clause);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.empresa.integracao.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.Test;
+
+class CronScheduleTest {
+    /** Segunda-feira */
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2024, 1, 1, 10, 7, 30);
+
+    @Test
+    void everyMinuteIsStrictlyAfter() {
+        CronSchedule schedule = new CronSchedule("* * * * *");
+        assertEquals(LocalDateTime.of(2024, 1, 1, 10, 8), schedule.next(MONDAY));
+        assertEquals(LocalDateTime.of(2024, 1, 1, 10, 9), schedule.next(LocalDateTime.of(2024, 1, 1, 10, 8)));
+    }
+
+    @Test
+    void stepsAndRanges() {
+        CronSchedule schedule = new CronSchedule("*/15 8-18/2 * * *");
+        assertEquals(LocalDateTime.of(2024, 1, 1, 10, 15), schedule.next(MONDAY));
+        assertEquals(LocalDateTime.of(2024, 1, 1, 12, 0), schedule.next(LocalDateTime.of(2024, 1, 1, 10, 45)));
+        assertEquals(LocalDateTime.of(2024, 1, 2, 8, 0), schedule.next(LocalDateTime.of(2024, 1, 1, 18, 45)));
+    }
+
+    @Test
+    void listsOfValues() {
+        CronSchedule schedule = new CronSchedule("0 6,22 1,15 * *");
+        assertEquals(LocalDateTime.of(2024, 1, 1, 22, 0), schedule.next(MONDAY));
+        assertEquals(LocalDateTime.of(2024, 1, 15, 6, 0), schedule.next(LocalDateTime.of(2024, 1, 1, 22, 0)));
+    }
+
+    @Test
+    void weekdaysWithSundayAsZeroOrSeven() {
+        assertEquals(LocalDateTime.of(2024, 1, 7, 3, 0), new CronSchedule("0 3 * * 0").next(MONDAY));
+        assertEquals(LocalDateTime.of(2024, 1, 7, 3, 0), new CronSchedule("0 3 * * 7").next(MONDAY));
+        assertEquals(LocalDateTime.of(2024, 1, 2, 0, 0), new CronSchedule("0 0 * * 1-5").next(MONDAY));
+    }
+
+    @Test
+    void restrictedDayAndWeekdayMatchEither() {
+        // Dia 20 ou sexta-feira, o que vier primeiro
+        CronSchedule schedule = new CronSchedule("0 0 20 * 5");
+        assertEquals(LocalDateTime.of(2024, 1, 5, 0, 0), schedule.next(MONDAY));
+        assertEquals(LocalDateTime.of(2024, 1, 19, 0, 0), schedule.next(LocalDateTime.of(2024, 1, 12, 0, 0)));
+        assertEquals(LocalDateTime.of(2024, 1, 20, 0, 0), schedule.next(LocalDateTime.of(2024, 1, 19, 0, 0)));
+    }
+
+    @Test
+    void monthBoundaryAndLeapDay() {
+        assertEquals(LocalDateTime.of(2024, 2, 29, 12, 0), new CronSchedule("0 12 29 2 *").next(MONDAY));
+        assertEquals(LocalDateTime.of(2024, 3, 1, 0, 0), new CronSchedule("0 0 1 * *").next(LocalDateTime.of(2024, 2, 10, 0, 0)));
+    }
+
+    @Test
+    void invalidExpressionsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new CronSchedule("* * * *"));
+        assertThrows(IllegalArgumentException.class, () -> new CronSchedule("60 * * * *"));
+        assertThrows(IllegalArgumentException.class, () -> new CronSchedule("* 10-2 * * *"));
+        assertThrows(IllegalArgumentException.class, () -> new CronSchedule("a * * * *"));
+        assertThrows(IllegalArgumentException.class, () -> new CronSchedule("*/0 * * * *"));
+    }
+
+    @Test
+    void impossibleScheduleHasNoNextTime() {
+        assertThrows(IllegalStateException.class, () -> new CronSchedule("0 0 31 2 *").next(MONDAY));
+    }
+}
@@ -0,0 +1,135 @@
+package com.empresa.integracao.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.empresa.integracao.model.Employee;
+import com.empresa.integracao.servicenow.ServiceNowUser;
+import java.io.BufferedWriter;
+import java.io.StringWriter;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Classificação da intercalação por email (Reconciler.Merge), sem banco nem ServiceNow
+ */
+class ReconcilerTest {
+
+    @Test
+    void classifiesEachEmail() throws Exception {
+        List<Employee> local = Arrays.asList(
+            employee(1, "ana@empresa.com", "Ana", "sys-ana"),
+            employee(2, "bia@empresa.com", "Bia", null),
+            employee(3, "caio@empresa.com", "Caio", "sys-caio"),
+            employee(4, "dani@empresa.com", "Dani", "sys-dani"));
+        List<ServiceNowUser> remote = Arrays.asList(
+            user("sys-ana", "ana@empresa.com", "Ana"),
+            user("sys-bia", "bia@empresa.com", "Bia"),
+            user("sys-caio", "caio@empresa.com", "Caio Henrique"),
+            user("sys-eva", "eva@empresa.com", "Eva"));
+
+        StringWriter report = new StringWriter();
+        Reconciler.Summary summary = merge(local, remote, report);
+
+        assertEquals(1, summary.count(Reconciler.Category.AUSENTE));
+        assertEquals(1, summary.count(Reconciler.Category.ORFAO));
+        assertEquals(1, summary.count(Reconciler.Category.DIVERGENTE));
+        assertEquals(1, summary.count(Reconciler.Category.SYS_ID_DESATUALIZADO));
+        assertFalse(summary.isConsistent());
+        assertTrue(summary.isComplete());
+
+        String csv = report.toString();
+        assertTrue(csv.contains("AUSENTE,4,dani@empresa.com,sys-dani,,"));
+        assertTrue(csv.contains("ORFAO,,eva@empresa.com,,sys-eva,"));
+        assertTrue(csv.contains("SYS_ID_DESATUALIZADO,2,bia@empresa.com,,sys-bia,sys_id local vazio"));
+        assertTrue(csv.contains("DIVERGENTE,3,caio@empresa.com,sys-caio,sys-caio,first_name: Caio -> Caio Henrique"));
+    }
+
+    @Test
+    void emailsAreComparedNormalized() throws Exception {
+        Reconciler.Summary summary = merge(
+            Arrays.asList(employee(1, " Ana@Empresa.com", "Ana", "sys-ana")),
+            Arrays.asList(user("sys-ana", "ana@empresa.com", "Ana")),
+            new StringWriter());
+        assertTrue(summary.isConsistent());
+    }
+
+    @Test
+    void duplicatesAndOutOfOrderRecordsAreSkipped() throws Exception {
+        List<Employee> local = Arrays.asList(
+            employee(1, "ana@empresa.com", "Ana", "sys-ana"),
+            employee(2, "ana@empresa.com", "Ana", "sys-ana"),
+            employee(3, "caio@empresa.com", "Caio", "sys-caio"),
+            employee(4, "bia@empresa.com", "Bia", "sys-bia"));
+        List<ServiceNowUser> remote = Arrays.asList(
+            user("sys-ana", "ana@empresa.com", "Ana"),
+            user("sys-bia", "bia@empresa.com", "Bia"),
+            user("sys-bia2", "bia@empresa.com", "Bia"),
+            user("sys-caio", "caio@empresa.com", "Caio"));
+
+        Reconciler.Summary summary = merge(local, remote, new StringWriter());
+
+        assertEquals(1, summary.count(Reconciler.Category.DUPLICADO_LOCAL));
+        assertEquals(1, summary.count(Reconciler.Category.DUPLICADO_SERVICENOW));
+        assertEquals(1, summary.count(Reconciler.Category.FORA_DE_ORDEM));
+        // bia foi descartada do lado local por estar fora de ordem
+        assertEquals(1, summary.count(Reconciler.Category.ORFAO));
+        assertEquals(0, summary.count(Reconciler.Category.AUSENTE));
+    }
+
+    @Test
+    void emptySourcesAreConsistent() throws Exception {
+        Reconciler.Summary summary = merge(Arrays.asList(), Arrays.asList(), new StringWriter());
+        assertTrue(summary.isConsistent());
+    }
+
+    @Test
+    void sourcesAreInterleavedByEmail() throws Exception {
+        List<Employee> first = Arrays.asList(
+            employee(1, "ana@empresa.com", "Ana", "sys-ana"),
+            employee(2, "caio@empresa.com", "Caio", "sys-caio"));
+        List<Employee> second = Arrays.asList(
+            employee(1, "bia@empresa.com", "Bia", "sys-bia"),
+            employee(2, "caio@empresa.com", "Caio", "sys-caio"),
+            employee(3, "dani@empresa.com", "Dani", "sys-dani"));
+        List<ServiceNowUser> remote = Arrays.asList(
+            user("sys-ana", "ana@empresa.com", "Ana"),
+            user("sys-bia", "bia@empresa.com", "Bia"),
+            user("sys-caio", "caio@empresa.com", "Caio"),
+            user("sys-dani", "dani@empresa.com", "Dani"));
+
+        Reconciler.Summary summary = new Reconciler.Summary(Paths.get("relatorio.csv"));
+        try (BufferedWriter report = new BufferedWriter(new StringWriter())) {
+            Iterator<Employee> local = new Reconciler.SourceMerge(Arrays.asList(first.iterator(), second.iterator()));
+            new Reconciler.Merge(local, remote.iterator(), report, summary, false).run();
+        }
+
+        // Usuários de uma origem não são órfãos da outra; o email nas duas é duplicado
+        assertEquals(0, summary.count(Reconciler.Category.ORFAO));
+        assertEquals(0, summary.count(Reconciler.Category.FORA_DE_ORDEM));
+        assertEquals(1, summary.count(Reconciler.Category.DUPLICADO_LOCAL));
+    }
+
+    private static Reconciler.Summary merge(List<Employee> local, List<ServiceNowUser> remote, StringWriter out)
+            throws Exception {
+        Reconciler.Summary summary = new Reconciler.Summary(Paths.get("relatorio.csv"));
+        try (BufferedWriter report = new BufferedWriter(out)) {
+            new Reconciler.Merge(local.iterator(), remote.iterator(), report, summary, false).run();
+        }
+        return summary;
+    }
+
+    private static Employee employee(int id, String email, String firstName, String sysId) {
+        Employee employee = new Employee(id, firstName, "Silva", email, "TI", "Analista");
+        employee.setServiceNowSysId(sysId);
+        return employee;
+    }
+
+    private static ServiceNowUser user(String sysId, String email, String firstName) {
+        return new ServiceNowUser(sysId, email, firstName, "Silva", "Analista");
+    }
+}
@@ -0,0 +1,109 @@
+package com.empresa.integracao.servicenow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+
+    @Test
+    void opensAfterConsecutiveFailures() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(3, 60_000);
+        for (int i = 0; i < 2; i++) {
+            breaker.acquirePermission();
+            breaker.onFailure();
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        breaker.acquirePermission();
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        CircuitOpenException rejected = assertThrows(CircuitOpenException.class, breaker::acquirePermission);
+        assertTrue(rejected.getRetryInMillis() > 0);
+    }
+
+    @Test
+    void successResetsFailureCount() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(2, 60_000);
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.acquirePermission();
+    }
+
+    @Test
+    void halfOpenAllowsSingleTrial() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(1, 0);
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        breaker.acquirePermission();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertThrows(CircuitOpenException.class, breaker::acquirePermission);
+
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.acquirePermission();
+        breaker.acquirePermission();
+    }
+
+    @Test
+    void failedTrialReopens() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(1, 0);
+        breaker.onFailure();
+        breaker.acquirePermission();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        // Com espera zero a próxima chamada já é uma nova tentativa de teste
+        breaker.acquirePermission();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    void executeRecordsFailuresAndFailedResults() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(2, 60_000);
+        assertThrows(IOException.class, () -> breaker.execute(() -> {
+            throw new IOException("conexão recusada");
+        }, result -> false));
+        assertEquals(503, breaker.execute(() -> 503, status -> status >= 500));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertThrows(CircuitOpenException.class, () -> breaker.execute(() -> 200, status -> false));
+    }
+
+    @Test
+    void interruptedTrialReleasesPermission() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(1, 0);
+        breaker.onFailure();
+
+        assertThrows(InterruptedException.class, () -> breaker.execute(() -> {
+            throw new InterruptedException();
+        }, result -> false));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        // A permissão de teste voltou: a próxima chamada é liberada e fecha o circuito
+        assertEquals(200, breaker.execute(() -> 200, status -> status >= 500));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void unexpectedErrorInTrialReleasesPermission() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker(1, 0);
+        breaker.onFailure();
+
+        assertThrows(IllegalArgumentException.class, () -> breaker.execute(() -> {
+            throw new IllegalArgumentException("URI inválida");
+        }, result -> false));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        assertTrue(breaker.acquirePermission());
+        assertThrows(CircuitOpenException.class, breaker::acquirePermission);
+        breaker.releaseTrial();
+        assertTrue(breaker.acquirePermission());
+    }
+}
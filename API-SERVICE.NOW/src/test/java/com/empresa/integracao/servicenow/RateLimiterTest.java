@@ -0,0 +1,65 @@
+package com.empresa.integracao.servicenow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class RateLimiterTest {
+
+    @Test
+    void burstIsServedWithoutWaiting() throws Exception {
+        RateLimiter limiter = new RateLimiter(10, 5, 1);
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire();
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 50);
+        assertEquals(5, limiter.getAcquiredCount());
+    }
+
+    @Test
+    void rateIsRefilledAfterBurst() throws Exception {
+        RateLimiter limiter = new RateLimiter(20, 1, 1);
+        long start = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            limiter.acquire();
+        }
+        // A primeira é do burst; as outras duas esperam 1/20 s cada
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 90);
+    }
+
+    @Test
+    void throttleHalvesRateDownToMinimum() {
+        RateLimiter limiter = new RateLimiter(100, 10, 30);
+        limiter.onThrottle(0);
+        assertEquals(50.0, limiter.getCurrentRate(), 0.001);
+        limiter.onThrottle(0);
+        assertEquals(30.0, limiter.getCurrentRate(), 0.001);
+        limiter.onThrottle(0);
+        assertEquals(30.0, limiter.getCurrentRate(), 0.001);
+        assertEquals(3, limiter.getThrottleCount());
+    }
+
+    @Test
+    void throttlePausesForRetryAfter() throws Exception {
+        RateLimiter limiter = new RateLimiter(1000, 100, 500);
+        limiter.onThrottle(200);
+        long start = System.nanoTime();
+        limiter.acquire();
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 190);
+    }
+
+    @Test
+    void rateRecoversGraduallyAfterThrottle() throws Exception {
+        RateLimiter limiter = new RateLimiter(100, 10, 1);
+        limiter.onThrottle(0);
+        limiter.onSuccess();
+        assertEquals(50.0, limiter.getCurrentRate(), 0.001);
+
+        Thread.sleep(1050);
+        limiter.onSuccess();
+        assertEquals(60.0, limiter.getCurrentRate(), 0.001);
+    }
+}
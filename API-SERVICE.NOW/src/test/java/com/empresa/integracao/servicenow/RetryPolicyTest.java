@@ -0,0 +1,58 @@
+package com.empresa.integracao.servicenow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.http.HttpTimeoutException;
+import org.junit.jupiter.api.Test;
+
+class RetryPolicyTest {
+    private final RetryPolicy policy = new RetryPolicy(4, 100, 1000);
+
+    @Test
+    void connectionFailuresAreRetriedEvenForPost() {
+        assertTrue(policy.isRetryable(new ConnectException("recusada"), false));
+        assertTrue(policy.isRetryable(new ConnectException("recusada"), true));
+    }
+
+    @Test
+    void failuresAfterSendingAreRetriedOnlyWhenIdempotent() {
+        IOException timeout = new HttpTimeoutException("timeout");
+        assertTrue(policy.isRetryable(timeout, true));
+        assertFalse(policy.isRetryable(timeout, false));
+    }
+
+    @Test
+    void httpErrorsAreRetriedOnlyWhenTransientAndIdempotent() {
+        assertTrue(policy.isRetryable(new ServiceNowHttpException("indisponível", 503), true));
+        assertTrue(policy.isRetryable(new ServiceNowHttpException("limite", 429), true));
+        assertFalse(policy.isRetryable(new ServiceNowHttpException("indisponível", 503), false));
+        assertFalse(policy.isRetryable(new ServiceNowHttpException("inválida", 400), true));
+    }
+
+    @Test
+    void openCircuitIsNeverRetried() {
+        assertFalse(policy.isRetryable(new CircuitOpenException(1000), true));
+        assertFalse(policy.isRetryable(new CircuitOpenException(1000), false));
+    }
+
+    @Test
+    void delayStaysWithinExponentialCeiling() {
+        for (int attempt = 1; attempt <= 10; attempt++) {
+            long ceiling = Math.min(1000, 100L << (attempt - 1));
+            for (int i = 0; i < 200; i++) {
+                long delay = policy.delayMillis(attempt);
+                assertTrue(delay >= 0 && delay <= ceiling, "tentativa " + attempt + ": " + delay);
+            }
+        }
+    }
+
+    @Test
+    void attemptsAreAtLeastOne() {
+        assertEquals(1, new RetryPolicy(0, 0, 0).getMaxAttempts());
+        assertEquals(4, policy.getMaxAttempts());
+    }
+}
@@ -0,0 +1,166 @@
+package com.empresa.integracao.servicenow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.empresa.integracao.model.Employee;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * ServiceNowClient contra um servidor HTTP local com respostas roteirizadas
+ * (servicenow.url de src/test/resources/application.properties)
+ */
+class ServiceNowClientTest {
+    private static final int PORT = 18089;
+    private static final String SYS_ID = "0123456789abcdef0123456789abcdef";
+
+    private static final Deque<Reply> replies = new ConcurrentLinkedDeque<>();
+    private static final AtomicInteger requests = new AtomicInteger();
+    private static HttpServer server;
+
+    private final ServiceNowClient client = new ServiceNowClient();
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", PORT), 0);
+        server.createContext("/", ServiceNowClientTest::handle);
+        server.start();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop(0);
+    }
+
+    @BeforeEach
+    void reset() {
+        replies.clear();
+        requests.set(0);
+    }
+
+    @Test
+    void asyncThrottleSequenceCountsOnceInTheBreaker() throws Exception {
+        // Mais 503 com Retry-After do que o limite do disjuntor (5), dentro de uma única chamada
+        for (int i = 0; i < 5; i++) {
+            replies.add(new Reply(503, "0", "{}"));
+        }
+        replies.add(new Reply(201, null, "{\"result\":{\"sys_id\":\"" + SYS_ID + "\"}}"));
+
+        String sysId = client.createUserAsync(employee(1)).get(10, TimeUnit.SECONDS);
+
+        assertEquals(SYS_ID, sysId);
+        assertEquals(6, requests.get());
+        assertEquals(CircuitBreaker.State.CLOSED, ServiceNowClient.getCircuitBreaker().getState());
+    }
+
+    @Test
+    void asyncGetRetriesTransientServerError() throws Exception {
+        replies.add(new Reply(500, null, "{}"));
+        replies.add(new Reply(200, null, "{\"result\":[]}"));
+
+        String body = client.getUserByEmailAsync("funcionario1@empresa.com").get(10, TimeUnit.SECONDS);
+
+        assertEquals("{\"result\":[]}", body);
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void batchCreateReadsEachRecordResult() {
+        // Posições 0..4 = funcionários 1..5: criado, rejeitado, sem sys_id, não atendido e criado;
+        // o id 7 está fora do bloco e é ignorado
+        replies.add(new Reply(200, null, "{\"batch_request_id\":\"lote\",\"serviced_requests\":[" +
+            item("0", 201, "{\"result\":{\"sys_id\":\"" + SYS_ID + "\"}}") + "," +
+            item("1", 400, "{\"error\":{\"message\":\"email inválido\"}}") + "," +
+            item("2", 201, "{\"result\":{}}") + "," +
+            item("7", 201, "{\"result\":{\"sys_id\":\"ffffffffffffffffffffffffffffffff\"}}") + "," +
+            item("4", 201, "{\"result\":{\"sys_id\":\"" + SYS_ID.replace('0', '9') + "\"}}") +
+            "],\"unserviced_requests\":[\"3\"]}"));
+
+        ServiceNowClient.BatchCreateResult result = client.createUsersBatch(
+            List.of(employee(1), employee(2), employee(3), employee(4), employee(5)));
+
+        assertEquals(1, requests.get());
+        assertEquals(Map.of(1, SYS_ID, 5, SYS_ID.replace('0', '9')), result.sysIds);
+        assertEquals(Set.of(2, 3, 4), result.failures.keySet());
+        assertTrue(result.failures.get(2).startsWith("HTTP 400"));
+        assertEquals("Resposta do ServiceNow sem sys_id", result.failures.get(3));
+        assertEquals("não atendido pela requisição em lote", result.failures.get(4));
+        assertNull(result.unavailable);
+    }
+
+    @Test
+    void failedBatchMarksEveryEmployee() {
+        replies.add(new Reply(400, null, "{\"error\":{\"message\":\"lote inválido\"}}"));
+
+        ServiceNowClient.BatchCreateResult result = client.createUsersBatch(List.of(employee(11), employee(12)));
+
+        assertEquals(1, requests.get());
+        assertTrue(result.sysIds.isEmpty());
+        assertEquals(Set.of(11, 12), result.failures.keySet());
+    }
+
+    private static String item(String id, int status, String body) {
+        return "{\"id\":\"" + id + "\",\"status_code\":" + status + ",\"body\":\"" +
+               Base64.getEncoder().encodeToString(body.getBytes(StandardCharsets.UTF_8)) + "\"}";
+    }
+
+    static Employee employee(int id) {
+        Employee employee = new Employee();
+        employee.setId(id);
+        employee.setFirstName("Nome" + id);
+        employee.setLastName("Sobrenome" + id);
+        employee.setEmail("funcionario" + id + "@empresa.com");
+        return employee;
+    }
+
+    private static void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        exchange.getRequestBody().readAllBytes();
+        Reply reply = replies.poll();
+        if (reply == null) {
+            reply = new Reply(500, null, "{\"error\":\"sem resposta roteirizada\"}");
+        }
+        byte[] body = reply.body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        if (reply.retryAfter != null) {
+            exchange.getResponseHeaders().set("Retry-After", reply.retryAfter);
+        }
+        exchange.sendResponseHeaders(reply.status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Resposta roteirizada do servidor simulado
+     */
+    private static final class Reply {
+        final int status;
+        final String retryAfter;
+        final String body;
+
+        Reply(int status, String retryAfter, String body) {
+            this.status = status;
+            this.retryAfter = retryAfter;
+            this.body = body;
+        }
+    }
+}
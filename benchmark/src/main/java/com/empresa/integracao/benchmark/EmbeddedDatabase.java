@@ -0,0 +1,127 @@
+package com.empresa.integracao.benchmark;
+
+import com.empresa.integracao.config.DatabaseConfig;
+import com.empresa.integracao.database.DatabaseManager;
+import com.empresa.integracao.database.SyncStateStore;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Tabela de funcionários no H2 em memória (db.url do application.properties do módulo),
+ * criada com os nomes de coluna configurados e preenchida com dados sintéticos
+ * A coluna de sincronização é TINYINT, como o BOOLEAN do MySQL, pois a consulta de
+ * pendentes compara com 0
+ */
+public class EmbeddedDatabase {
+    private static final String[] DEPARTMENTS = { "Financeiro", "RH", "TI", "Comercial", "Operações", "Jurídico" };
+    private static final String[] POSITIONS = { "Analista", "Assistente", "Coordenador", "Gerente", "Especialista" };
+    private static final int INSERT_BATCH = 1000;
+
+    private EmbeddedDatabase() {}
+
+    /**
+     * Recria a tabela com "rows" funcionários pendentes de sincronização (ids 1..rows)
+     */
+    public static void createEmployeeTable(int rows) throws SQLException {
+        String table = DatabaseConfig.getEmployeeTable();
+        try (Connection conn = DatabaseManager.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DROP TABLE IF EXISTS " + table);
+            stmt.executeUpdate("CREATE TABLE " + table + " (" +
+                DatabaseConfig.getEmployeeIdColumn() + " INT PRIMARY KEY, " +
+                DatabaseConfig.getEmployeeFirstNameColumn() + " VARCHAR(100) NOT NULL, " +
+                DatabaseConfig.getEmployeeLastNameColumn() + " VARCHAR(100) NOT NULL, " +
+                DatabaseConfig.getEmployeeEmailColumn() + " VARCHAR(200) NOT NULL, " +
+                DatabaseConfig.getEmployeeDepartmentColumn() + " VARCHAR(100), " +
+                DatabaseConfig.getEmployeePositionColumn() + " VARCHAR(100), " +
+                DatabaseConfig.getEmployeeHireDateColumn() + " TIMESTAMP, " +
+                DatabaseConfig.getEmployeeSyncColumn() + " TINYINT DEFAULT 0, " +
+                DatabaseConfig.getEmployeeSyncDateColumn() + " TIMESTAMP NULL, " +
+                DatabaseConfig.getEmployeeSysIdColumn() + " VARCHAR(100) NULL" +
+                hashColumnDefinition() + ")");
+        }
+        insertEmployees(rows);
+    }
+
+    private static String hashColumnDefinition() {
+        String hashColumn = DatabaseConfig.getEmployeeHashColumn();
+        return hashColumn == null ? "" : ", " + hashColumn + " VARCHAR(16) NULL";
+    }
+
+    private static void insertEmployees(int rows) throws SQLException {
+        String sql = "INSERT INTO " + DatabaseConfig.getEmployeeTable() + " (" +
+            DatabaseConfig.getEmployeeIdColumn() + ", " +
+            DatabaseConfig.getEmployeeFirstNameColumn() + ", " +
+            DatabaseConfig.getEmployeeLastNameColumn() + ", " +
+            DatabaseConfig.getEmployeeEmailColumn() + ", " +
+            DatabaseConfig.getEmployeeDepartmentColumn() + ", " +
+            DatabaseConfig.getEmployeePositionColumn() + ", " +
+            DatabaseConfig.getEmployeeHireDateColumn() + ") VALUES (?, ?, ?, ?, ?, ?, ?)";
+        LocalDateTime firstHire = LocalDateTime.of(2010, 1, 4, 9, 0);
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
+            for (int id = 1; id <= rows; id++) {
+                pstmt.setInt(1, id);
+                pstmt.setString(2, "Nome" + id);
+                pstmt.setString(3, "Sobrenome" + id);
+                pstmt.setString(4, email(id));
+                pstmt.setString(5, DEPARTMENTS[id % DEPARTMENTS.length]);
+                pstmt.setString(6, POSITIONS[id % POSITIONS.length]);
+                pstmt.setTimestamp(7, Timestamp.valueOf(firstHire.plusDays(id % 5000)));
+                pstmt.addBatch();
+                if (id % INSERT_BATCH == 0) {
+                    pstmt.executeBatch();
+                }
+            }
+            pstmt.executeBatch();
+            conn.commit();
+            conn.setAutoCommit(true);
+        }
+    }
+
+    public static String email(int id) {
+        return "funcionario" + id + "@empresa.com.br";
+    }
+
+    /**
+     * Quantos funcionários estão marcados como sincronizados e com sys_id gravado
+     * (no SyncStateStore, com sync.state.backend=local)
+     */
+    public static int countSynced() throws SQLException {
+        if (SyncStateStore.isEnabled()) {
+            return countSyncedLocally();
+        }
+        try (Connection conn = DatabaseManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + DatabaseConfig.getEmployeeTable() +
+                 " WHERE " + DatabaseConfig.getEmployeeSyncColumn() + " = 1 AND " +
+                 DatabaseConfig.getEmployeeSysIdColumn() + " IS NOT NULL")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static int countSyncedLocally() throws SQLException {
+        SyncStateStore store = SyncStateStore.current();
+        int synced = 0;
+        try (Connection conn = DatabaseManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT " + DatabaseConfig.getEmployeeIdColumn() +
+                 " FROM " + DatabaseConfig.getEmployeeTable())) {
+            while (rs.next()) {
+                int id = rs.getInt(1);
+                if (store.isSynced(id) && store.getSysId(id) != null) {
+                    synced++;
+                }
+            }
+        }
+        return synced;
+    }
+}
@@ -0,0 +1,335 @@
+package com.empresa.integracao.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Servidor HTTP local que imita a parte da API do ServiceNow usada pela integração
+ *   GET   /api/now/table/sys_user?sysparm_query=emailIN...|email=...  consulta por email
+ *   GET   /api/now/table/sys_user?sysparm_query=...email>=X^ORDERBYemail  exportação por chave
+ *   POST  /api/now/table/sys_user                                    cria usuário (201)
+ *   PATCH /api/now/table/sys_user/{sys_id}                           atualiza usuário
+ *   POST  /api/now/v1/batch                                          lote de criações
+ * Cada requisição espera uma latência sorteada em torno de latencyMillis e, com as
+ * probabilidades configuradas, responde 429 (com Retry-After) ou 503, como a instância
+ * real sob carga. Os usuários ficam em memória, ordenados por email
+ */
+public class StubServiceNowServer {
+    private static final String USER_TABLE_PATH = "/api/now/table/sys_user";
+    private static final String BATCH_PATH = "/api/now/v1/batch";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final long latencyMillis;
+    private final double throttleRate;
+    private final double errorRate;
+    private final int retryAfterSeconds;
+    private final NavigableMap<String, ObjectNode> usersByEmail = new ConcurrentSkipListMap<>();
+    private final Map<String, String> emailsBySysId = new ConcurrentHashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong duplicateCreates = new AtomicLong();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * @param latencyMillis     latência média por requisição (varia entre metade e 1,5x)
+     * @param throttleRate      fração das requisições respondidas com 429
+     * @param errorRate         fração das requisições respondidas com 503
+     * @param retryAfterSeconds valor do Retry-After enviado nos 429
+     */
+    public StubServiceNowServer(long latencyMillis, double throttleRate, double errorRate, int retryAfterSeconds) {
+        this.latencyMillis = latencyMillis;
+        this.throttleRate = throttleRate;
+        this.errorRate = errorRate;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public void start(String host, int port, int threads) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(host, port), 512);
+        executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "servicenow-simulado");
+            t.setDaemon(true);
+            return t;
+        });
+        server.setExecutor(executor);
+        server.createContext(USER_TABLE_PATH, this::handleUserTable);
+        server.createContext(BATCH_PATH, this::handleBatch);
+        server.start();
+        System.out.println("ServiceNow simulado em http://" + host + ":" + server.getAddress().getPort() +
+                           " (latência " + latencyMillis + " ms, 429 " + throttleRate + ", 503 " + errorRate + ")");
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Cadastra um usuário como se já existisse na instância (para medir o caminho de atualização)
+     */
+    public String preload(String email) {
+        return preload(email, null, null, null);
+    }
+
+    public String preload(String email, String firstName, String lastName, String title) {
+        ObjectNode fields = MAPPER.createObjectNode().put("email", email);
+        fields.put("first_name", firstName).put("last_name", lastName).put("title", title);
+        return createUser(fields).path("sys_id").asText();
+    }
+
+    /**
+     * Remove o usuário, como uma exclusão feita direto na instância
+     */
+    public void remove(String email) {
+        ObjectNode removed = usersByEmail.remove(email.trim().toLowerCase());
+        if (removed != null) {
+            emailsBySysId.remove(removed.path("sys_id").asText());
+        }
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getThrottled() {
+        return throttled.get();
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+
+    public int getUserCount() {
+        return usersByEmail.size();
+    }
+
+    /**
+     * Criações recebidas para um email que já tinha usuário
+     */
+    public long getDuplicateCreates() {
+        return duplicateCreates.get();
+    }
+
+    private void handleUserTable(HttpExchange exchange) throws IOException {
+        try {
+            if (!simulateLoad(exchange)) {
+                return;
+            }
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            if ("GET".equals(method) && path.equals(USER_TABLE_PATH)) {
+                handleQuery(exchange);
+            } else if ("POST".equals(method) && path.equals(USER_TABLE_PATH)) {
+                JsonNode body = MAPPER.readTree(exchange.getRequestBody());
+                respond(exchange, 201, MAPPER.writeValueAsBytes(resultOf(createUser(body))));
+            } else if ("PATCH".equals(method) && path.startsWith(USER_TABLE_PATH + "/")) {
+                String sysId = path.substring(USER_TABLE_PATH.length() + 1);
+                JsonNode body = MAPPER.readTree(exchange.getRequestBody());
+                ObjectNode record = recordBySysId(sysId);
+                if (record == null) {
+                    respond(exchange, 404, "{\"error\":{\"message\":\"No Record found\"}}".getBytes(StandardCharsets.UTF_8));
+                } else {
+                    synchronized (record) {
+                        copyFields(body, record);
+                        record.put("sys_id", sysId);
+                    }
+                    respond(exchange, 200, MAPPER.writeValueAsBytes(resultOf(record)));
+                }
+            } else {
+                respond(exchange, 405, new byte[0]);
+            }
+        } catch (RuntimeException e) {
+            respond(exchange, 500, new byte[0]);
+        }
+    }
+
+    /**
+     * Atende "emailINa,b,c" e "email=a", devolvendo {"result":[{"sys_id","email"}]}, e a
+     * exportação ordenada "email>=X^ORDERBYemail" limitada por sysparm_limit (demais
+     * condições da consulta são ignoradas)
+     */
+    private void handleQuery(HttpExchange exchange) throws IOException {
+        String rawQuery = exchange.getRequestURI().getRawQuery();
+        String query = queryParameter(rawQuery, "sysparm_query");
+        ObjectNode response = MAPPER.createObjectNode();
+        ArrayNode result = response.putArray("result");
+        if (query != null && query.contains("ORDERBYemail")) {
+            String limit = queryParameter(rawQuery, "sysparm_limit");
+            exportPage(query, limit == null ? 10000 : Integer.parseInt(limit), result);
+        } else if (query != null) {
+            String[] emails = query.startsWith("emailIN") ? query.substring("emailIN".length()).split(",")
+                            : query.startsWith("email=") ? new String[] { query.substring("email=".length()) }
+                            : new String[0];
+            for (String email : emails) {
+                ObjectNode record = usersByEmail.get(email.trim().toLowerCase());
+                if (record != null) {
+                    result.addObject().put("sys_id", record.path("sys_id").asText()).put("email", record.path("email").asText());
+                }
+            }
+        }
+        respond(exchange, 200, MAPPER.writeValueAsBytes(response));
+    }
+
+    private void exportPage(String query, int limit, ArrayNode result) {
+        String from = null;
+        for (String condition : query.split("\\^")) {
+            if (condition.startsWith("email>=")) {
+                from = condition.substring("email>=".length()).toLowerCase();
+            }
+        }
+        NavigableMap<String, ObjectNode> page = from == null ? usersByEmail : usersByEmail.tailMap(from, true);
+        for (ObjectNode record : page.values()) {
+            if (result.size() >= limit) {
+                break;
+            }
+            synchronized (record) {
+                result.add(record.deepCopy());
+            }
+        }
+    }
+
+    /**
+     * Lê rest_requests (corpos em base64) e responde serviced_requests na mesma ordem
+     */
+    private void handleBatch(HttpExchange exchange) throws IOException {
+        try {
+            if (!simulateLoad(exchange)) {
+                return;
+            }
+            JsonNode request = MAPPER.readTree(exchange.getRequestBody());
+            ObjectNode response = MAPPER.createObjectNode();
+            response.put("batch_request_id", request.path("batch_request_id").asText());
+            ArrayNode serviced = response.putArray("serviced_requests");
+            for (JsonNode item : request.path("rest_requests")) {
+                JsonNode body = MAPPER.readTree(item.path("body").binaryValue());
+                ObjectNode record = resultOf(createUser(body));
+                serviced.addObject()
+                    .put("id", item.path("id").asText())
+                    .put("status_code", 201)
+                    .put("body", MAPPER.writeValueAsBytes(record));
+            }
+            response.putArray("unserviced_requests");
+            respond(exchange, 200, MAPPER.writeValueAsBytes(response));
+        } catch (RuntimeException e) {
+            respond(exchange, 500, new byte[0]);
+        }
+    }
+
+    /**
+     * Aplica a latência e sorteia 429/503; retorna false se a requisição já foi respondida
+     */
+    private boolean simulateLoad(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (latencyMillis > 0) {
+            try {
+                Thread.sleep(latencyMillis / 2 + random.nextLong(latencyMillis + 1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        double draw = random.nextDouble();
+        if (draw < throttleRate) {
+            throttled.incrementAndGet();
+            drain(exchange);
+            exchange.getResponseHeaders().set("Retry-After", String.valueOf(retryAfterSeconds));
+            respond(exchange, 429, "{\"error\":{\"message\":\"Too many requests\"}}".getBytes(StandardCharsets.UTF_8));
+            return false;
+        }
+        if (draw < throttleRate + errorRate) {
+            errors.incrementAndGet();
+            drain(exchange);
+            respond(exchange, 503, "{\"error\":{\"message\":\"Service unavailable\"}}".getBytes(StandardCharsets.UTF_8));
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Cria o usuário com os campos do corpo, ou devolve o existente com o mesmo email
+     */
+    private ObjectNode createUser(JsonNode fields) {
+        String email = fields.path("email").asText().trim().toLowerCase();
+        ObjectNode existing = usersByEmail.get(email);
+        if (existing != null) {
+            duplicateCreates.incrementAndGet();
+            return existing;
+        }
+        return usersByEmail.computeIfAbsent(email, key -> {
+            String sysId = UUID.randomUUID().toString().replace("-", "");
+            ObjectNode record = MAPPER.createObjectNode();
+            copyFields(fields, record);
+            record.put("sys_id", sysId);
+            emailsBySysId.put(sysId, key);
+            return record;
+        });
+    }
+
+    private ObjectNode recordBySysId(String sysId) {
+        String email = emailsBySysId.get(sysId);
+        return email == null ? null : usersByEmail.get(email);
+    }
+
+    private static void copyFields(JsonNode fields, ObjectNode record) {
+        if (fields.isObject()) {
+            record.setAll((ObjectNode) fields);
+        }
+    }
+
+    private static ObjectNode resultOf(ObjectNode record) {
+        ObjectNode response = MAPPER.createObjectNode();
+        synchronized (record) {
+            response.set("result", record.deepCopy());
+        }
+        return response;
+    }
+
+    private static String queryParameter(String rawQuery, String name) {
+        if (rawQuery == null) {
+            return null;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0 && pair.substring(0, equals).equals(name)) {
+                return URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static void drain(HttpExchange exchange) throws IOException {
+        try (InputStream body = exchange.getRequestBody()) {
+            body.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
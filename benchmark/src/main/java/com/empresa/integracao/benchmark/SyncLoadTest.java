@@ -0,0 +1,127 @@
+package com.empresa.integracao.benchmark;
+
+import com.empresa.integracao.config.DatabaseConfig;
+import com.empresa.integracao.database.DatabaseManager;
+import com.empresa.integracao.metrics.LatencyHistogram;
+import com.empresa.integracao.metrics.Metrics;
+import com.empresa.integracao.service.EmployeeSyncService;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Teste de carga de ponta a ponta, sem rede nem banco externos: cria a tabela funcionarios
+ * no H2 em memória, sobe o StubServiceNowServer e executa a sincronização completa
+ * (EmployeeSyncService.syncEmployeesToServiceNow), informando funcionários por segundo e
+ * os percentis de latência registrados em Metrics
+ *
+ * Parâmetros (-Dchave=valor):
+ *   loadtest.employees      funcionários na tabela (10000)
+ *   loadtest.preloaded      fração já existente no ServiceNow, que segue pela busca/PATCH (0.2)
+ *   stub.latency.ms         latência média do ServiceNow simulado (20)
+ *   stub.throttle.rate      fração de respostas 429 (0.01)
+ *   stub.error.rate         fração de respostas 503 (0.005)
+ *   stub.retry.after.s      Retry-After dos 429 (1)
+ *   stub.threads            threads do servidor simulado (64)
+ *   loadtest.min.synced     fração mínima sincronizada para o teste passar (0.99)
+ * Qualquer chave da aplicação (sync.parallelism, servicenow.create.mode, sync.state.backend...) também pode ser
+ * sobreposta, para comparar configurações com a mesma carga
+ *
+ * Execução, após mvn package na raiz:
+ *   java -Dloadtest.employees=20000 -cp benchmark/target/benchmarks.jar com.empresa.integracao.benchmark.SyncLoadTest
+ * (os microbenchmarks JMH rodam com java -jar benchmark/target/benchmarks.jar)
+ *
+ * O teste falha (código de saída 1) se menos de loadtest.min.synced dos funcionários forem
+ * sincronizados ou se algum usuário for criado duas vezes no ServiceNow simulado
+ */
+public class SyncLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        int employees = Integer.getInteger("loadtest.employees", 10000);
+        double preloaded = Double.parseDouble(System.getProperty("loadtest.preloaded", "0.2"));
+
+        URI serviceNowUrl = URI.create(DatabaseConfig.getServiceNowUrl());
+        StubServiceNowServer stub = new StubServiceNowServer(
+            Long.getLong("stub.latency.ms", 20L),
+            Double.parseDouble(System.getProperty("stub.throttle.rate", "0.01")),
+            Double.parseDouble(System.getProperty("stub.error.rate", "0.005")),
+            Integer.getInteger("stub.retry.after.s", 1));
+        stub.start(serviceNowUrl.getHost(), serviceNowUrl.getPort(), Integer.getInteger("stub.threads", 64));
+
+        boolean passed;
+        try {
+            System.out.println("Preparando " + employees + " funcionários no H2 (" + DatabaseConfig.getDatabaseUrl() + ")");
+            // A tabela é recriada a cada execução; o estado local (sync.state.backend=local) também
+            Files.deleteIfExists(Paths.get(DatabaseConfig.getSyncStateFile()));
+            EmbeddedDatabase.createEmployeeTable(employees);
+            int preloadedCount = (int) (employees * preloaded);
+            for (int id = 1; id <= preloadedCount; id++) {
+                stub.preload(EmbeddedDatabase.email(id));
+            }
+
+            if (!DatabaseManager.initializeSchema()) {
+                System.exit(1);
+            }
+            DatabaseManager.preparePendingQuery();
+            EmployeeSyncService syncService = new EmployeeSyncService();
+
+            long start = System.nanoTime();
+            syncService.syncEmployeesToServiceNow();
+            double elapsedSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+            int synced = EmbeddedDatabase.countSynced();
+            printReport(employees, synced, elapsedSeconds, stub);
+            passed = verify(employees, synced, stub);
+        } finally {
+            stub.stop();
+            DatabaseManager.shutdown();
+        }
+        if (!passed) {
+            System.exit(1);
+        }
+    }
+
+    private static boolean verify(int employees, int synced, StubServiceNowServer stub) {
+        double minSynced = Double.parseDouble(System.getProperty("loadtest.min.synced", "0.99"));
+        boolean passed = true;
+        if (synced < employees * minSynced) {
+            System.err.printf("FALHA: %d de %d sincronizados, abaixo do mínimo de %.1f%%%n",
+                              synced, employees, minSynced * 100);
+            passed = false;
+        }
+        if (stub.getDuplicateCreates() > 0 || stub.getUserCount() > employees) {
+            System.err.println("FALHA: " + stub.getDuplicateCreates() + " criações duplicadas; " + stub.getUserCount() +
+                               " usuários no ServiceNow simulado para " + employees + " funcionários");
+            passed = false;
+        }
+        System.out.println(passed ? "Teste de carga: OK" : "Teste de carga: FALHOU");
+        return passed;
+    }
+
+    private static void printReport(int employees, int synced, double elapsedSeconds, StubServiceNowServer stub) {
+        System.out.println();
+        System.out.println("=== RESULTADO DO TESTE DE CARGA ===");
+        System.out.printf("Funcionários sincronizados: %d de %d em %.2f s%n", synced, employees, elapsedSeconds);
+        System.out.printf("Vazão: %.1f funcionários/s%n", synced / elapsedSeconds);
+        if (synced < employees) {
+            System.out.println("Não sincronizados (erros simulados esgotaram as tentativas): " + (employees - synced));
+        }
+        System.out.println("Requisições ao ServiceNow simulado: " + stub.getRequests() +
+                           " (429: " + stub.getThrottled() + ", 503: " + stub.getErrors() + ")");
+        System.out.println("Retentativas do cliente: " + Metrics.counter("servicenow_retries_total").sum());
+        printLatency("Estágio ServiceNow (por página)", Metrics.timer("sync_stage_seconds", "stage", "ServiceNow"));
+        for (String method : new String[] { "GET", "POST", "PATCH" }) {
+            printLatency("Requisição " + method, Metrics.timer("servicenow_request_seconds", "method", method));
+        }
+        printLatency("Gravação do status (lote)", Metrics.timer("db_query_seconds", "query", "sync_status_batch"));
+    }
+
+    private static void printLatency(String name, LatencyHistogram histogram) {
+        if (histogram.getCount() == 0) {
+            return;
+        }
+        System.out.printf("%-40s n=%-7d p50=%6.1f ms  p95=%6.1f ms  p99=%6.1f ms%n", name, histogram.getCount(),
+                          histogram.percentileMicros(0.50) / 1000.0, histogram.percentileMicros(0.95) / 1000.0,
+                          histogram.percentileMicros(0.99) / 1000.0);
+    }
+}
@@ -0,0 +1,88 @@
+package com.empresa.integracao.benchmark;
+
+import com.empresa.integracao.config.DatabaseConfig;
+import com.empresa.integracao.database.SyncStateStore;
+import com.empresa.integracao.model.Employee;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Estado de sincronização local (SyncStateStore) com um milhão de funcionários: consulta
+ * do status, cópia do estado para o Employee lido do banco e gravação sobre um registro
+ * existente, em ids aleatórios (10% deles fora do arquivo)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SyncStateStoreBenchmark {
+    private static final int ROWS = 1_000_000;
+    private static final int LOOKUPS = 1 << 16;
+    private static final String SYS_ID = String.format("%032x", 42);
+
+    private final Employee employee = new Employee();
+    private final int[] ids = new int[LOOKUPS];
+    private SyncStateStore store;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Files.deleteIfExists(Paths.get(DatabaseConfig.getSyncStateFile()));
+        store = SyncStateStore.current();
+        long now = System.currentTimeMillis();
+        for (int id = 1; id <= ROWS; id++) {
+            store.put(id, id % 2 == 0, now, String.format("%032x", id), String.format("%016x", id));
+        }
+        store.force();
+
+        Random random = new Random(7);
+        for (int i = 0; i < LOOKUPS; i++) {
+            ids[i] = 1 + random.nextInt(ROWS + ROWS / 10);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        SyncStateStore.closeAll();
+        Files.deleteIfExists(Paths.get(DatabaseConfig.getSyncStateFile()));
+    }
+
+    @Benchmark
+    public boolean isSynced() {
+        return store.isSynced(nextId());
+    }
+
+    @Benchmark
+    public Employee apply() {
+        employee.setId(nextId());
+        store.apply(employee);
+        return employee;
+    }
+
+    @Benchmark
+    public void put() {
+        store.put(1 + (nextId() % ROWS), true, 0L, SYS_ID, "0123456789abcdef");
+    }
+
+    private int nextId() {
+        next = (next + 1) & (LOOKUPS - 1);
+        return ids[next];
+    }
+}
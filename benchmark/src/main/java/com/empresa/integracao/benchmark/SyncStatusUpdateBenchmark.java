@@ -0,0 +1,84 @@
+package com.empresa.integracao.benchmark;
+
+import com.empresa.integracao.database.DatabaseManager;
+import com.empresa.integracao.model.Employee;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Gravação do status de sincronização no H2 em memória: updateEmployeeSyncStatus (uma
+ * conexão e um UPDATE por funcionário) contra updateEmployeeSyncStatusBatch (lotes de
+ * db.batch.size em uma transação), ambos medidos por funcionário
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SyncStatusUpdateBenchmark {
+    private static final int ROWS = 10000;
+    private static final int BATCH = 200;
+
+    private final List<Employee> employees = new ArrayList<>(ROWS);
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        EmbeddedDatabase.createEmployeeTable(ROWS);
+        DatabaseManager.initializeSchema();
+        for (int id = 1; id <= ROWS; id++) {
+            Employee employee = new Employee();
+            employee.setId(id);
+            employee.setFirstName("Nome" + id);
+            employee.setLastName("Sobrenome" + id);
+            employee.setEmail(EmbeddedDatabase.email(id));
+            employee.setServiceNowSysId(String.format("%032x", id));
+            employees.add(employee);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        DatabaseManager.shutdown();
+    }
+
+    @Benchmark
+    public void singleUpdate() {
+        DatabaseManager.updateEmployeeSyncStatus(employees.get(nextIndex(1)));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public DatabaseManager.BatchResult batchUpdate() {
+        int start = nextIndex(BATCH);
+        return DatabaseManager.updateEmployeeSyncStatusBatch(employees.subList(start, start + BATCH));
+    }
+
+    /**
+     * Percorre a tabela em ciclo, para que cada UPDATE atinja linhas diferentes
+     */
+    private int nextIndex(int count) {
+        if (next + count > ROWS) {
+            next = 0;
+        }
+        int start = next;
+        next += count;
+        return start;
+    }
+}
@@ -0,0 +1,70 @@
+package com.empresa.integracao.database;
+
+import com.empresa.integracao.config.DatabaseConfig;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Custo de DatabaseManager.mapResultSetToEmployee por linha, sobre um ResultSet em memória
+ * (sem E/S), com as colunas resolvidas uma vez como no EmployeeCursor
+ * Fica no pacote database porque o método é de pacote
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EmployeeMappingBenchmark {
+    private static final int ROWS = 1000;
+
+    private SimpleResultSet resultSet;
+    private EmployeeTableSchema.ColumnIndexes columns;
+
+    @Setup
+    public void setUp() throws SQLException {
+        resultSet = new SimpleResultSet();
+        resultSet.setAutoClose(false);
+        resultSet.addColumn(DatabaseConfig.getEmployeeIdColumn(), Types.INTEGER, 10, 0);
+        resultSet.addColumn(DatabaseConfig.getEmployeeFirstNameColumn(), Types.VARCHAR, 100, 0);
+        resultSet.addColumn(DatabaseConfig.getEmployeeLastNameColumn(), Types.VARCHAR, 100, 0);
+        resultSet.addColumn(DatabaseConfig.getEmployeeEmailColumn(), Types.VARCHAR, 200, 0);
+        resultSet.addColumn(DatabaseConfig.getEmployeeDepartmentColumn(), Types.VARCHAR, 100, 0);
+        resultSet.addColumn(DatabaseConfig.getEmployeePositionColumn(), Types.VARCHAR, 100, 0);
+        resultSet.addColumn(DatabaseConfig.getEmployeeHireDateColumn(), Types.TIMESTAMP, 26, 0);
+        resultSet.addColumn(DatabaseConfig.getEmployeeSyncColumn(), Types.BOOLEAN, 1, 0);
+        resultSet.addColumn(DatabaseConfig.getEmployeeSysIdColumn(), Types.VARCHAR, 100, 0);
+
+        LocalDateTime firstHire = LocalDateTime.of(2010, 1, 4, 9, 0);
+        for (int id = 1; id <= ROWS; id++) {
+            resultSet.addRow(id, "Nome" + id, "Sobrenome" + id, "funcionario" + id + "@empresa.com.br",
+                             "TI", "Analista", Timestamp.valueOf(firstHire.plusDays(id)), Boolean.FALSE, null);
+        }
+        columns = EmployeeTableSchema.ColumnIndexes.resolve(resultSet.getMetaData());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void mapPage(Blackhole blackhole) throws SQLException {
+        resultSet.beforeFirst();
+        while (resultSet.next()) {
+            blackhole.consume(DatabaseManager.mapResultSetToEmployee(resultSet, columns));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.empresa.integracao.servicenow;
+
+import com.empresa.integracao.model.Employee;
+import com.fasterxml.jackson.core.JsonParser;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Serialização do corpo do usuário e leitura das respostas do ServiceNow (ServiceNowJson),
+ * com respostas no formato real: criação, consulta "emailIN" de 100 usuários e lote de 200
+ * Fica no pacote servicenow porque ServiceNowJson é de pacote
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ServiceNowJsonBenchmark {
+    private Employee employee;
+    private byte[] createResponse;
+    private byte[] lookupResponse;
+    private byte[] batchResponse;
+
+    @Setup
+    public void setUp() {
+        employee = new Employee();
+        employee.setId(4217);
+        employee.setFirstName("João");
+        employee.setLastName("Conceição");
+        employee.setEmail("joao.conceicao@empresa.com.br");
+        employee.setDepartment("Operações");
+        employee.setPosition("Coordenador de Logística");
+
+        createResponse = record(0).getBytes(StandardCharsets.UTF_8);
+
+        StringBuilder lookup = new StringBuilder("{\"result\":[");
+        for (int i = 0; i < 100; i++) {
+            lookup.append(i == 0 ? "" : ",")
+                  .append("{\"sys_id\":\"").append(sysId(i)).append("\",\"email\":\"funcionario").append(i)
+                  .append("@empresa.com.br\"}");
+        }
+        lookupResponse = lookup.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+
+        StringBuilder batch = new StringBuilder("{\"batch_request_id\":\"1\",\"serviced_requests\":[");
+        for (int i = 0; i < 200; i++) {
+            String body = Base64.getEncoder().encodeToString(record(i).getBytes(StandardCharsets.UTF_8));
+            batch.append(i == 0 ? "" : ",")
+                 .append("{\"id\":\"").append(i).append("\",\"status_code\":201,\"status_text\":\"Created\",")
+                 .append("\"headers\":[],\"body\":\"").append(body).append("\",\"execution_time\":12}");
+        }
+        batchResponse = batch.append("],\"unserviced_requests\":[]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Registro sys_user como devolvido pela Table API, com os campos que a integração ignora
+     */
+    private static String record(int i) {
+        return "{\"result\":{\"sys_id\":\"" + sysId(i) + "\",\"user_name\":\"funcionario" + i + "@empresa.com.br\"," +
+               "\"first_name\":\"Nome\",\"last_name\":\"Sobrenome\",\"email\":\"funcionario" + i + "@empresa.com.br\"," +
+               "\"department\":{\"link\":\"https://instancia.service-now.com/api/now/table/cmn_department/1\",\"value\":\"1\"}," +
+               "\"title\":\"Analista\",\"active\":\"true\",\"sys_created_on\":\"2024-03-01 10:15:00\"," +
+               "\"sys_updated_on\":\"2024-03-01 10:15:00\",\"sys_mod_count\":\"0\"}}";
+    }
+
+    private static String sysId(int i) {
+        return String.format("%032x", 0x5137_0000L + i);
+    }
+
+    @Benchmark
+    public byte[] writeUserBody() throws IOException {
+        return ServiceNowJson.writeUserBody(employee);
+    }
+
+    @Benchmark
+    public String readCreateResponse() throws IOException {
+        try (JsonParser parser = ServiceNowJson.parser(createResponse)) {
+            return ServiceNowJson.readResultSysId(parser);
+        }
+    }
+
+    @Benchmark
+    public void readLookupResponse(Blackhole blackhole) throws IOException {
+        try (JsonParser parser = ServiceNowJson.parser(lookupResponse)) {
+            ServiceNowJson.readUsers(parser, (email, sysId) -> blackhole.consume(sysId));
+        }
+    }
+
+    @Benchmark
+    public void readBatchResponse(Blackhole blackhole) throws IOException {
+        try (JsonParser parser = ServiceNowJson.parser(batchResponse)) {
+            ServiceNowJson.readBatchItems(parser, (id, status, body) -> {
+                try (JsonParser recordParser = ServiceNowJson.parser(body)) {
+                    blackhole.consume(ServiceNowJson.readResultSysId(recordParser));
+                }
+            });
+        }
+    }
+}